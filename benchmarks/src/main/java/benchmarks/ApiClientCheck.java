@@ -0,0 +1,196 @@
+package benchmarks;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import dataAccess.ApiResponseCache;
+import dataAccess.Manager;
+import domain.Match;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Checks the client of the football-data.org API against a local stand-in of the API. It parses a
+ * large response as it is streamed, reuses it while it is fresh, revalidates it once expired with a
+ * conditional request answered with 304, waits for the rate limit after a 429, and falls back on
+ * the expired response while the rate limit lasts. Any unexpected result makes the run fail with
+ * exit code 1.
+ * <pre>
+ *     java -cp benchmarks.jar benchmarks.ApiClientCheck [matches=200000] [ttl=1000]
+ * </pre>
+ */
+public class ApiClientCheck {
+
+    private static final Path FOLDER = Paths.get("target", "api-client-check");
+    private static final String ETAG = "\"v1\"";
+    // Competitions served by the stand-in: a large one, one starting over the rate limit and one using it up
+    private static final int LARGE = 1;
+    private static final int LIMITED = 2;
+    private static final int LAST_REQUEST = 3;
+    private static final int RESET_SECONDS = 1;
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger notModified = new AtomicInteger();
+    private final AtomicInteger limitedRequests = new AtomicInteger();
+    private final AtomicInteger tooManyRequests = new AtomicInteger();
+
+    private final int matches;
+    private final long ttl;
+    private boolean passed = true;
+
+    public ApiClientCheck(int matches, long ttl) {
+        this.matches = matches;
+        this.ttl = ttl;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int matches = 200_000;
+        long ttl = 1000;
+        for (String arg : args) {
+            String[] option = arg.split("=", 2);
+            if (option[0].equals("matches")) matches = Integer.parseInt(option[1]);
+            if (option[0].equals("ttl")) ttl = Long.parseLong(option[1]);
+        }
+        System.exit(new ApiClientCheck(matches, ttl).run() ? 0 : 1);
+    }
+
+    /**
+     * Starts the stand-in of the API and runs the checks against it.
+     * @return true if every check passed
+     */
+    public boolean run() throws Exception {
+        clearCache();
+        ExecutorService workers = Executors.newFixedThreadPool(4);
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", this::serve);
+        server.setExecutor(workers);
+        server.start();
+        try {
+            String baseUrl = "http://localhost:" + server.getAddress().getPort() + "/";
+            Manager manager = new Manager(baseUrl, new ApiResponseCache(FOLDER), ttl, ttl);
+
+            Runtime runtime = Runtime.getRuntime();
+            System.gc();
+            long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+            long begin = System.nanoTime();
+            List<Match> large = manager.getMatches(LARGE);
+            long millis = (System.nanoTime() - begin) / 1_000_000;
+            long heapAfter = runtime.totalMemory() - runtime.freeMemory();
+            check("streamed response parsed", large != null && large.size() == matches && requests.get() == 1);
+            System.out.println("  " + matches + " matches in " + millis + " ms, heap grew "
+                    + (heapAfter - heapBefore) / (1024 * 1024) + " MB");
+
+            check("fresh response reused", size(manager.getMatches(LARGE)) == matches && requests.get() == 1);
+
+            Thread.sleep(ttl + 100);
+            check("expired response revalidated with 304", size(manager.getMatches(LARGE)) == matches
+                    && requests.get() == 2 && notModified.get() == 1);
+
+            begin = System.nanoTime();
+            List<Match> limited = manager.getMatches(LIMITED);
+            millis = (System.nanoTime() - begin) / 1_000_000;
+            check("request retried after the rate limit reset", size(limited) == 1 && tooManyRequests.get() == 1
+                    && millis >= RESET_SECONDS * 1000 - 100);
+            System.out.println("  waited " + millis + " ms for the rate limit");
+
+            Thread.sleep(ttl + 100);
+            check("last request of the minute served", size(manager.getMatches(LAST_REQUEST)) == 1);
+            int served = requests.get();
+            begin = System.nanoTime();
+            List<Match> stale = manager.getMatches(LARGE);
+            millis = (System.nanoTime() - begin) / 1_000_000;
+            check("expired response used while rate limited", size(stale) == matches && requests.get() == served
+                    && millis < RESET_SECONDS * 1000);
+        } finally {
+            server.stop(0);
+            workers.shutdown();
+        }
+
+        System.out.println(passed ? "PASSED" : "FAILED");
+        return passed;
+    }
+
+    /**
+     * Answers the requests for the matches of a competition as football-data.org would.
+     */
+    private void serve(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        String[] path = exchange.getRequestURI().getPath().split("/");
+        int competition = path.length > 2 ? Integer.parseInt(path[2]) : 0;
+        try {
+            if (competition == LIMITED && limitedRequests.getAndIncrement() == 0) {
+                tooManyRequests.incrementAndGet();
+                exchange.getResponseHeaders().add("X-RequestCounter-Reset", Integer.toString(RESET_SECONDS));
+                exchange.sendResponseHeaders(429, -1);
+                return;
+            }
+            if (competition == LARGE && ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModified.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+
+            if (competition == LARGE) exchange.getResponseHeaders().add("ETag", ETAG);
+            if (competition == LAST_REQUEST) {
+                exchange.getResponseHeaders().add("X-Requests-Available-Minute", "0");
+                exchange.getResponseHeaders().add("X-RequestCounter-Reset", Integer.toString(RESET_SECONDS));
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            // Sent in chunks as it is written, so the client has to parse it as it arrives
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream body = exchange.getResponseBody()) {
+                writeMatches(body, competition, competition == LARGE ? matches : 1);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Writes a response of the matches endpoint, with fields before and after the matches that the
+     * client has to skip.
+     */
+    private static void writeMatches(OutputStream out, int competition, int count) throws IOException {
+        Writer w = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        w.write("{\"count\":" + count + ",\"filters\":{},\"competition\":{\"id\":" + competition + "},\"matches\":[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) w.write(',');
+            w.write("{\"id\":" + (competition * 10_000_000 + i) + ",\"utcDate\":\"2022-05-01T18:00:00Z\"," +
+                    "\"status\":\"SCHEDULED\",\"matchday\":" + (i % 38 + 1) + "," +
+                    "\"homeTeam\":{\"id\":" + (2 * i) + ",\"name\":\"Home " + i + "\"}," +
+                    "\"awayTeam\":{\"id\":" + (2 * i + 1) + ",\"name\":\"Away " + i + "\"}," +
+                    "\"referees\":[{\"id\":1,\"name\":\"Referee\"}],\"lastUpdated\":\"2022-04-30T10:00:00Z\"}");
+        }
+        w.write("],\"resultSet\":{\"count\":" + count + "}}");
+        w.flush();
+    }
+
+    private void check(String name, boolean ok) {
+        System.out.println((ok ? "ok      " : "FAILED  ") + name);
+        passed &= ok;
+    }
+
+    private static int size(List<Match> matches) {
+        return matches != null ? matches.size() : -1;
+    }
+
+    private static void clearCache() throws IOException {
+        if (!Files.exists(FOLDER)) return;
+        try (Stream<Path> files = Files.walk(FOLDER)) {
+            for (Path p : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) Files.delete(p);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package benchmarks;
+
+import businessLogic.BlFacadeImplementation;
+import configuration.UtilDate;
+import dataAccess.DataAccess;
+import dataAccess.DataGenerator;
+import domain.*;
+import org.openjdk.jmh.annotations.*;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Database shared by the benchmarks of a fork. The first time a given size is requested, an ObjectDB
+ * file is seeded by the {@link DataGenerator} with that many users, bets and events and kept under
+ * target/benchmark-db. Every trial then works on a fresh copy of it, so the benchmarks that write
+ * (placing bets, publishing results) always start from the same data.
+ * <p>
+ * The events are spread over the year before and the year after the day of the seed, and the second
+ * question of the past events is left open to be published by the benchmarks. Every user has the
+ * password {@link #PASSWORD}.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkDatabase {
+
+    /**
+     * Password of every seeded user.
+     */
+    public static final String PASSWORD = "benchmark";
+
+    private static final Path FOLDER = Paths.get("target", "benchmark-db");
+    private static final long SEED = 2022;
+
+    @Param("100000")
+    public int users;
+
+    @Param("1000000")
+    public int bets;
+
+    @Param("10000")
+    public int events;
+
+    /**
+     * Facade serving the benchmarks, as the application uses it when the business logic is local.
+     */
+    public BlFacadeImplementation facade;
+
+    /**
+     * Seeds the database if needed and opens a fresh copy of it.
+     * @throws IOException if the database files cannot be copied
+     */
+    @Setup(Level.Trial)
+    public void open() throws IOException {
+        Path seeded = FOLDER.resolve("seed-" + users + "u-" + bets + "b-" + events + "e.odb");
+        if (!Files.exists(seeded)) seed(seeded);
+
+        Path run = FOLDER.resolve("run.odb").toAbsolutePath();
+        Files.copy(seeded, run, StandardCopyOption.REPLACE_EXISTING);
+
+        // Read by the configuration when DataAccess is first used
+        System.setProperty("dataBaseFilename", run.toString());
+        System.setProperty("dataBaseOpenMode", "open");
+        DataAccess dataAccess = new DataAccess();
+        facade = new BlFacadeImplementation(dataAccess);
+        dataAccess.close();
+    }
+
+    /**
+     * Closes the database of the trial.
+     */
+    @TearDown(Level.Trial)
+    public void close() {
+        DataAccess.shutdown();
+    }
+
+    /**
+     * Returns the day of the seed, on which the seeded events are centred.
+     * @return the day of the seed
+     */
+    public static Date today() {
+        return UtilDate.trim(new Date());
+    }
+
+    /**
+     * Returns the date of the given seeded event.
+     * @param i index of the event
+     * @return the event date, between 365 days before and 364 days after the day of the seed
+     */
+    public static Date eventDate(int i) {
+        return DataGenerator.eventDate(today(), i);
+    }
+
+    /**
+     * Returns the username of the given seeded user.
+     * @param i index of the user
+     * @return the username
+     */
+    public static String username(int i) {
+        return DataGenerator.username(i);
+    }
+
+    /**
+     * Returns the forecasts of the events of the next days, that still accept bets.
+     * @param n maximum number of events to take the forecasts from
+     * @return the forecasts
+     */
+    public List<Forecast> upcomingForecasts(int n) {
+        DataAccess dataAccess = new DataAccess();
+        try {
+            List<Forecast> forecasts = new ArrayList<Forecast>();
+            for (Event e : dataAccess.getUpcomingEvents(n))
+                for (Question q : dataAccess.getQuestions(e))
+                    forecasts.addAll(q.getForecasts());
+            return forecasts;
+        } finally {
+            dataAccess.close();
+        }
+    }
+
+    /**
+     * Returns the questions of past events whose result has not been published yet,
+     * starting from the most recent day.
+     * @param n number of questions
+     * @return the open questions
+     */
+    public List<Question> openQuestions(int n) {
+        DataAccess dataAccess = new DataAccess();
+        try {
+            List<Question> questions = new ArrayList<Question>();
+            Calendar day = Calendar.getInstance();
+            day.setTime(today());
+            for (int d = 0; d < 366 && questions.size() < n; d++) {
+                day.add(Calendar.DAY_OF_MONTH, -1);
+                for (Event e : dataAccess.getEvents(UtilDate.trim(day.getTime())))
+                    for (Question q : dataAccess.getQuestions(e))
+                        if (q.getCorrectForecast() == null && questions.size() < n) questions.add(q);
+            }
+            return questions;
+        } finally {
+            dataAccess.close();
+        }
+    }
+
+    /**
+     * Writes a new database with the configured volumes. It is written to a temporary file
+     * that is renamed when complete, so an interrupted seed is never reused.
+     */
+    private void seed(Path target) throws IOException {
+        Files.createDirectories(FOLDER);
+        Path partial = FOLDER.resolve("seeding.odb");
+        Files.deleteIfExists(partial);
+        System.out.println("Seeding " + target);
+
+        EntityManagerFactory factory = Persistence.createEntityManagerFactory("objectdb:" + partial.toAbsolutePath());
+        EntityManager db = factory.createEntityManager();
+        try {
+            DataGenerator generator = new DataGenerator(db, SEED);
+            generator.setUsers(users);
+            generator.setBets(bets);
+            generator.setEvents(events);
+            generator.setPassword(PASSWORD);
+            generator.generate();
+        } finally {
+            db.close();
+            factory.close();
+        }
+
+        Files.move(partial, target);
+    }
+}
@@ -0,0 +1,85 @@
+package benchmarks;
+
+import domain.Forecast;
+import domain.Question;
+import domain.User;
+import exceptions.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the write paths of the business logic: placing a bet and publishing the result
+ * of a question, which pays out all its bets.
+ */
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+public class BetBenchmarks {
+
+    // Users and upcoming forecasts the bets are placed with
+    private static final int GAMBLERS = 1000;
+    private static final int UPCOMING_EVENTS = 200;
+
+    /**
+     * Users and forecasts combined so that no bet is placed twice.
+     */
+    @State(Scope.Thread)
+    public static class Bets {
+        List<User> gamblers;
+        List<Forecast> forecasts;
+        int next;
+
+        @Setup(Level.Trial)
+        public void load(BenchmarkDatabase database) throws UserNotFoundException {
+            gamblers = new ArrayList<User>();
+            for (int i = 0; i < GAMBLERS; i++)
+                gamblers.add(database.facade.getUserByUsername(BenchmarkDatabase.username(i * (database.users / GAMBLERS))));
+            forecasts = database.upcomingForecasts(UPCOMING_EVENTS);
+        }
+    }
+
+    /**
+     * Open questions of past events, each of them published once.
+     */
+    @State(Scope.Thread)
+    public static class Results {
+        List<Question> questions;
+        int next;
+
+        @Setup(Level.Trial)
+        public void load(BenchmarkDatabase database) {
+            questions = database.openQuestions(200);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 5, time = 5)
+    @Measurement(iterations = 5, time = 5)
+    public void placeBet(BenchmarkDatabase database, Bets bets, Blackhole blackhole) throws LateBetException,
+            LiquidityLackException, MinBetException, UserNotFoundException {
+        int i = bets.next++;
+        User gambler = bets.gamblers.get(i % bets.gamblers.size());
+        Forecast forecast = bets.forecasts.get(i / bets.gamblers.size() % bets.forecasts.size());
+        // The local facade places the bets of the user of its session
+        database.facade.setCurrentUser(gambler);
+        try {
+            database.facade.placeBet(5.0, forecast);
+        } catch (BetAlreadyExistsException e) {
+            // Some of the combinations were already bet by the seed
+            blackhole.consume(e);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 20)
+    @Measurement(iterations = 100)
+    public void publishResult(BenchmarkDatabase database, Results results) {
+        Question question = results.questions.get(results.next++ % results.questions.size());
+        database.facade.publishResult(question.getQuestionID(), question.getForecasts().get(0).getForecastID());
+    }
+}
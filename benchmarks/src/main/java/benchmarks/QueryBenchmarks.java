@@ -0,0 +1,69 @@
+package benchmarks;
+
+import domain.Event;
+import domain.User;
+import exceptions.InvalidPasswordException;
+import exceptions.UserNotFoundException;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Vector;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the read paths of the business logic: browsing the events, logging in
+ * and the charts of the admin overview.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class QueryBenchmarks {
+
+    /**
+     * Rotates through the days with seeded events and the seeded users.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        int next() {
+            return next++;
+        }
+    }
+
+    @Benchmark
+    public List<Event> getEvents(BenchmarkDatabase database, Cursor cursor) {
+        return database.facade.getEvents(BenchmarkDatabase.eventDate(cursor.next()));
+    }
+
+    @Benchmark
+    public Vector<Date> getEventsMonth(BenchmarkDatabase database, Cursor cursor) {
+        return database.facade.getEventsMonth(BenchmarkDatabase.eventDate(cursor.next()));
+    }
+
+    @Benchmark
+    public User login(BenchmarkDatabase database, Cursor cursor) throws UserNotFoundException, InvalidPasswordException {
+        String username = BenchmarkDatabase.username(Math.floorMod(cursor.next(), database.users));
+        return database.facade.login(username, BenchmarkDatabase.PASSWORD);
+    }
+
+    @Benchmark
+    public Map<LocalDate, Double> moneyBetPerDayLastMonth(BenchmarkDatabase database) {
+        return database.facade.moneyBetPerDayLastMonth();
+    }
+
+    @Benchmark
+    public Map<LocalDate, Double> wonByUsersLastMonth(BenchmarkDatabase database) {
+        return database.facade.wonByUsersLastMonth();
+    }
+
+    @Benchmark
+    public Map<LocalDate, Double> wonByBetAndRuinLastMonth(BenchmarkDatabase database) {
+        return database.facade.wonByBetAndRuinLastMonth();
+    }
+}
@@ -0,0 +1,244 @@
+package benchmarks;
+
+import businessLogic.BlFacadeImplementation;
+import dataAccess.BetSettlementEngine;
+import dataAccess.DataAccess;
+import dataAccess.DataGenerator;
+import domain.*;
+import utils.Dates;
+import utils.Money;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import javax.persistence.Persistence;
+import javax.persistence.TypedQuery;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Checks that a settlement interrupted by a crash is counted once in the daily rollups. A result is
+ * published and the application crashes after a few chunks of its bets are paid. The business logic
+ * is then started again as after the crash, rebuilding the counters and resuming the settlement.
+ * Then the rollup of the day of the event must hold every prize and loss of the question exactly
+ * once, and a second reconciliation must find nothing to fix. Otherwise, the run fails with exit code 1.
+ * <pre>
+ *     java -cp benchmarks.jar benchmarks.SettlementRestartCheck [users=500] [chunk=100] [chunks=3]
+ * </pre>
+ */
+public class SettlementRestartCheck {
+
+    private static final Path FOLDER = Paths.get("target", "settlement-restart");
+    private static final long TIMEOUT_MILLIS = 60_000;
+
+    private final int users;
+    private final int chunkSize;
+    private final int chunksBeforeCrash;
+
+    // Read before the crash
+    private LocalDate day;
+    private long paidOutBefore;
+    private long houseNetBefore;
+    private long amountBetBefore;
+    private long prizes;
+    private long losses;
+
+    public SettlementRestartCheck(int users, int chunkSize, int chunksBeforeCrash) {
+        this.users = users;
+        this.chunkSize = chunkSize;
+        this.chunksBeforeCrash = chunksBeforeCrash;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int users = 500;
+        int chunkSize = 100;
+        int chunks = 3;
+        for (String arg : args) {
+            String[] option = arg.split("=", 2);
+            if (option[0].equals("users")) users = Integer.parseInt(option[1]);
+            if (option[0].equals("chunk")) chunkSize = Integer.parseInt(option[1]);
+            if (option[0].equals("chunks")) chunks = Integer.parseInt(option[1]);
+        }
+        boolean passed = new SettlementRestartCheck(users, chunkSize, chunks).run();
+        DataAccess.shutdown();
+        System.exit(passed ? 0 : 1);
+    }
+
+    /**
+     * Seeds a new database, interrupts a settlement, restarts and checks the rollups.
+     * @return true if the settlement was counted once
+     */
+    public boolean run() throws Exception {
+        Path file = seed();
+        int questionID = crashWhileSettling(file);
+        if (questionID < 0) return false;
+
+        // Read by the configuration when DataAccess is first used
+        System.setProperty("dataBaseFilename", file.toString());
+        System.setProperty("dataBaseOpenMode", "open");
+        DataAccess dataAccess = new DataAccess();
+        // Rebuilds the counters and resumes the interrupted settlement in the background, as on startup
+        new BlFacadeImplementation(dataAccess);
+        dataAccess.close();
+        if (!waitForSettlement(questionID)) {
+            System.out.println("FAILED: the settlement was not resumed");
+            return false;
+        }
+
+        dataAccess = new DataAccess();
+        try {
+            List<DailyRollup> rollups = dataAccess.getDailyRollups(day, day);
+            long paidOut = rollups.isEmpty() ? 0 : rollups.get(0).getPaidOutCents();
+            long houseNet = rollups.isEmpty() ? 0 : rollups.get(0).getHouseNetCents();
+            long amountBet = rollups.isEmpty() ? 0 : rollups.get(0).getAmountBetCents();
+            long expectedPaidOut = Money.add(paidOutBefore, prizes);
+            long expectedHouseNet = Money.add(houseNetBefore, losses);
+            System.out.println("Paid out on " + day + ": " + Money.format(paidOut) + " (expected " + Money.format(expectedPaidOut) + ")");
+            System.out.println("House net on " + day + ": " + Money.format(houseNet) + " (expected " + Money.format(expectedHouseNet) + ")");
+            System.out.println("Amount bet on " + day + ": " + Money.format(amountBet) + " (expected " + Money.format(amountBetBefore) + ")");
+
+            int drifted = dataAccess.reconcileCounters();
+            System.out.println(drifted + " counters, rollups, calendar months or user stats drifted after the restart");
+
+            boolean passed = paidOut == expectedPaidOut && houseNet == expectedHouseNet
+                    && amountBet == amountBetBefore && drifted == 0;
+            System.out.println(passed ? "PASSED: the interrupted settlement was counted once" : "FAILED");
+            return passed;
+        } finally {
+            dataAccess.close();
+        }
+    }
+
+    /**
+     * Publishes the result of the open question and crashes after paying some chunks of its bets,
+     * reading first what the rollup of its day must hold once it is settled.
+     * @return the id of the question, or -1 if the settlement could not be interrupted
+     */
+    private int crashWhileSettling(Path file) {
+        EntityManagerFactory factory = Persistence.createEntityManagerFactory("objectdb:" + file);
+        EntityManager db = factory.createEntityManager();
+        try {
+            Question q = db.createQuery("SELECT q FROM Question q WHERE q.correctForecast IS NULL", Question.class)
+                    .setMaxResults(1).getSingleResult();
+            Forecast correct = q.getForecasts().get(1);
+            day = Dates.convertToLocalDateViaInstant(q.getEvent().getEventDate());
+
+            DailyRollup rollup = db.find(DailyRollup.class, DailyRollup.toDay(day));
+            if (rollup != null) {
+                paidOutBefore = rollup.getPaidOutCents();
+                houseNetBefore = rollup.getHouseNetCents();
+                amountBetBefore = rollup.getAmountBetCents();
+            }
+            TypedQuery<Object[]> bets = db.createQuery("SELECT b.amountCents, b.userForecast.forecastID, " +
+                    "b.userForecast.feeHundredths FROM Bet b WHERE b.questionID = ?1", Object[].class);
+            bets.setParameter(1, q.getQuestionID());
+            List<Object[]> rows = bets.getResultList();
+            for (Object[] row : rows) {
+                long amount = ((Number) row[0]).longValue();
+                long fee = ((Number) row[2]).longValue();
+                if (correct.getForecastID().equals(row[1])) prizes = Money.add(prizes, Money.multiply(amount, fee));
+                else losses = Money.add(losses, amount);
+            }
+            System.out.println(rows.size() + " bets on question " + q.getQuestionID() + ", crashing after "
+                    + chunksBeforeCrash + " chunks of " + chunkSize);
+
+            // The first commit publishes the result and the following ones pay a chunk each
+            try {
+                new BetSettlementEngine(crashingAt(db, chunksBeforeCrash + 2), chunkSize)
+                        .settle(q.getQuestionID(), correct.getForecastID());
+                System.out.println("FAILED: the settlement finished before the crash, use more users");
+                return -1;
+            } catch (IllegalStateException e) {
+                System.out.println(e.getMessage());
+            }
+
+            db.clear();
+            long settled = db.createQuery("SELECT COUNT(b) FROM Bet b WHERE b.questionID = ?1 AND b.settled = true",
+                    Long.class).setParameter(1, q.getQuestionID()).getSingleResult();
+            System.out.println(settled + " bets settled before the crash");
+            return q.getQuestionID();
+        } finally {
+            if (db.getTransaction().isActive()) db.getTransaction().rollback();
+            db.close();
+            factory.close();
+        }
+    }
+
+    /**
+     * Waits until the settlement resumed in the background is done.
+     */
+    private boolean waitForSettlement(int questionID) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            DataAccess dataAccess = new DataAccess();
+            try {
+                for (Event e : dataAccess.getEvents(Dates.convertToDate(day)))
+                    for (Question q : dataAccess.getQuestions(e))
+                        if (q.getQuestionID() == questionID
+                                && Integer.valueOf(Question.SETTLEMENT_DONE).equals(q.getSettlementStatus()))
+                            return true;
+            } finally {
+                dataAccess.close();
+            }
+            Thread.sleep(100);
+        }
+        return false;
+    }
+
+    /**
+     * Returns an entity manager whose given commit fails as if the application had stopped there.
+     */
+    private static EntityManager crashingAt(EntityManager db, int crashingCommit) {
+        AtomicInteger commits = new AtomicInteger();
+        EntityTransaction transaction = db.getTransaction();
+        EntityTransaction crashing = (EntityTransaction) Proxy.newProxyInstance(EntityTransaction.class.getClassLoader(),
+                new Class<?>[] { EntityTransaction.class }, (proxy, method, args) -> {
+                    if (method.getName().equals("commit") && commits.incrementAndGet() == crashingCommit)
+                        throw new IllegalStateException("Crashed at commit " + crashingCommit);
+                    return invoke(transaction, method, args);
+                });
+        return (EntityManager) Proxy.newProxyInstance(EntityManager.class.getClassLoader(),
+                new Class<?>[] { EntityManager.class }, (proxy, method, args) ->
+                        method.getName().equals("getTransaction") ? crashing : invoke(db, method, args));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Writes a new database with a past event whose second question is still open and has a bet
+     * of every user on each of its forecasts.
+     */
+    private Path seed() throws Exception {
+        Files.createDirectories(FOLDER);
+        Path file = FOLDER.resolve("restart.odb").toAbsolutePath();
+        Files.deleteIfExists(file);
+
+        EntityManagerFactory factory = Persistence.createEntityManagerFactory("objectdb:" + file);
+        EntityManager db = factory.createEntityManager();
+        try {
+            DataGenerator generator = new DataGenerator(db, 17);
+            generator.setEvents(1);
+            generator.setUsers(users);
+            // One bet on each of the 4 forecasts of the event
+            generator.setBets(4L * users);
+            generator.generate();
+        } finally {
+            db.close();
+            factory.close();
+        }
+        return file;
+    }
+}
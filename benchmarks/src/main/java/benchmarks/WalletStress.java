@@ -0,0 +1,210 @@
+package benchmarks;
+
+import dataAccess.DataAccess;
+import dataAccess.DataGenerator;
+import domain.*;
+import exceptions.BetAlreadyExistsException;
+import exceptions.UserNotFoundException;
+import utils.Money;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stress test of the concurrent updates of a single wallet. Many bettors share one account and,
+ * at the same time, place bets, remove some of them and move money between the card and the
+ * wallet, each one through its own DataAccess as the facade does. At the end, the wallet and the
+ * card must hold exactly the money that the successful operations add up to: a lost update or an
+ * overdraft makes the run fail with exit code 1.
+ * <pre>
+ *     java -cp benchmarks.jar benchmarks.WalletStress [bettors=64] [operations=40]
+ * </pre>
+ */
+public class WalletStress {
+
+    private static final Path FOLDER = Paths.get("target", "wallet-stress");
+    private static final double INITIAL_MONEY = 1_000_000;
+    private static final double STAKE = 2;
+    private static final double TRANSFER = 5;
+
+    // Cents, as the balances, so they are compared exactly
+    private final AtomicLong walletDelta = new AtomicLong();
+    private final AtomicLong cardDelta = new AtomicLong();
+    private final AtomicLong bets = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    private final int bettors;
+    private final int operations;
+    private User account;
+    private List<Forecast> forecasts;
+
+    public WalletStress(int bettors, int operations) {
+        this.bettors = bettors;
+        this.operations = operations;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int bettors = 64;
+        int operations = 40;
+        for (String arg : args) {
+            String[] option = arg.split("=", 2);
+            if (option[0].equals("bettors")) bettors = Integer.parseInt(option[1]);
+            if (option[0].equals("operations")) operations = Integer.parseInt(option[1]);
+        }
+        boolean passed = new WalletStress(bettors, operations).run();
+        DataAccess.shutdown();
+        System.exit(passed ? 0 : 1);
+    }
+
+    /**
+     * Seeds a new database, runs the bettors and checks the balances.
+     * @return true if no update was lost
+     */
+    public boolean run() throws Exception {
+        Path file = seed();
+        // Read by the configuration when DataAccess is first used
+        System.setProperty("dataBaseFilename", file.toString());
+        System.setProperty("dataBaseOpenMode", "open");
+
+        DataAccess dataAccess = new DataAccess();
+        try {
+            account = dataAccess.getUser(DataGenerator.username(0));
+            forecasts = new ArrayList<Forecast>();
+            for (Event e : dataAccess.getUpcomingEvents(bettors * operations))
+                for (Question q : dataAccess.getQuestions(e))
+                    forecasts.addAll(q.getForecasts());
+        } finally {
+            dataAccess.close();
+        }
+        System.out.println(bettors + " bettors, " + operations + " operations each, " + forecasts.size() + " forecasts");
+
+        ExecutorService pool = Executors.newFixedThreadPool(bettors);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> done = new ArrayList<Future<?>>();
+        for (int b = 0; b < bettors; b++) {
+            int bettor = b;
+            done.add(pool.submit(() -> {
+                start.await();
+                bet(bettor);
+                return null;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> f : done) f.get();
+        pool.shutdown();
+        long millis = (System.nanoTime() - begin) / 1_000_000;
+
+        return check(millis);
+    }
+
+    /**
+     * Operations of one bettor: every forecast assigned to it gets a bet, every third bet is
+     * removed again, and the money goes back and forth between the card and the wallet.
+     */
+    private void bet(int bettor) {
+        DataAccess dataAccess = new DataAccess();
+        try {
+            for (int i = 0; i < operations; i++) {
+                Forecast f = forecasts.get((bettor * operations + i) % forecasts.size());
+                try {
+                    switch (i % 4) {
+                        case 0:
+                            dataAccess.depositMoney(cents(TRANSFER), account);
+                            walletDelta.addAndGet(cents(TRANSFER));
+                            cardDelta.addAndGet(-cents(TRANSFER));
+                            break;
+                        case 1:
+                            dataAccess.withdrawMoney(cents(TRANSFER), cents(TRANSFER), account);
+                            walletDelta.addAndGet(-cents(TRANSFER));
+                            cardDelta.addAndGet(cents(TRANSFER));
+                            break;
+                        default:
+                            dataAccess.setBet(STAKE, f, account);
+                            walletDelta.addAndGet(-cents(STAKE));
+                            bets.incrementAndGet();
+                            if (i % 3 == 0) {
+                                dataAccess.removeBet(dataAccess.getBet(account, f).getBetID());
+                                walletDelta.addAndGet(cents(STAKE));
+                                bets.decrementAndGet();
+                            }
+                    }
+                } catch (BetAlreadyExistsException e) {
+                    // Another bettor got the same forecast first
+                } catch (Exception e) {
+                    failures.incrementAndGet();
+                    e.printStackTrace();
+                }
+            }
+        } finally {
+            dataAccess.close();
+        }
+    }
+
+    private boolean check(long millis) {
+        DataAccess dataAccess = new DataAccess();
+        try {
+            User u = dataAccess.getUser(account.getUserID());
+            long expectedWallet = account.getWalletCents() + walletDelta.get();
+            long expectedCard = account.getCard().getMoneyCents() + cardDelta.get();
+            long activeBets = dataAccess.getActiveBets(u).size();
+
+            System.out.println("Finished in " + millis + " ms, " + failures.get() + " operations failed");
+            System.out.println("Wallet: " + Money.format(u.getWalletCents()) + " (expected " + Money.format(expectedWallet) + ")");
+            System.out.println("Card: " + Money.format(u.getCard().getMoneyCents()) + " (expected " + Money.format(expectedCard) + ")");
+            System.out.println("Bets: " + activeBets + " (expected " + bets.get() + ")");
+
+            boolean passed = u.getWalletCents() == expectedWallet
+                    && u.getCard().getMoneyCents() == expectedCard
+                    && activeBets == bets.get() && failures.get() == 0;
+            System.out.println(passed ? "PASSED: no update was lost" : "FAILED");
+            return passed;
+        } catch (UserNotFoundException e) {
+            e.printStackTrace();
+            return false;
+        } finally {
+            dataAccess.close();
+        }
+    }
+
+    /**
+     * Writes a new database with one user holding enough money for every operation.
+     */
+    private Path seed() throws Exception {
+        Files.createDirectories(FOLDER);
+        Path file = FOLDER.resolve("stress.odb").toAbsolutePath();
+        Files.deleteIfExists(file);
+
+        EntityManagerFactory factory = Persistence.createEntityManagerFactory("objectdb:" + file);
+        EntityManager db = factory.createEntityManager();
+        try {
+            DataGenerator generator = new DataGenerator(db, 17);
+            generator.setUsers(1);
+            generator.setBets(0);
+            generator.setEvents(Math.max(100, bettors * operations));
+            generator.generate();
+
+            db.getTransaction().begin();
+            User user = db.createQuery("SELECT u FROM User u", User.class).getSingleResult();
+            user.setWallet(INITIAL_MONEY);
+            user.getCard().setMoney(INITIAL_MONEY);
+            db.getTransaction().commit();
+        } finally {
+            db.close();
+            factory.close();
+        }
+        return file;
+    }
+
+    private static long cents(double amount) {
+        return Money.toCents(amount);
+    }
+}
@@ -37,6 +37,16 @@ public interface BlFacade  {
 	 */
 	@WebMethod public List<Event> getEvents();
 
+	/**
+	 * It retrieves one page of the events, sorted by date.
+	 * @param pageSize maximum number of events in the page
+	 * @param token the continuation token of the previous page, or null to get the first page
+	 * @param search text that the description or the country of the events must contain, or their id,
+	 *               ignoring case; null or blank to get every event
+	 * @return the page of events
+	 */
+	@WebMethod public Page<Event> getEventsPage(int pageSize, String token, String search);
+
 	/**
 	 * It retrieves all events that take place on a given date 
 	 * 
@@ -146,7 +156,8 @@ public interface BlFacade  {
 	@WebMethod public long getTotalNumberOfUsers();
 
 	/**
-	 * It returns the user if successfully logged
+	 * It returns the user if successfully logged. Remote clients get the token of their new
+	 * session in the {@link BlFacadeImplementation#SESSION_HEADER} response header.
 	 * @param username an instance of the username 
 	 * @param password an instance of the password 
 	 * @return it returns true if the user has logged in successfully 
@@ -169,6 +180,23 @@ public interface BlFacade  {
 	 */
 	@WebMethod public List<User> getUsers();
 
+	/**
+	 * Returns a summary of every user, with the number of active bets and the money at stake
+	 * of each one, without loading their bets or transactions.
+	 * @return the summaries of the users
+	 */
+	@WebMethod public List<UserSummary> getUserSummaries();
+
+	/**
+	 * Returns one page of the user summaries, sorted by user id.
+	 * @param pageSize maximum number of users in the page
+	 * @param token the continuation token of the previous page, or null to get the first page
+	 * @param search text that the username, the name, the last name or the email of the users must
+	 *               contain, ignoring case; null or blank to get every user
+	 * @return the page of user summaries
+	 */
+	@WebMethod public Page<UserSummary> getUserSummariesPage(int pageSize, String token, String search);
+
 	/**
 	 * It returns the current user 
 	 * @return currentUser an instance of the current user 
@@ -176,7 +204,8 @@ public interface BlFacade  {
 	@WebMethod public User getCurrentUser();
 	
 	/**
-	 * It sets the current user of the application
+	 * It sets the current user of the application. Remote clients can only set it to null,
+	 * to log out, and log in with {@link #login(String, String)}.
 	 * @param currentUser an instance of the current user 
 	 */
 	@WebMethod public void setCurrentUser(User currentUser);
@@ -210,7 +239,8 @@ public interface BlFacade  {
 	@WebMethod public void initializeBD();
 	
 	/**
-	 * It closes the database
+	 * It ends the session of the caller. The database is opened and closed
+	 * by each request, so there is nothing else to release.
 	 */
 	@WebMethod public void close();
 
@@ -243,6 +273,50 @@ public interface BlFacade  {
 	 */
 	@WebMethod public List<Bet> getActiveBetsUser();
 
+	/**
+	 * Retrieves one page of the active bets placed by the current user.
+	 * @param pageSize maximum number of bets in the page
+	 * @param token the continuation token of the previous page, or null to get the first page
+	 * @return the page of active bets
+	 */
+	@WebMethod public Page<Bet> getActiveBetsUserPage(int pageSize, String token);
+
+	/**
+	 * Retrieves one page of the transactions of the card of the current user, newest first.
+	 * @param pageSize maximum number of transactions in the page
+	 * @param token the continuation token of the previous page, or null to get the first page
+	 * @return the page of transactions
+	 */
+	@WebMethod public Page<Transaction> getTransactionsPage(int pageSize, String token);
+
+	/**
+	 * Retrieves the state of the background sync of the matches with football-data.org:
+	 * when it last ran and succeeded, how far behind the data is and whether it is healthy.
+	 * @return the state of the sync
+	 */
+	@WebMethod public SyncStatus getSyncStatus();
+
+	/**
+	 * Asks for a sync of the matches with football-data.org to be run in the background.
+	 * The request is rejected if a sync is already waiting for the running one.
+	 * @return true if the sync was queued, false if it was rejected
+	 */
+	@WebMethod public boolean requestSync();
+
+	/**
+	 * Retrieves the hit, miss and eviction statistics of the cache of the events, days with events
+	 * and questions browsed by the clients.
+	 * @return the statistics of the cache
+	 */
+	@WebMethod public CacheStats getCatalogueCacheStats();
+
+	/**
+	 * Retrieves the removals of events, questions and forecasts whose bets are still being
+	 * refunded, with the number of bets and money already refunded.
+	 * @return the pending removals
+	 */
+	@WebMethod public List<PendingRemoval> getPendingRemovals();
+
 	/**
 	 * Retrieves the total number of active bets (this is,
 	 * the ones that have no correct forecast defined yet)
@@ -261,7 +335,7 @@ public interface BlFacade  {
 	 * the ones that have already passed
 	 * @return the total number of bets
 	 */
-	@WebMethod public int getTotalNumberOfBetsUser();
+	@WebMethod public int getTotalNumberOfBetsUser() throws UserNotFoundException;
 
 	/**
 	 * Bans the user with the given id, by changing its user mode to 3 (banned user).
@@ -295,19 +369,43 @@ public interface BlFacade  {
 	 * Retrieves the number of bets placed by the user that has no correct forecast defined yet.
 	 * The number of bets active bets
 	 */
-	@WebMethod public int getNumberOfActiveBets();
+	@WebMethod public int getNumberOfActiveBets() throws UserNotFoundException;
 
 	/**
 	 * Retrieves the number of won bets.
 	 * @return the number of won bets
 	 */
-	@WebMethod public int getNumberOfWonBets();
+	@WebMethod public int getNumberOfWonBets() throws UserNotFoundException;
 
 	/**
 	 * Retrieves the total income earned by the user by placing bets.
 	 * @return income obtained betting
 	 */
-	@WebMethod public double getEarnedIncome();
+	@WebMethod public double getEarnedIncome() throws UserNotFoundException;
+
+	/**
+	 * Retrieves the betting statistics of the user: number of bets, active, won and lost ones,
+	 * money staked and won, and return on investment.
+	 * @return the statistics of the user
+	 * @throws UserNotFoundException if nobody is logged in the session
+	 */
+	@WebMethod public UserStats getUserStats() throws UserNotFoundException;
+
+	/**
+	 * Retrieves all the figures of the administrator overview in a single request: the number of
+	 * users, upcoming events and active bets, the money at stake and the money bet, won by users
+	 * and won by BetAndRuin in each day of the last month. The figures may be a few seconds old.
+	 * @return the snapshot of the figures
+	 */
+	@WebMethod public AdminDashboard getAdminDashboard();
+
+	/**
+	 * Retrieves all the figures of the overview of the user in a single request: the betting
+	 * statistics, the next events and the wallet after each active day of the last month.
+	 * @return the snapshot of the figures
+	 * @throws UserNotFoundException if nobody is logged in the session
+	 */
+	@WebMethod public UserDashboard getUserDashboard() throws UserNotFoundException;
 
 	/**
 	 * It removes an event
@@ -330,18 +428,28 @@ public interface BlFacade  {
 	@WebMethod public List<Transaction> showMovements(User user);
 
 	/**
-	 * Persists a new bet for the given gambler, in the selected forecast.
+	 * Persists a new bet for the current user, in the selected forecast.
 	 * @param betAmount Amount of money bet by the gambler.
 	 * @param forecast The forecast linked with the bet.
-	 * @param gambler The user who places the bet.
-	 * @return true if the persistence has been successful.
 	 * @throws BetAlreadyExistsException Thrown if the gambler already had placed a bet in the same forecast.
 	 * @throws LateBetException Thrown if the gambler tries to place a bet an hour before on the event associated with the forecast.
 	 * @throws LiquidityLackException Thrown when gambler bets not having enough liquidity access to account for it.
 	 * @throws MinBetException Exception for when user inserts less fee than required.
+	 * @throws UserNotFoundException if nobody is logged in the session, or the user no longer exists
+	 */
+	@WebMethod
+	public void placeBet(Double betAmount, Forecast forecast) throws BetAlreadyExistsException, LateBetException, LiquidityLackException, MinBetException, UserNotFoundException;
+
+	/**
+	 * Places the bets of a bet slip for the current user in a single request. Either all of them
+	 * are placed, in a single transaction, or none: a bet that does not pass the checks of placeBet
+	 * gets the reason in its result, and the valid ones are returned as not placed.
+	 * @param slip the bets, each one with its forecast and amount
+	 * @return the outcome of each bet, in the order of the slip
+	 * @throws UserNotFoundException if the current user no longer exists
 	 */
 	@WebMethod
-	public void placeBet(Double betAmount, Forecast forecast, User gambler) throws BetAlreadyExistsException, LateBetException, LiquidityLackException, MinBetException, UserNotFoundException;
+	public List<BetResult> placeBets(List<BetRequest> slip) throws UserNotFoundException;
 
 	/**
 	 * Removes the bet with the given id
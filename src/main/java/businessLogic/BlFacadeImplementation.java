@@ -7,10 +7,13 @@ import dataAccess.DataAccess;
 import domain.*;
 import exceptions.*;
 import org.apache.commons.io.FileUtils;
-import utils.Dates;
+import utils.Money;
 
+import javax.annotation.Resource;
 import javax.jws.WebMethod;
 import javax.jws.WebService;
+import javax.xml.ws.WebServiceContext;
+import javax.xml.ws.handler.MessageContext;
 import java.io.*;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
@@ -22,8 +25,10 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 /**
  * This class implements the business logic layer as a web service 
@@ -33,14 +38,44 @@ import java.util.stream.Collectors;
 @WebService(endpointInterface = "businessLogic.BlFacade")
 public class BlFacadeImplementation implements BlFacade {
 
-	DataAccess dbManager;
+	/**
+	 * HTTP header in which the server returns the token of a new session when a user logs in,
+	 * and in which remote clients send it back in their following requests.
+	 */
+	public static final String SESSION_HEADER = "X-Session-Token";
+	// Number of upcoming events shown in the overview of a user
+	private static final int DASHBOARD_UPCOMING_EVENTS = 3;
+
 	ConfigXML config = ConfigXML.getInstance();
 	// Regular Expression for checking email format:
 	private String emailRegEx = new String("^[\\w|\\.]+@\\w+\\.[a-z]{2,3}$");
 	// Minimum length for password:
 	private final int MINIMUM_PSW_LENGHT = 6;
-	// Current user in the application 
-	private User currentUser; 
+	// Sessions of the clients using the application (each one with its current user)
+	private final SessionRegistry sessions = new SessionRegistry(config.getSessionIdleTimeout() * 60_000L);
+	// Session used when the business logic runs in the same process as the client
+	private final UserSession localSession = new UserSession(null);
+	// Background housekeeping tasks, such as evicting idle sessions
+	private final ScheduledExecutorService maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread t = new Thread(r, "business-logic-maintenance");
+		t.setDaemon(true);
+		return t;
+	});
+	// Events, days and questions browsed by the clients, invalidated by the writes to the catalogue
+	private final EventCatalogueCache catalogue = new EventCatalogueCache(config.getCatalogueCacheTtl() * 1000L,
+			config.getCatalogueCacheMaxWeight());
+	// Background sync of the matches with football-data.org
+	private final SyncService sync = new SyncService(this::syncMatches, config.getSyncInterval() * 60_000L,
+			config.getSyncMaxBackoff() * 60_000L, maintenance);
+	// Figures of the admin overview and of the overview of each user, shared by the requests of a few seconds
+	private final SnapshotCache<String, AdminDashboard> adminDashboard =
+			new SnapshotCache<String, AdminDashboard>(config.getDashboardCacheTtl() * 1000L);
+	private final SnapshotCache<Integer, UserDashboard> userDashboards =
+			new SnapshotCache<Integer, UserDashboard>(config.getDashboardCacheTtl() * 1000L);
+
+	// Injected by the JAX-WS runtime when the facade is published as a web service
+	@Resource
+	private WebServiceContext wsContext;
 
 	/**
 	 * Constructor that instantiates the BIFacadeImplementation class
@@ -48,14 +83,15 @@ public class BlFacadeImplementation implements BlFacade {
 	public BlFacadeImplementation()  {		
 		// system.out.println("Creating BlFacadeImplementation instance");
 		boolean initialize = config.getDataBaseOpenMode().equals("initialize");
-		dbManager = new DataAccess(initialize);
-		currentUser = null;
+		new DataAccess(initialize).close();
 		if (initialize) initializeBD();
+		startMaintenance();
 	}
 	
 	/**
 	 * Constructor that instantiates the BIFacadeImplementation class
-	 * @param dam an instance of data access 
+	 * @param dam an instance of data access, used to initialize the database if required.
+	 * Requests are then served with their own DataAccess instances.
 	 */
 	public BlFacadeImplementation(DataAccess dam)  {
 		// system.out.println("Creating BlFacadeImplementation instance with DataAccess parameter");
@@ -64,76 +100,314 @@ public class BlFacadeImplementation implements BlFacade {
 			dam.initializeDB();
 			dam.close();
 		}
-		currentUser = null;
-		dbManager = dam;		
+		startMaintenance();
+	}
+
+	/**
+	 * Migrates the data stored by previous versions and rebuilds the counters before the facade
+	 * starts serving requests, then schedules the periodic housekeeping of the business logic,
+	 * finishing in the background any settlement or removal left unfinished by a previous run.
+	 */
+	private void startMaintenance() {
+		// Rebuilding the counters overwrites them, so it cannot run while bets are being placed. It
+		// only counts the results of the bets already settled, so the settlements resumed below
+		// add the rest once
+		migrate();
+		reconcileCounters();
+		maintenance.execute(this::resumePendingSettlements);
+		maintenance.execute(this::resumePendingRemovals);
+		maintenance.scheduleWithFixedDelay(sessions::evictIdle, 1, 1, TimeUnit.MINUTES);
+		maintenance.scheduleWithFixedDelay(userDashboards::evictExpired, 1, 1, TimeUnit.MINUTES);
+		sync.start();
+	}
+
+	/**
+	 * Brings the competitions and matches up to date with football-data.org.
+	 * @return the number of events created or updated
+	 */
+	private int syncMatches() {
+		DataAccess dbManager = openDataAccess();
+		try {
+			int changes = dbManager.updateDB();
+			if (changes > 0) catalogue.clear();
+			return changes;
+		} finally {
+			dbManager.close();
+		}
+	}
+
+	/**
+	 * Rebuilds the aggregate counters and daily rollups shown in the admin overview, the event calendar and the
+	 * statistics of the users, reporting any drift.
+	 */
+	private void reconcileCounters() {
+		DataAccess dbManager = openDataAccess();
+		try {
+			int drifted = dbManager.reconcileCounters();
+			if (drifted > 0) System.out.println(drifted + " aggregate counters, daily rollups, calendar months and user stats were out of date and have been rebuilt");
+		} catch (RuntimeException e) {
+			e.printStackTrace();
+		} finally {
+			dbManager.close();
+		}
+	}
+
+	/**
+	 * Moves the amounts of money stored as doubles to their fields in cents and fills the
+	 * question and event copied into the bets. It runs before the reconciliation, which
+	 * rebuilds the counters and rollups from the migrated data.
+	 */
+	private void migrate() {
+		DataAccess dbManager = openDataAccess();
+		try {
+			dbManager.migrateMoney();
+			dbManager.migrateBetColumns();
+		} catch (RuntimeException e) {
+			e.printStackTrace();
+		} finally {
+			dbManager.close();
+		}
+	}
+
+	/**
+	 * Pays out the bets of the questions whose settlement was interrupted.
+	 */
+	private void resumePendingSettlements() {
+		DataAccess dbManager = openDataAccess();
+		try {
+			dbManager.resumePendingSettlements();
+		} catch (RuntimeException e) {
+			e.printStackTrace();
+		} finally {
+			dbManager.close();
+		}
+	}
+
+	/**
+	 * Refunds the bets and removes the events, questions and forecasts whose removal was interrupted.
+	 */
+	private void resumePendingRemovals() {
+		DataAccess dbManager = openDataAccess();
+		try {
+			if (dbManager.resumePendingRemovals() > 0) catalogue.clear();
+		} catch (RuntimeException e) {
+			e.printStackTrace();
+		} finally {
+			dbManager.close();
+		}
+	}
+
+	/**
+	 * Opens a new DataAccess for the current request. Each request uses its own
+	 * persistence context, so requests from different clients can run in parallel.
+	 * The returned instance must be closed when the request finishes.
+	 * @return an open DataAccess
+	 */
+	private DataAccess openDataAccess() {
+		return new DataAccess(false);
+	}
+
+	/**
+	 * Limits the page size requested by a client to the range allowed by the configuration.
+	 * @param requested the page size requested
+	 * @return the page size to use
+	 */
+	private int pageSize(int requested) {
+		return Math.max(1, Math.min(requested, config.getMaxPageSize()));
+	}
+
+	/**
+	 * Returns the session of the client that made the current request.
+	 * Remote clients are identified by the token sent in the {@link #SESSION_HEADER} header. A
+	 * client without a valid token gets an anonymous session that is not kept, until it logs in.
+	 * @return the session of the caller
+	 */
+	private UserSession currentSession() {
+		if (requestContext() == null) return localSession;
+		UserSession session = sessions.get(sessionToken());
+		return session != null ? session : new UserSession(null);
+	}
+
+	/**
+	 * Logs a user in a new session, whose token is returned to the remote client in the
+	 * {@link #SESSION_HEADER} response header. The previous session of the client is closed.
+	 * @param user the user
+	 */
+	@SuppressWarnings("unchecked")
+	private void startSession(User user) {
+		MessageContext context = requestContext();
+		if (context == null) {
+			localSession.setUser(user);
+			return;
+		}
+
+		sessions.remove(sessionToken());
+		UserSession session = sessions.open();
+		session.setUser(user);
+		Map<String, List<String>> headers = (Map<String, List<String>>) context.get(MessageContext.HTTP_RESPONSE_HEADERS);
+		if (headers == null) {
+			headers = new HashMap<String, List<String>>();
+			context.put(MessageContext.HTTP_RESPONSE_HEADERS, headers);
+		}
+		headers.put(SESSION_HEADER, Collections.singletonList(session.getToken()));
+	}
+
+	/**
+	 * Returns the user logged in the session of the caller.
+	 * @return the current user, or null if nobody is logged in
+	 */
+	private User currentUser() {
+		return currentSession().getUser();
+	}
+
+	/**
+	 * Returns the user logged in the session of the caller, for the requests that need one.
+	 * @return the current user
+	 * @throws UserNotFoundException if nobody is logged in the session, or the session has expired
+	 */
+	private User loggedUser() throws UserNotFoundException {
+		User user = currentUser();
+		if (user == null) throw new UserNotFoundException("No user is logged in this session");
+		return user;
+	}
+
+	/**
+	 * Extracts the session token of the current request.
+	 * @return the session token, or null if the request has none or there is no web service request
+	 */
+	@SuppressWarnings("unchecked")
+	private String sessionToken() {
+		MessageContext context = requestContext();
+		if (context == null) return null;
+		Map<String, List<String>> headers = (Map<String, List<String>>) context.get(MessageContext.HTTP_REQUEST_HEADERS);
+		if (headers != null)
+			for (Map.Entry<String, List<String>> h : headers.entrySet())
+				if (SESSION_HEADER.equalsIgnoreCase(h.getKey()) && h.getValue() != null && !h.getValue().isEmpty())
+					return h.getValue().get(0);
+		return null;
+	}
+
+	/**
+	 * Returns the context of the web service request being served.
+	 * @return the context, or null if the facade is not called through the web service
+	 */
+	private MessageContext requestContext() {
+		if (wsContext == null) return null;
+		try {
+			return wsContext.getMessageContext();
+		} catch (IllegalStateException e) {
+			// Not invoked as part of a web service request
+			return null;
+		}
 	}
 	
 	@WebMethod
 	public Event createEvent(String name, Date date, String country, Match match) throws EventAlreadyExistException {
-		dbManager.open(false);
-		Event event = dbManager.createEvent(name, date, country, match);
-		dbManager.close();
-		return event;
+		DataAccess dbManager = openDataAccess();
+		try {
+			Event event = dbManager.createEvent(name, date, country, match);
+			catalogue.invalidate(event);
+			return event;
+		} finally {
+			dbManager.close();
+		}
 	}
 
 	@WebMethod
 	public List<Event> getEvents() {
-		dbManager.open(false);
-		List<Event> events = dbManager.getEvents();
-		dbManager.close();
+		DataAccess dbManager = openDataAccess();
+		try {
+			return dbManager.getEvents();
+		} finally {
+			dbManager.close();
+		}
+	}
 
-		return events;
+	@WebMethod
+	public Page<Event> getEventsPage(int pageSize, String token, String search) {
+		DataAccess dbManager = openDataAccess();
+		try {
+			return dbManager.getEvents(pageSize(pageSize), token, search);
+		} finally {
+			dbManager.close();
+		}
 	}
 	
 	@WebMethod	
 	public List<Event> getEvents(Date date)  {
-		dbManager.open(false);
-		List<Event> events = dbManager.getEvents(date);
-		dbManager.close();
-		return events;
+		return catalogue.getEvents(date, () -> {
+			DataAccess dbManager = openDataAccess();
+			try {
+				return dbManager.getEvents(date);
+			} finally {
+				dbManager.close();
+			}
+		});
 	}
 
 	@WebMethod
 	public List<Question> getQuestions(Event event)  {
-		dbManager.open(false);
-		List<Question> questions = dbManager.getQuestions(event);
-		dbManager.close();
-		return questions;
+		return catalogue.getQuestions(event, () -> {
+			DataAccess dbManager = openDataAccess();
+			try {
+				return dbManager.getQuestions(event);
+			} finally {
+				dbManager.close();
+			}
+		});
 	}
 
 	@WebMethod
 	@Override
 	public void removeQuestion(int questionID) {
-		dbManager.open(false);
-		dbManager.removeQuestion(questionID);
-		dbManager.close();
+		DataAccess dbManager = openDataAccess();
+		try {
+			Event event = dbManager.findEventOf(Question.class, questionID);
+			dbManager.removeQuestion(questionID);
+			catalogue.invalidate(event);
+		} finally {
+			dbManager.close();
+		}
 
 		refreshUser();
 	}
 
 	@WebMethod
 	public void publishResult(int qID, int fID) {
-		dbManager.open(false);
-		dbManager.publishResult(qID, fID);
-		dbManager.close();
+		DataAccess dbManager = openDataAccess();
+		try {
+			Event event = dbManager.findEventOf(Question.class, qID);
+			dbManager.publishResult(qID, fID);
+			catalogue.invalidate(event);
+		} finally {
+			dbManager.close();
+		}
 
 		refreshUser();
 	}
 
 	@WebMethod
 	public Vector<Date> getEventsMonth(Date date) {
-		dbManager.open(false);
-		Vector<Date>  dates = dbManager.getEventsMonth(date);
-		dbManager.close();
-		return dates;
+		return catalogue.getEventsMonth(date, () -> {
+			DataAccess dbManager = openDataAccess();
+			try {
+				return dbManager.getEventsMonth(date);
+			} finally {
+				dbManager.close();
+			}
+		});
 	}
 
 	@WebMethod
 	public List<Event> getEventsCountry(String country) {
-		dbManager.open(false);
-		List<Event> events = dbManager.getEventsCountry(country);
-		dbManager.close();
-		return events;
+		return catalogue.getEventsCountry(country, () -> {
+			DataAccess dbManager = openDataAccess();
+			try {
+				return dbManager.getEventsCountry(country);
+			} finally {
+				dbManager.close();
+			}
+		});
 	}
 
 	@WebMethod
@@ -141,27 +415,39 @@ public class BlFacadeImplementation implements BlFacade {
 		if (new Date().compareTo(event.getEventDate()) > 0)
 			throw new EventFinished(ResourceBundle.getBundle("Etiquetas").getString("ErrorEventHasFinished"));
 
-		dbManager.open(false);
-		Question q = dbManager.createQuestion(event, question, betMinimum);
-		dbManager.close();
-
-		return q;
+		DataAccess dbManager = openDataAccess();
+		try {
+			Question q = dbManager.createQuestion(event, question, betMinimum);
+			catalogue.invalidate(event);
+			return q;
+		} finally {
+			dbManager.close();
+		}
 	}
 
 	@WebMethod
 	public Forecast createForecast(Question question, String result, double fee) throws ForecastAlreadyExistException {
-		dbManager.open(false);
-		Forecast f = dbManager.addForecast(question, result, fee);
-		dbManager.close();
-
-		return f;
+		DataAccess dbManager = openDataAccess();
+		try {
+			Event event = dbManager.findEventOf(Question.class, question.getQuestionID());
+			Forecast forecast = dbManager.addForecast(question, result, fee);
+			catalogue.invalidate(event);
+			return forecast;
+		} finally {
+			dbManager.close();
+		}
 	}
 
 	@WebMethod
 	public void removeForecast(int forecastID) {
-		dbManager.open(false);
-		dbManager.removeForecast(forecastID);
-		dbManager.close();
+		DataAccess dbManager = openDataAccess();
+		try {
+			Event event = dbManager.findEventOf(Forecast.class, forecastID);
+			dbManager.removeForecast(forecastID);
+			catalogue.invalidate(event);
+		} finally {
+			dbManager.close();
+		}
 
 		refreshUser();
 	}
@@ -176,25 +462,23 @@ public class BlFacadeImplementation implements BlFacade {
 		if(password.length() < MINIMUM_PSW_LENGHT) throw new PswTooShortException();
 		//Check whether password and confirmation password match:
 		if(!password.equals(confirmPassword)) throw new IncorrectPSWConfirmException();
-		//Check whether the username is already in use:
-		dbManager.open(false);
-		if(dbManager.isUserInDB(username)) {
-			dbManager.close();
-			throw new UsernameAlreadyInDBException();		
-		}
 
-		//Check whether user is underage:
-		SimpleDateFormat myformat = new SimpleDateFormat("d'-'M'-'yy", Locale.ENGLISH);
+		DataAccess dbManager = openDataAccess();
 		try {
+			//Check whether the username is already in use:
+			if(dbManager.isUserInDB(username)) throw new UsernameAlreadyInDBException();
+
+			//Check whether user is underage:
+			SimpleDateFormat myformat = new SimpleDateFormat("d'-'M'-'yy", Locale.ENGLISH);
 			Date birthdate = myformat.parse(day + "-" + month + "-" + year);
 			if(UtilDate.isUnderage(birthdate)) throw new UnderageRegistrationException();
-			
+
 			// Generate a random salt
 			byte[] salt = generateSalt();
 			byte[] hashedPassword = hashPassword(password, salt);
 
-			// Set the registered user as the current user
-			currentUser = dbManager.register(username, firstName, lastName, address, email, hashedPassword, birthdate, salt, cardNumber, expirationDate, securityCode);
+			// Log the registered user in a new session
+			startSession(dbManager.register(username, firstName, lastName, address, email, hashedPassword, birthdate, salt, cardNumber, expirationDate, securityCode));
 
 		} catch (ParseException e) {
 			throw new InvalidDateException();
@@ -209,53 +493,84 @@ public class BlFacadeImplementation implements BlFacade {
 		User potentialUser = getUserByUsername(username);
 		byte[] hashedPassword = hashPassword(password, potentialUser.getSalt());
 		if(!Arrays.equals(hashedPassword, potentialUser.getPassword())) throw new InvalidPasswordException();
-		currentUser = potentialUser;
+		startSession(potentialUser);
 		return potentialUser;
 	}
 
 	@WebMethod
 	public long getTotalNumberOfUsers() {
-		dbManager.open(false);
-		long n = dbManager.getTotalNumberOfUsers();
-		dbManager.close();
-
-		return n;
+		DataAccess dbManager = openDataAccess();
+		try {
+			return dbManager.getTotalNumberOfUsers();
+		} finally {
+			dbManager.close();
+		}
 	}
 	
 	@WebMethod
 	public User getUserByUsername(String username) throws UserNotFoundException
 	{
-		dbManager.open(false);
-		User currentUser = dbManager.getUser(username);
-		dbManager.close();
-		return currentUser;
+		DataAccess dbManager = openDataAccess();
+		try {
+			return dbManager.getUser(username);
+		} finally {
+			dbManager.close();
+		}
 	}
 
 	@WebMethod
 	public List<User> getUsers() {
-		dbManager.open(false);
-		List<User> users = dbManager.getUsers();
-		dbManager.close();
-		return users;
+		DataAccess dbManager = openDataAccess();
+		try {
+			return dbManager.getUsers();
+		} finally {
+			dbManager.close();
+		}
+	}
+
+	@WebMethod
+	public List<UserSummary> getUserSummaries() {
+		DataAccess dbManager = openDataAccess();
+		try {
+			return dbManager.getUserSummaries();
+		} finally {
+			dbManager.close();
+		}
+	}
+
+	@WebMethod
+	public Page<UserSummary> getUserSummariesPage(int pageSize, String token, String search) {
+		DataAccess dbManager = openDataAccess();
+		try {
+			return dbManager.getUserSummaries(pageSize(pageSize), token, search);
+		} finally {
+			dbManager.close();
+		}
 	}
 
 	@WebMethod
 	public void banUser(Integer userID, String banReason) {
-		dbManager.open(false);
-		dbManager.banUser(userID, banReason);
-		dbManager.close();
+		DataAccess dbManager = openDataAccess();
+		try {
+			dbManager.banUser(userID, banReason);
+		} finally {
+			dbManager.close();
+		}
 
 		refreshUser();
 	}
 
 	@WebMethod
 	public User getCurrentUser() {
-		return currentUser;
+		return currentUser();
 	}
 
 	@WebMethod
 	public void setCurrentUser(User currentUser) {
-		this.currentUser = currentUser;
+		// Remote clients log in with their password, so they can only log out with it
+		if (currentUser != null && requestContext() != null)
+			throw new IllegalArgumentException("Remote clients must log in with login");
+		currentSession().setUser(currentUser);
 	}
 
 	@WebMethod
@@ -264,33 +579,37 @@ public class BlFacadeImplementation implements BlFacade {
 		if(!email.isEmpty() && !Pattern.compile(emailRegEx).matcher(email).matches())
 			throw new NoMatchingPatternException("email");
 
-		dbManager.open(false);
-
-		// Check if username exists
-		if (!username.isEmpty())
-			if(dbManager.isUserInDB(username)) {
-				dbManager.close();
+		DataAccess dbManager = openDataAccess();
+		try {
+			// Check if username exists
+			if (!username.isEmpty() && dbManager.isUserInDB(username))
 				throw new UsernameAlreadyInDBException();
-			}
 
-		// Update data
-		dbManager.updateUserData(currentUser.getUserID(), username, email, firstName, lastName, address);
-		dbManager.close();
+			// Update data
+			dbManager.updateUserData(currentUser().getUserID(), username, email, firstName, lastName, address);
+		} finally {
+			dbManager.close();
+		}
 
 		refreshUser();
 	}
 
 	@WebMethod
 	public void updateAvatar(String fileName) {
-		dbManager.open(false);
-		dbManager.updateAvatar(fileName, currentUser);
-		dbManager.close();
+		DataAccess dbManager = openDataAccess();
+		try {
+			dbManager.updateAvatar(fileName, currentUser());
+		} finally {
+			dbManager.close();
+		}
 
 		refreshUser();
 	}
 
 	@WebMethod
 	public void changePassword(String oldPwd, String newPwd) throws InvalidPasswordException {
+		User currentUser = currentUser();
+
 		// Check if old password is correct
 		byte[] oldHashedPassword = hashPassword(oldPwd, currentUser.getSalt());
 		if (!Arrays.equals(oldHashedPassword, currentUser.getPassword())) throw new InvalidPasswordException();
@@ -300,27 +619,38 @@ public class BlFacadeImplementation implements BlFacade {
 		byte[] newHashedPassword = hashPassword(newPwd, salt);
 
 		// Update the password
-		dbManager.open(false);
-		dbManager.updatePassword(newHashedPassword, salt, currentUser);
-		dbManager.close();
+		DataAccess dbManager = openDataAccess();
+		try {
+			dbManager.updatePassword(newHashedPassword, salt, currentUser);
+		} finally {
+			dbManager.close();
+		}
 
 		refreshUser();
 	}
 
 	@WebMethod
 	public void deleteAccount() {
-		dbManager.open(false);
-		dbManager.deleteUser(currentUser);
-		dbManager.close();
+		UserSession session = currentSession();
+
+		DataAccess dbManager = openDataAccess();
+		try {
+			dbManager.deleteUser(session.getUser());
+		} finally {
+			dbManager.close();
+		}
 
-		currentUser = null;
+		session.setUser(null);
 	}
 
 	@WebMethod	
 	public void initializeBD(){
-		dbManager.open(false);
-		dbManager.initializeDB();
-		dbManager.close();
+		DataAccess dbManager = openDataAccess();
+		try {
+			dbManager.initializeDB();
+		} finally {
+			dbManager.close();
+		}
 
 		// Remove all user avatars except the ones used for testing
 
@@ -362,14 +692,18 @@ public class BlFacadeImplementation implements BlFacade {
 
 	@WebMethod
 	public void close() {
-		dbManager.close();
+		sessions.remove(sessionToken());
 	}
 
 	@WebMethod
 	public Transaction depositMoney(double amount) throws NotEnoughMoneyException {
-		dbManager.open(false);
-		Transaction t = dbManager.depositMoney(amount, currentUser);
-		dbManager.close();
+		DataAccess dbManager = openDataAccess();
+		Transaction t;
+		try {
+			t = dbManager.depositMoney(Money.toCents(amount), currentUser());
+		} finally {
+			dbManager.close();
+		}
 
 		refreshUser();
 		return t;
@@ -377,10 +711,16 @@ public class BlFacadeImplementation implements BlFacade {
 
 	@WebMethod
 	public Transaction withdrawMoney(double origAmount) throws NotEnoughMoneyException {
-		double convertedAmount = Math.round((origAmount - origAmount * 0.05) * 100.0) / 100.0;
-		dbManager.open(false);
-		Transaction t = dbManager.withdrawMoney(origAmount, convertedAmount, currentUser);
-		dbManager.close();
+		// 5% of the amount withdrawn is kept as a fee
+		long amount = Money.toCents(origAmount);
+		long convertedAmount = Money.subtract(amount, Money.percent(amount, 5));
+		DataAccess dbManager = openDataAccess();
+		Transaction t;
+		try {
+			t = dbManager.withdrawMoney(amount, convertedAmount, currentUser());
+		} finally {
+			dbManager.close();
+		}
 
 		refreshUser();
 		return t;
@@ -389,154 +729,213 @@ public class BlFacadeImplementation implements BlFacade {
 	@WebMethod
 	public Map<String, Double> getWalletMovementsLastMonth() {
 		Calendar cal = Calendar.getInstance();
+		Date today = cal.getTime();
 		cal.add(Calendar.MONTH, -1);
 		Date prevMonth = cal.getTime();
-		cal.add(Calendar.MONTH, 1);
-		Date today = Calendar.getInstance().getTime();
-
-		// Filter transactions of last month
-		List<Transaction> lastMonthTrs = currentUser.getCard().getTransactions()
-				.stream()
-				.filter(t -> t.getDate().before(today) && t.getDate().after(prevMonth))
-				.toList();
 
-		// Group (and sort) by date
-		Map<String, List<Transaction>> byDate = lastMonthTrs.stream()
-				.collect(Collectors.groupingBy(t -> Dates.convertToLocalDateViaInstant(t.getDate()).toString()));
-		// TreeMap sorts automatically by key default ordering
-		TreeMap<String, List<Transaction>> sortedByDate = new TreeMap<>(byDate);
+		// Wallet situation after each active day of the last month, read from the ledger
+		DataAccess dbManager = openDataAccess();
+		try {
+			TreeMap<String, Double> walletSituationPerDay = new TreeMap<>();
+			dbManager.getDailyBalances(currentUser(), prevMonth, today)
+					.forEach((day, balance) -> walletSituationPerDay.put(day.toString(), balance));
+			return walletSituationPerDay;
+		} finally {
+			dbManager.close();
+		}
+	}
 
-		// Get sum of money movements per day in the previous month
-		TreeMap<String, Double> sumPerDay = new TreeMap<>();
-		for (String s: sortedByDate.keySet()) {
-			double sum = byDate.get(s).stream().mapToDouble(t -> {
-				double amount = t.getAmount();
-				return t.getType() == 0 ? amount : -amount;
-			}).sum();
-			sumPerDay.put(s, sum);
+	@WebMethod
+	public List<Bet> getActiveBetsUser() {
+		DataAccess dbManager = openDataAccess();
+		try {
+			return dbManager.getActiveBets(currentUser());
+		} finally {
+			dbManager.close();
 		}
+	}
 
-		// Get the wallet situation at the beginning of previous month
-		double walletPrevMonth = currentUser.getWallet();
-		double sum = 0;
-		for (String s: sumPerDay.keySet()) sum += sumPerDay.get(s);
-		walletPrevMonth -= sum;
+	@WebMethod
+	public Page<Bet> getActiveBetsUserPage(int pageSize, String token) {
+		DataAccess dbManager = openDataAccess();
+		try {
+			return dbManager.getActiveBets(currentUser(), pageSize(pageSize), token);
+		} finally {
+			dbManager.close();
+		}
+	}
 
-		// Get wallet situation after each active day
-		TreeMap<String, Double> walletSituationPerDay = new TreeMap<>();
-		for (String s: sortedByDate.keySet()) {
-			double monthSum = byDate.get(s).stream().mapToDouble(t -> {
-				double amount = t.getAmount();
-				return t.getType() == 0 ? amount : -amount;
-			}).sum();
-			walletPrevMonth += monthSum;
-			walletSituationPerDay.put(s, walletPrevMonth);
+	@WebMethod
+	public Page<Transaction> getTransactionsPage(int pageSize, String token) {
+		DataAccess dbManager = openDataAccess();
+		try {
+			return dbManager.getTransactions(currentUser(), pageSize(pageSize), token);
+		} finally {
+			dbManager.close();
 		}
+	}
 
-		return walletSituationPerDay;
+	@WebMethod
+	public SyncStatus getSyncStatus() {
+		return sync.getStatus();
 	}
 
 	@WebMethod
-	public List<Bet> getActiveBetsUser() {
-		dbManager.open(false);
-		List<Bet> bets = dbManager.getActiveBets(currentUser);
-		dbManager.close();
+	public boolean requestSync() {
+		return sync.requestSync();
+	}
 
-		return bets;
+	@WebMethod
+	public CacheStats getCatalogueCacheStats() {
+		return catalogue.getStats();
 	}
 
 	@WebMethod
-	public long countActiveBets() {
-		dbManager.open(false);
-		long n = dbManager.countActiveBets();
-		dbManager.close();
+	public List<PendingRemoval> getPendingRemovals() {
+		DataAccess dbManager = openDataAccess();
+		try {
+			return dbManager.getPendingRemovals();
+		} finally {
+			dbManager.close();
+		}
+	}
 
-		return n;
+	@WebMethod
+	public long countActiveBets() {
+		DataAccess dbManager = openDataAccess();
+		try {
+			return dbManager.countActiveBets();
+		} finally {
+			dbManager.close();
+		}
 	}
 
 	@WebMethod
 	public double getActiveMoney() {
-		dbManager.open(false);
-		double n = dbManager.getActiveMoney();
-		dbManager.close();
-
-		return n;
+		DataAccess dbManager = openDataAccess();
+		try {
+			return dbManager.getActiveMoney();
+		} finally {
+			dbManager.close();
+		}
 	}
 
 	@WebMethod
 	public Map<LocalDate, Double> moneyBetPerDayLastMonth() {
-		dbManager.open(false);
-		Map<LocalDate, Double> moneyBetPerDayLastMonth = dbManager.moneyBetPerDayLastMonth();
-		dbManager.close();
-		return moneyBetPerDayLastMonth;
+		DataAccess dbManager = openDataAccess();
+		try {
+			return dbManager.moneyBetPerDayLastMonth();
+		} finally {
+			dbManager.close();
+		}
 	}
 
 	@WebMethod
 	public Map<LocalDate, Double> wonByUsersLastMonth() {
-		dbManager.open(false);
-		Map<LocalDate, Double> wonByUsers = dbManager.wonByUsersLastMonth();
-		dbManager.close();
-
-		return wonByUsers;
+		DataAccess dbManager = openDataAccess();
+		try {
+			return dbManager.wonByUsersLastMonth();
+		} finally {
+			dbManager.close();
+		}
 	}
 
 	@WebMethod
 	public Map<LocalDate, Double> wonByBetAndRuinLastMonth() {
-		dbManager.open(false);
-		Map<LocalDate, Double> wonByBetAndRuin = dbManager.wonByBetAndRuinLastMonth();
-		dbManager.close();
+		DataAccess dbManager = openDataAccess();
+		try {
+			return dbManager.wonByBetAndRuinLastMonth();
+		} finally {
+			dbManager.close();
+		}
+	}
 
-		return wonByBetAndRuin;
+	@WebMethod
+	public int getTotalNumberOfBetsUser() throws UserNotFoundException {
+		return (int) getUserStats().getTotalBets();
 	}
 
 	@WebMethod
-	public int getTotalNumberOfBetsUser() {
-		return currentUser.getAllBets().size();
+	public int getNumberOfActiveBets() throws UserNotFoundException {
+		return (int) getUserStats().getActiveBets();
 	}
 
 	@WebMethod
-	public int getNumberOfActiveBets() {
-		return currentUser.getActiveBets().size();
+	public int getNumberOfWonBets() throws UserNotFoundException {
+		return (int) getUserStats().getWonBets();
 	}
 
 	@WebMethod
-	public int getNumberOfWonBets() {
-		return currentUser.getWonBets().size();
+	public double getEarnedIncome() throws UserNotFoundException {
+		return getUserStats().getWon();
 	}
 
 	@WebMethod
-	public double getEarnedIncome() {
-		double totalIncome = 0;
+	public AdminDashboard getAdminDashboard() {
+		return adminDashboard.get("admin", () -> {
+			DataAccess dbManager = openDataAccess();
+			try {
+				return dbManager.getAdminDashboard();
+			} finally {
+				dbManager.close();
+			}
+		});
+	}
 
-		for (Bet b: currentUser.getWonBets())
-			totalIncome += b.getAmount() * b.getUserForecast().getFee();
+	@WebMethod
+	public UserDashboard getUserDashboard() throws UserNotFoundException {
+		User user = loggedUser();
+		return userDashboards.get(user.getUserID(), () -> {
+			DataAccess dbManager = openDataAccess();
+			try {
+				return dbManager.getUserDashboard(user, DASHBOARD_UPCOMING_EVENTS);
+			} finally {
+				dbManager.close();
+			}
+		});
+	}
 
-		return totalIncome;
+	@WebMethod
+	public UserStats getUserStats() throws UserNotFoundException {
+		User user = loggedUser();
+		DataAccess dbManager = openDataAccess();
+		try {
+			return dbManager.getUserStats(user);
+		} finally {
+			dbManager.close();
+		}
 	}
 
 	@WebMethod
 	public long countUpcomingEvents() {
-		dbManager.open(false);
-		long n = dbManager.countUpcomingEvents();
-		dbManager.close();
-
-		return n;
+		DataAccess dbManager = openDataAccess();
+		try {
+			return dbManager.countUpcomingEvents();
+		} finally {
+			dbManager.close();
+		}
 	}
 
 	@WebMethod
 	public List<Event> getUpcomingEvents(int n) {
-		dbManager.open(false);
-		List<Event> evs = dbManager.getUpcomingEvents(n);
-		dbManager.close();
-
-		return evs;
+		DataAccess dbManager = openDataAccess();
+		try {
+			return dbManager.getUpcomingEvents(n);
+		} finally {
+			dbManager.close();
+		}
 	}
 
 	@WebMethod
 	public void removeEvent(int eventID) {
-		dbManager.open(false);
-		dbManager.removeEvent(eventID);
-		dbManager.close();
+		DataAccess dbManager = openDataAccess();
+		try {
+			Event event = dbManager.findEventOf(Event.class, eventID);
+			dbManager.removeEvent(eventID);
+			catalogue.invalidate(event);
+		} finally {
+			dbManager.close();
+		}
 
 		refreshUser();
 	}
@@ -548,22 +947,44 @@ public class BlFacadeImplementation implements BlFacade {
 
 	@WebMethod
 	public void removeBet(Bet bet) {
-		dbManager.open(false);
-		dbManager.removeBet(bet.getBetID());
-		dbManager.close();
+		DataAccess dbManager = openDataAccess();
+		try {
+			dbManager.removeBet(bet.getBetID());
+		} finally {
+			dbManager.close();
+		}
 
 		refreshUser();
 	}
 
 	@WebMethod
-	public void placeBet(Double betAmount, Forecast forecast, User gambler) throws BetAlreadyExistsException, LateBetException, LiquidityLackException, MinBetException, UserNotFoundException {
-		dbManager.open(false);
-		dbManager.setBet(betAmount, forecast, gambler);
-		dbManager.close();
+	public void placeBet(Double betAmount, Forecast forecast) throws BetAlreadyExistsException, LateBetException, LiquidityLackException, MinBetException, UserNotFoundException {
+		User gambler = loggedUser();
+		DataAccess dbManager = openDataAccess();
+		try {
+			dbManager.setBet(betAmount, forecast, gambler);
+		} finally {
+			dbManager.close();
+		}
 
 		refreshUser();
 	}
 
+	@WebMethod
+	public List<BetResult> placeBets(List<BetRequest> slip) throws UserNotFoundException {
+		User gambler = loggedUser();
+		DataAccess dbManager = openDataAccess();
+		List<BetResult> results;
+		try {
+			results = dbManager.setBets(slip, gambler);
+		} finally {
+			dbManager.close();
+		}
+
+		if (!results.isEmpty() && results.get(0).isPlaced()) refreshUser();
+		return results;
+	}
+
 	/**
 	 * Hashes the passed password with the given salt.
 	 * It uses SHA-512 algorithm.
@@ -597,28 +1018,39 @@ public class BlFacadeImplementation implements BlFacade {
 	 */
 	@WebMethod
 	public void refreshUser () {
-		dbManager.open(false);
+		UserSession session = currentSession();
+		if (session.getUser() == null) return;
+		// The changes of the user have to be seen the next time their overview is opened
+		userDashboards.invalidate(session.getUser().getUserID());
+
+		DataAccess dbManager = openDataAccess();
 		try {
-			currentUser = dbManager.getUser(currentUser.getUserID());
+			session.setUser(dbManager.getUser(session.getUser().getUserID()));
 		} catch (UserNotFoundException e) {
 			e.printStackTrace();
+		} finally {
+			dbManager.close();
 		}
 	}
 
 	@WebMethod
 	public List<Competition> getCompetitions()
 	{
-		dbManager.open(false);
-		List<Competition> result = dbManager.getCompetitions();
-		dbManager.close();
-		return result;
+		DataAccess dbManager = openDataAccess();
+		try {
+			return dbManager.getCompetitions();
+		} finally {
+			dbManager.close();
+		}
 	}
 
 	@WebMethod
 	public List<Competition> getCompetitions(String country){
-		dbManager.open(false);
-		List<Competition> result = dbManager.getCompetitions(country);
-		dbManager.close();
-		return result;
+		DataAccess dbManager = openDataAccess();
+		try {
+			return dbManager.getCompetitions(country);
+		} finally {
+			dbManager.close();
+		}
 	}
 }
\ No newline at end of file
@@ -8,6 +8,7 @@ import javax.xml.ws.Endpoint;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.concurrent.Executors;
 
 /**
  * This class runs the business logic layer as a separate process 
@@ -71,9 +72,13 @@ public class BusinessLogicServer extends JDialog {
 				service= "http://" + config.getBusinessLogicNode() + ":" +
 						config.getBusinessLogicPort()+"/ws/"+config.getBusinessLogicName();
 
-				Endpoint.publish(service, new BlFacadeImplementation());
+				// Serve the requests of the different clients in parallel
+				Endpoint endpoint = Endpoint.create(new BlFacadeImplementation());
+				endpoint.setExecutor(Executors.newFixedThreadPool(config.getBusinessLogicWorkers()));
+				endpoint.publish(service);
 
 				textArea.append("Running service at:\t" + service);
+				textArea.append("\nWorker threads:\t" + config.getBusinessLogicWorkers());
 				textArea.append("\nPress button to stop this server... ");
 
 			} catch (Exception e) {
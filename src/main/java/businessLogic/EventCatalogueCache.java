@@ -0,0 +1,187 @@
+package businessLogic;
+
+import configuration.UtilDate;
+import domain.CacheStats;
+import domain.Event;
+import domain.Question;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache of the event catalogue browsed by the clients: the events of a day, the days
+ * with events of a month, the events of a country and the questions of an event.
+ * <p>
+ * The cache is bounded by the number of objects it holds (events, questions and forecasts, or days),
+ * evicting the least recently used lists first, and each list expires after a time to live. The
+ * writes to the catalogue invalidate the lists of the event they change. A list loaded while the
+ * catalogue was being written is returned but not kept, so it cannot bring back stale data.
+ */
+public class EventCatalogueCache {
+	private final long ttlMillis;
+	private final long maxWeight;
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(64, 0.75f, true);
+	private long weight;
+	// Incremented by every invalidation, to discard the lists loaded before it
+	private long generation;
+
+	private long hits;
+	private long misses;
+	private long evictions;
+	private long expirations;
+	private long invalidations;
+
+	/**
+	 * Constructor.
+	 * @param ttlMillis time a list is kept after being loaded
+	 * @param maxWeight maximum number of objects kept, or 0 to disable the cache
+	 */
+	public EventCatalogueCache(long ttlMillis, long maxWeight) {
+		this.ttlMillis = ttlMillis;
+		this.maxWeight = maxWeight;
+	}
+
+	/**
+	 * Returns the events of the given date, loading them if they are not cached.
+	 */
+	public List<Event> getEvents(Date date, Supplier<List<Event>> loader) {
+		return new ArrayList<Event>(get(dateKey(date), loader, EventCatalogueCache::weigh));
+	}
+
+	/**
+	 * Returns the days with events of the month of the given date, loading them if they are not cached.
+	 */
+	public Vector<Date> getEventsMonth(Date date, Supplier<Vector<Date>> loader) {
+		return new Vector<Date>(get(monthKey(date), loader, List::size));
+	}
+
+	/**
+	 * Returns the events of the given country, loading them if they are not cached.
+	 */
+	public List<Event> getEventsCountry(String country, Supplier<List<Event>> loader) {
+		return new ArrayList<Event>(get(countryKey(country), loader, EventCatalogueCache::weigh));
+	}
+
+	/**
+	 * Returns the questions of the given event, loading them if they are not cached.
+	 */
+	public List<Question> getQuestions(Event event, Supplier<List<Question>> loader) {
+		return new ArrayList<Question>(get(questionsKey(event.getEventID()), loader, EventCatalogueCache::weighQuestions));
+	}
+
+	/**
+	 * Discards the lists an event appears in: the events of its date and country, the days of
+	 * its month and its questions. Called after the event or its questions change.
+	 * @param event the event, as it was before the change, or null if it does not exist
+	 */
+	public synchronized void invalidate(Event event) {
+		if (event == null) return;
+		generation++;
+		invalidations++;
+		remove(dateKey(event.getEventDate()));
+		remove(monthKey(event.getEventDate()));
+		remove(countryKey(event.getCountry()));
+		remove(questionsKey(event.getEventID()));
+	}
+
+	/**
+	 * Discards all the lists, after changes to the catalogue that are not tracked one by one.
+	 */
+	public synchronized void clear() {
+		generation++;
+		invalidations += entries.size();
+		entries.clear();
+		weight = 0;
+	}
+
+	/**
+	 * Returns the statistics of the cache since the server started.
+	 * @return the statistics
+	 */
+	public synchronized CacheStats getStats() {
+		return new CacheStats(hits, misses, evictions, expirations, invalidations, entries.size(), weight, maxWeight);
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> T get(String key, Supplier<T> loader, Weigher<T> weigher) {
+		long loadedAt;
+		synchronized (this) {
+			Entry e = entries.get(key);
+			if (e != null && System.currentTimeMillis() - e.loadedAt < ttlMillis) {
+				hits++;
+				return (T) e.value;
+			}
+			if (e != null) {
+				remove(key);
+				expirations++;
+			}
+			misses++;
+			loadedAt = generation;
+		}
+
+		T value = loader.get();
+		long w = Math.max(1, weigher.weigh(value));
+		synchronized (this) {
+			if (loadedAt == generation && w <= maxWeight) {
+				remove(key);
+				entries.put(key, new Entry(value, w));
+				weight += w;
+				Iterator<Entry> lru = entries.values().iterator();
+				while (weight > maxWeight && lru.hasNext()) {
+					weight -= lru.next().weight;
+					lru.remove();
+					evictions++;
+				}
+			}
+		}
+		return value;
+	}
+
+	private void remove(String key) {
+		Entry e = entries.remove(key);
+		if (e != null) weight -= e.weight;
+	}
+
+	private static String dateKey(Date date) {
+		return "date:" + date.getTime();
+	}
+
+	private static String monthKey(Date date) {
+		return "month:" + UtilDate.firstDayMonth(date).getTime();
+	}
+
+	private static String countryKey(String country) {
+		return "country:" + country;
+	}
+
+	private static String questionsKey(Integer eventID) {
+		return "questions:" + eventID;
+	}
+
+	private static int weigh(List<Event> events) {
+		int w = events.size();
+		for (Event e : events) w += weighQuestions(e.getQuestions());
+		return w;
+	}
+
+	private static int weighQuestions(List<Question> questions) {
+		int w = questions.size();
+		for (Question q : questions) w += q.getForecasts().size();
+		return w;
+	}
+
+	private interface Weigher<T> {
+		int weigh(T value);
+	}
+
+	private static class Entry {
+		private final Object value;
+		private final long weight;
+		private final long loadedAt = System.currentTimeMillis();
+
+		Entry(Object value, long weight) {
+			this.value = value;
+			this.weight = weight;
+		}
+	}
+}
@@ -0,0 +1,84 @@
+package businessLogic;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the sessions of all the clients connected to the business logic.
+ * Sessions are opened by the server when a user logs in, with a random token that
+ * the client sends back in its following requests, and are evicted after some time
+ * without requests.
+ */
+public class SessionRegistry {
+	// Bytes of randomness in each token
+	private static final int TOKEN_BYTES = 32;
+
+	private final Map<String, UserSession> sessions = new ConcurrentHashMap<String, UserSession>();
+	private final SecureRandom random = new SecureRandom();
+	private final long idleTimeoutMillis;
+
+	/**
+	 * Constructor.
+	 * @param idleTimeoutMillis time without requests after which a session is evicted
+	 */
+	public SessionRegistry(long idleTimeoutMillis) {
+		this.idleTimeoutMillis = idleTimeoutMillis;
+	}
+
+	/**
+	 * Opens a new session with a token that cannot be guessed.
+	 * @return the new session
+	 */
+	public UserSession open() {
+		byte[] bytes = new byte[TOKEN_BYTES];
+		while (true) {
+			random.nextBytes(bytes);
+			UserSession session = new UserSession(Base64.getUrlEncoder().withoutPadding().encodeToString(bytes));
+			if (sessions.putIfAbsent(session.getToken(), session) == null) return session;
+		}
+	}
+
+	/**
+	 * Returns the session with the given token and marks it as used.
+	 * @param token the session token, or null
+	 * @return the session, or null if there is no open session with that token
+	 */
+	public UserSession get(String token) {
+		if (token == null) return null;
+		UserSession session = sessions.get(token);
+		if (session != null) session.touch();
+		return session;
+	}
+
+	/**
+	 * Removes the session with the given token.
+	 * @param token the session token, or null
+	 */
+	public void remove(String token) {
+		if (token != null) sessions.remove(token);
+	}
+
+	/**
+	 * Removes the sessions that have not been used for longer than the idle timeout.
+	 * @return the number of evicted sessions
+	 */
+	public int evictIdle() {
+		long now = System.currentTimeMillis();
+		int evicted = 0;
+		for (UserSession s : sessions.values()) {
+			if (now - s.getLastAccess() > idleTimeoutMillis && sessions.remove(s.getToken(), s))
+				evicted++;
+		}
+		return evicted;
+	}
+
+	/**
+	 * Returns the number of open sessions.
+	 * @return the number of sessions
+	 */
+	public int size() {
+		return sessions.size();
+	}
+}
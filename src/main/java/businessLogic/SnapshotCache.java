@@ -0,0 +1,93 @@
+package businessLogic;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the last value computed for each key for a few seconds, shared by all the clients.
+ * When several requests ask for a key that is missing or expired at the same time, only the
+ * first one computes it and the others wait for its result, so a burst of requests costs a
+ * single computation.
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public class SnapshotCache<K, V> {
+	private final Map<K, Snapshot<V>> snapshots = new ConcurrentHashMap<K, Snapshot<V>>();
+	private final long ttlMillis;
+
+	/**
+	 * Constructor.
+	 * @param ttlMillis time a value is reused after it starts being computed, or 0 to disable the cache
+	 */
+	public SnapshotCache(long ttlMillis) {
+		this.ttlMillis = ttlMillis;
+	}
+
+	/**
+	 * Returns the value of the given key, computing it if it is missing or expired.
+	 * @param key the key
+	 * @param loader computes the value
+	 * @return the value
+	 */
+	public V get(K key, Supplier<V> loader) {
+		long now = System.currentTimeMillis();
+		Snapshot<V> snapshot = snapshots.get(key);
+		if (snapshot == null || snapshot.isExpired(now, ttlMillis)) {
+			Snapshot<V> fresh = new Snapshot<V>(new FutureTask<V>(loader::get), now);
+			snapshot = snapshots.compute(key, (k, old) -> old == null || old.isExpired(now, ttlMillis) ? fresh : old);
+			if (snapshot == fresh) fresh.task.run();
+		}
+
+		try {
+			return snapshot.task.get();
+		} catch (ExecutionException e) {
+			// Not kept, so the next request computes it again
+			snapshots.remove(key, snapshot);
+			if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+			throw new RuntimeException(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Discards the value of a key, after a change that has to be seen by the next request.
+	 * @param key the key
+	 */
+	public void invalidate(K key) {
+		snapshots.remove(key);
+	}
+
+	/**
+	 * Removes the values that have expired.
+	 * @return the number of values removed
+	 */
+	public int evictExpired() {
+		long now = System.currentTimeMillis();
+		int evicted = 0;
+		for (Map.Entry<K, Snapshot<V>> e : snapshots.entrySet()) {
+			if (e.getValue().isExpired(now, ttlMillis) && snapshots.remove(e.getKey(), e.getValue()))
+				evicted++;
+		}
+		return evicted;
+	}
+
+	private static class Snapshot<V> {
+		private final FutureTask<V> task;
+		private final long startedAt;
+
+		private Snapshot(FutureTask<V> task, long startedAt) {
+			this.task = task;
+			this.startedAt = startedAt;
+		}
+
+		private boolean isExpired(long now, long ttlMillis) {
+			// A value still being computed is shared even with the cache disabled
+			return task.isDone() && now - startedAt >= ttlMillis;
+		}
+	}
+}
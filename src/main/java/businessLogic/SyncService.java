@@ -0,0 +1,136 @@
+package businessLogic;
+
+import domain.SyncStatus;
+
+import java.util.Date;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the competitions and matches of the database up to date with the football-data.org API,
+ * synchronizing them in the background every given interval.
+ * <p>
+ * Only one sync runs at a time, and at most one more waits for it: further requests are rejected
+ * while the database is still writing the previous ones, instead of piling up. After a failed sync
+ * the next one is delayed with an exponential backoff with random jitter, so a failing API is not
+ * requested again by every server at the same time.
+ */
+public class SyncService {
+	private static final long FIRST_BACKOFF_MILLIS = 30_000;
+
+	private final Callable<Integer> sync;
+	private final long intervalMillis;
+	private final long maxBackoffMillis;
+	private final ScheduledExecutorService scheduler;
+	// One thread and a queue of one: the running sync and, at most, the next one
+	private final ThreadPoolExecutor worker = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+			new ArrayBlockingQueue<Runnable>(1), r -> {
+				Thread t = new Thread(r, "match-sync");
+				t.setDaemon(true);
+				return t;
+			}, new ThreadPoolExecutor.AbortPolicy());
+
+	private ScheduledFuture<?> next;
+	private volatile boolean running;
+	private volatile long lastAttempt;
+	private volatile long lastSuccess;
+	private volatile long lastDurationMillis;
+	private volatile int lastChanges;
+	private volatile int consecutiveFailures;
+	private volatile String lastError;
+	private final AtomicLong syncs = new AtomicLong();
+	private final AtomicLong failures = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+
+	/**
+	 * Constructor.
+	 * @param sync the sync, returning the number of events created or updated and throwing an exception if it failed
+	 * @param intervalMillis time between the end of a sync and the start of the next one, or 0 to only sync on request
+	 * @param maxBackoffMillis maximum delay of the next sync after consecutive failures
+	 * @param scheduler the executor that triggers the syncs, which are run in their own thread
+	 */
+	public SyncService(Callable<Integer> sync, long intervalMillis, long maxBackoffMillis, ScheduledExecutorService scheduler) {
+		this.sync = sync;
+		this.intervalMillis = intervalMillis;
+		this.maxBackoffMillis = Math.max(FIRST_BACKOFF_MILLIS, maxBackoffMillis);
+		this.scheduler = scheduler;
+	}
+
+	/**
+	 * Starts the periodic syncs, the first one right away. Does nothing if the interval is 0.
+	 */
+	public void start() {
+		if (intervalMillis > 0) scheduleNext(0);
+	}
+
+	/**
+	 * Queues a sync, unless one is already waiting for the running one to finish.
+	 * @return true if the sync was queued, false if it was rejected
+	 */
+	public boolean requestSync() {
+		try {
+			worker.execute(this::runSync);
+			return true;
+		} catch (RejectedExecutionException e) {
+			rejected.incrementAndGet();
+			return false;
+		}
+	}
+
+	private void runSync() {
+		running = true;
+		long start = System.currentTimeMillis();
+		lastAttempt = start;
+		try {
+			lastChanges = sync.call();
+			lastSuccess = System.currentTimeMillis();
+			consecutiveFailures = 0;
+			lastError = null;
+		} catch (Exception e) {
+			consecutiveFailures++;
+			failures.incrementAndGet();
+			lastError = e.getMessage() != null ? e.getMessage() : e.toString();
+			System.out.println("Sync with football-data.org failed (" + consecutiveFailures + " in a row): " + lastError);
+		} finally {
+			syncs.incrementAndGet();
+			lastDurationMillis = System.currentTimeMillis() - start;
+			running = false;
+		}
+		if (intervalMillis > 0) scheduleNext(consecutiveFailures == 0 ? intervalMillis : backoff(consecutiveFailures));
+	}
+
+	/**
+	 * Returns the delay after the given number of consecutive failures: it doubles with every failure
+	 * up to the maximum, and a random half of it is taken off so the retries of several servers spread.
+	 */
+	private long backoff(int failures) {
+		long delay = FIRST_BACKOFF_MILLIS << Math.min(failures - 1, 20);
+		delay = Math.min(delay, maxBackoffMillis);
+		return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+	}
+
+	private synchronized void scheduleNext(long delayMillis) {
+		if (next != null) next.cancel(false);
+		try {
+			next = scheduler.schedule(() -> { requestSync(); }, delayMillis, TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException e) {
+			// The scheduler is shutting down
+		}
+	}
+
+	/**
+	 * Returns the state of the syncs. The service is healthy when the last successful sync is
+	 * no older than two intervals, plus the time a sync takes.
+	 * @return the state of the syncs
+	 */
+	public SyncStatus getStatus() {
+		long now = System.currentTimeMillis();
+		long lag = lastSuccess > 0 ? now - lastSuccess : -1;
+		boolean healthy = intervalMillis <= 0
+				? consecutiveFailures == 0
+				: lag >= 0 && lag <= 2 * intervalMillis + lastDurationMillis;
+		return new SyncStatus(lastAttempt > 0 ? new Date(lastAttempt) : null, lastSuccess > 0 ? new Date(lastSuccess) : null,
+				lag, lastDurationMillis, lastChanges, consecutiveFailures, lastError, syncs.get(), failures.get(),
+				rejected.get(), worker.getQueue().size(), running, healthy);
+	}
+}
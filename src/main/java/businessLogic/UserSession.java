@@ -0,0 +1,61 @@
+package businessLogic;
+
+import domain.User;
+
+/**
+ * State kept by the business logic for a single client of the application:
+ * the user logged in through it and the last time it made a request.
+ */
+public class UserSession {
+	private final String token;
+	private volatile User user;
+	private volatile long lastAccess;
+
+	/**
+	 * Constructor. Creates an anonymous session.
+	 * @param token the token that identifies the session
+	 */
+	public UserSession(String token) {
+		this.token = token;
+		this.lastAccess = System.currentTimeMillis();
+	}
+
+	/**
+	 * Getter for the session token.
+	 * @return the session token
+	 */
+	public String getToken() {
+		return token;
+	}
+
+	/**
+	 * Getter for the user logged in this session.
+	 * @return the user, or null if nobody is logged in
+	 */
+	public User getUser() {
+		return user;
+	}
+
+	/**
+	 * Setter for the user logged in this session.
+	 * @param user the user, or null to log out
+	 */
+	public void setUser(User user) {
+		this.user = user;
+	}
+
+	/**
+	 * Getter for the last time the session was used.
+	 * @return the last access time, in milliseconds
+	 */
+	public long getLastAccess() {
+		return lastAccess;
+	}
+
+	/**
+	 * Marks the session as used right now.
+	 */
+	public void touch() {
+		lastAccess = System.currentTimeMillis();
+	}
+}
@@ -40,6 +40,21 @@ public class ConfigXML {
 	// otherwise BusinessLogicServer needs to be run first
 	private boolean businessLogicIsLocal;
 
+	// Number of threads serving web service requests in the BusinessLogicServer
+	private int businessLogicWorkers;
+	// Minutes without requests after which a client session is discarded
+	private int sessionIdleTimeout;
+	// Maximum number of items returned in a single page by the paged queries
+	private int maxPageSize;
+	// Minutes between two background syncs with football-data.org (0 disables them), and maximum backoff after failures
+	private int syncInterval;
+	private int syncMaxBackoff;
+	// Seconds the event catalogue is cached, and maximum events, questions and forecasts it holds (0 disables it)
+	private int catalogueCacheTtl;
+	private int catalogueCacheMaxWeight;
+	// Seconds the figures of the admin and user dashboards are reused by the following requests (0 disables it)
+	private int dashboardCacheTtl;
+
 	private String dataAccessNode;
 	private int dataAccessPort;
 
@@ -56,6 +71,33 @@ public class ConfigXML {
 	private String dataBaseUser;
 	private String dataBasePassword;
 
+	// Maximum number of entity managers lent at the same time by the data access layer
+	private int entityManagerPoolSize;
+	// Seconds after which an unused pooled entity manager is closed
+	private int entityManagerIdleTimeout;
+	// Seconds a request waits for a free entity manager before failing
+	private int entityManagerAcquireTimeout;
+
+	// Number of bets paid out per transaction when the result of a question is published
+	private int settlementChunkSize;
+
+	// Number of bets refunded per transaction when an event, question or forecast is removed
+	private int removalChunkSize;
+
+	// Base URL of the football-data.org API, and plan of the competitions synchronized from it
+	private String footballDataUrl;
+	private String footballDataPlan;
+	// Folder of the cached API responses, and seconds they are used before being revalidated
+	private String footballDataCacheFolder;
+	private int footballDataCompetitionsTtl;
+	private int footballDataMatchesTtl;
+	// Competitions whose matches are fetched at the same time, and matches persisted per transaction
+	private int ingestionParallelism;
+	private int ingestionBatchSize;
+	// Ledger entries of a card between two snapshots of the balance of its wallet
+	private static final int DEFAULT_LEDGER_SNAPSHOT_INTERVAL = 100;
+	private int ledgerSnapshotInterval = DEFAULT_LEDGER_SNAPSHOT_INTERVAL;
+
 
 	public String getLocale() {
 		return locale;
@@ -77,6 +119,38 @@ public class ConfigXML {
 		return businessLogicIsLocal;
 	}
 
+	public int getBusinessLogicWorkers() {
+		return businessLogicWorkers;
+	}
+
+	public int getSessionIdleTimeout() {
+		return sessionIdleTimeout;
+	}
+
+	public int getMaxPageSize() {
+		return maxPageSize;
+	}
+
+	public int getSyncInterval() {
+		return syncInterval;
+	}
+
+	public int getSyncMaxBackoff() {
+		return syncMaxBackoff;
+	}
+
+	public int getCatalogueCacheTtl() {
+		return catalogueCacheTtl;
+	}
+
+	public int getCatalogueCacheMaxWeight() {
+		return catalogueCacheMaxWeight;
+	}
+
+	public int getDashboardCacheTtl() {
+		return dashboardCacheTtl;
+	}
+
 	public String getDataAccessNode() {
 		return dataAccessNode;
 	}
@@ -105,6 +179,58 @@ public class ConfigXML {
 		return dataBasePassword;
 	}
 
+	public int getEntityManagerPoolSize() {
+		return entityManagerPoolSize;
+	}
+
+	public int getEntityManagerIdleTimeout() {
+		return entityManagerIdleTimeout;
+	}
+
+	public int getEntityManagerAcquireTimeout() {
+		return entityManagerAcquireTimeout;
+	}
+
+	public int getSettlementChunkSize() {
+		return settlementChunkSize;
+	}
+
+	public int getRemovalChunkSize() {
+		return removalChunkSize;
+	}
+
+	public String getFootballDataUrl() {
+		return footballDataUrl;
+	}
+
+	public String getFootballDataPlan() {
+		return footballDataPlan;
+	}
+
+	public String getFootballDataCacheFolder() {
+		return footballDataCacheFolder;
+	}
+
+	public int getFootballDataCompetitionsTtl() {
+		return footballDataCompetitionsTtl;
+	}
+
+	public int getFootballDataMatchesTtl() {
+		return footballDataMatchesTtl;
+	}
+
+	public int getIngestionParallelism() {
+		return ingestionParallelism;
+	}
+
+	public int getIngestionBatchSize() {
+		return ingestionBatchSize;
+	}
+
+	public int getLedgerSnapshotInterval() {
+		return ledgerSnapshotInterval;
+	}
+
 	// get a file from the resources folder
 	// works everywhere, IDEA, unit test and JAR file.
 	private InputStream getFileFromResourceAsStream(String fileName) {
@@ -180,6 +306,14 @@ public class ConfigXML {
 			String value = ((Element)config.getElementsByTagName("businessLogic").item(0)).
 					getAttribute("local");
 			businessLogicIsLocal = value.equals("true");
+			businessLogicWorkers = Integer.parseInt(getTagValue("businessLogicWorkers", config, "16"));
+			sessionIdleTimeout = Integer.parseInt(getTagValue("sessionIdleTimeout", config, "30"));
+			maxPageSize = Integer.parseInt(getTagValue("maxPageSize", config, "200"));
+			syncInterval = Integer.parseInt(getTagValue("syncInterval", config, "15"));
+			syncMaxBackoff = Integer.parseInt(getTagValue("syncMaxBackoff", config, "30"));
+			catalogueCacheTtl = Integer.parseInt(getTagValue("catalogueCacheTtl", config, "300"));
+			catalogueCacheMaxWeight = Integer.parseInt(getTagValue("catalogueCacheMaxWeight", config, "100000"));
+			dashboardCacheTtl = Integer.parseInt(getTagValue("dashboardCacheTtl", config, "5"));
 
 			dataAccessNode = getTagValue("dataAccessNode", config);
 			dataAccessPort = Integer.parseInt(getTagValue("dataAccessPort", config));
@@ -188,14 +322,30 @@ public class ConfigXML {
 					getAttribute("local");
 			dataAccessIsLocal=value.equals("true");
 
-			dataBaseFilename = getTagValue("dataBaseFilename", config);
+			// Both can be overridden with system properties, so tools and benchmarks can work on their own database
+			dataBaseFilename = System.getProperty("dataBaseFilename", getTagValue("dataBaseFilename", config));
 
 			//Two possible values: "open" or "initialize"
-			dataBaseOpenMode= getTagValue("dataBaseOpenMode", config);
+			dataBaseOpenMode = System.getProperty("dataBaseOpenMode", getTagValue("dataBaseOpenMode", config));
 
 			dataBaseUser = getTagValue("dataBaseUser", config);
 			dataBasePassword=getTagValue("dataBasePassword", config);
 
+			entityManagerPoolSize = Integer.parseInt(getTagValue("entityManagerPoolSize", config, "8"));
+			entityManagerIdleTimeout = Integer.parseInt(getTagValue("entityManagerIdleTimeout", config, "300"));
+			entityManagerAcquireTimeout = Integer.parseInt(getTagValue("entityManagerAcquireTimeout", config, "30"));
+			settlementChunkSize = Integer.parseInt(getTagValue("settlementChunkSize", config, "500"));
+			removalChunkSize = Integer.parseInt(getTagValue("removalChunkSize", config, "500"));
+
+			footballDataUrl = getTagValue("footballDataUrl", config, "https://api.football-data.org/v2/");
+			footballDataPlan = getTagValue("footballDataPlan", config, "TIER_ONE");
+			footballDataCacheFolder = getTagValue("footballDataCacheFolder", config, "cache/football-data");
+			footballDataCompetitionsTtl = Integer.parseInt(getTagValue("footballDataCompetitionsTtl", config, "3600"));
+			footballDataMatchesTtl = Integer.parseInt(getTagValue("footballDataMatchesTtl", config, "60"));
+			ingestionParallelism = Integer.parseInt(getTagValue("ingestionParallelism", config, "4"));
+			ingestionBatchSize = Integer.parseInt(getTagValue("ingestionBatchSize", config, "500"));
+			ledgerSnapshotInterval = getPositiveValue("ledgerSnapshotInterval", config, DEFAULT_LEDGER_SNAPSHOT_INTERVAL);
+
 			System.out.print("Configuration parameters read from config.xml: ");
 			System.out.print("\n\tBusiness Logic is local = " + businessLogicIsLocal);
 			System.out.print("\n\tData Access is local = " + dataAccessIsLocal);
@@ -212,4 +362,29 @@ public class ConfigXML {
 		Node nValue = nlList.item(0);
 		return nValue.getNodeValue();
 	}
+
+	/**
+	 * Returns the value of an optional tag, or the given default value if the tag is missing
+	 * (so that config files written for older versions keep working).
+	 */
+	private static String getTagValue(String sTag, Element eElement, String defaultValue) {
+		if (eElement.getElementsByTagName(sTag).getLength() == 0) return defaultValue;
+		return getTagValue(sTag, eElement);
+	}
+
+	/**
+	 * Returns the value of an optional tag that must be a positive number, or the given default
+	 * value if the tag is missing or its value is not a positive number.
+	 */
+	private static int getPositiveValue(String sTag, Element eElement, int defaultValue) {
+		String value = getTagValue(sTag, eElement, Integer.toString(defaultValue));
+		try {
+			int number = Integer.parseInt(value.trim());
+			if (number > 0) return number;
+		} catch (NumberFormatException e) {
+			// Reported below
+		}
+		System.out.println("Error in ConfigXML.java: " + sTag + " must be a positive number, using " + defaultValue);
+		return defaultValue;
+	}
 }
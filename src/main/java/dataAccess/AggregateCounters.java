@@ -0,0 +1,122 @@
+package dataAccess;
+
+import domain.AggregateCounter;
+import utils.Money;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Reads and updates the {@link AggregateCounter} entities.
+ * The counters are updated in the same transaction as the change they count, so they are always
+ * consistent with the rest of the database. The reconciliation rebuilds them from scratch, which
+ * is also how they are created for a database that did not have them yet.
+ * <p>
+ * Each counter is split into {@link #STRIPES} rows and every update locks only one of them, picked
+ * at random, so the transactions placing bets at the same time do not wait for each other on a
+ * single row. The value of a counter is the sum of its rows.
+ */
+public class AggregateCounters {
+
+    /**
+     * Number of rows each counter is split into.
+     */
+    public static final int STRIPES = 16;
+
+    private AggregateCounters() {}
+
+    /**
+     * Adds the given deltas to a counter. It must be called inside an active transaction.
+     * The row updated is locked until the transaction ends, so concurrent updates are not lost.
+     * @param db the entity manager of the transaction
+     * @param name the name of the counter
+     * @param countDelta the number of items added (negative if removed)
+     * @param amountDelta the money added in cents (negative if removed)
+     */
+    public static void add(EntityManager db, String name, long countDelta, long amountDelta) {
+        String key = stripe(name, ThreadLocalRandom.current().nextInt(STRIPES));
+        AggregateCounter counter = RowLocks.lockOrCreate(db, AggregateCounter.class, key, () -> new AggregateCounter(key));
+        counter.add(countDelta, amountDelta);
+    }
+
+    /**
+     * Returns the current value of a counter.
+     * @param db the entity manager
+     * @param name the name of the counter
+     * @return the counter, with value 0 if it has not been created yet
+     */
+    public static AggregateCounter get(EntityManager db, String name) {
+        AggregateCounter total = new AggregateCounter(name);
+        for (int i = 0; i < STRIPES; i++) {
+            AggregateCounter counter = db.find(AggregateCounter.class, stripe(name, i));
+            if (counter != null) total.add(counter.getCount(), counter.getAmountCents());
+        }
+        return total;
+    }
+
+    /**
+     * Returns the key of a row of a counter. The first row keeps the name of the counter, as
+     * when the counters were a single row.
+     */
+    static String stripe(String name, int stripe) {
+        return stripe == 0 ? name : name + "#" + stripe;
+    }
+
+    /**
+     * Rebuilds every counter from the data in the database, reporting the counters that had drifted.
+     * @param db the entity manager
+     * @return the number of counters whose stored value was wrong
+     */
+    public static int reconcile(EntityManager db) {
+        db.getTransaction().begin();
+        try {
+            int drifted = 0;
+
+            TypedQuery<Long> users = db.createQuery("SELECT COUNT(u) FROM User u", Long.class);
+            if (set(db, AggregateCounter.USERS, users.getSingleResult(), 0)) drifted++;
+
+            TypedQuery<Object[]> activeBets = db.createQuery("SELECT COUNT(b), SUM(b.amountCents) FROM Bet b " +
+                    "WHERE b.active = true", Object[].class);
+            Object[] active = activeBets.getSingleResult();
+            if (set(db, AggregateCounter.ACTIVE_BETS, toLong(active[0]), toLong(active[1]))) drifted++;
+
+            db.getTransaction().commit();
+            return drifted;
+        } finally {
+            if (db.getTransaction().isActive()) db.getTransaction().rollback();
+        }
+    }
+
+    /**
+     * Overwrites a counter with its actual value, kept in its first row.
+     * @return true if the stored value was different
+     */
+    private static boolean set(EntityManager db, String name, long count, long amountCents) {
+        long storedCount = 0;
+        long storedAmount = 0;
+        AggregateCounter first = null;
+        for (int i = 0; i < STRIPES; i++) {
+            String key = stripe(name, i);
+            AggregateCounter counter = RowLocks.lockOrCreate(db, AggregateCounter.class, key, () -> new AggregateCounter(key));
+            storedCount += counter.getCount();
+            storedAmount = Money.add(storedAmount, counter.getAmountCents());
+            if (i == 0) first = counter;
+            counter.setCount(0);
+            counter.setAmountCents(0);
+        }
+
+        boolean drifted = count != storedCount || amountCents != storedAmount;
+        if (drifted)
+            System.out.println("Counter " + name + " drifted: count " + storedCount + " -> " + count +
+                    ", amount " + Money.format(storedAmount) + " -> " + Money.format(amountCents));
+
+        first.setCount(count);
+        first.setAmountCents(amountCents);
+        return drifted;
+    }
+
+    static long toLong(Object value) {
+        return value == null ? 0 : ((Number) value).longValue();
+    }
+}
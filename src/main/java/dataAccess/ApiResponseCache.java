@@ -0,0 +1,188 @@
+package dataAccess;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * On-disk cache of the responses of the football-data.org API, with one entry per endpoint.
+ * Each entry keeps the body of the response and the validators sent with it (ETag and Last-Modified),
+ * so an expired entry can be revalidated with a conditional request instead of downloaded again.
+ * <p>
+ * A body is downloaded to a temporary file without holding any lock, so a slow response only
+ * delays its own endpoint. The entry of an endpoint is locked just while its body file is
+ * replaced and its metadata written, so a reader never sees the body of one response with the
+ * validators of another.
+ */
+public class ApiResponseCache {
+
+    private final Path folder;
+    // Lock of each endpoint, guarding its body and metadata files
+    private final Map<String, Object> locks = new ConcurrentHashMap<String, Object>();
+
+    /**
+     * Constructor.
+     * @param folder the folder where the responses are stored, created if it does not exist
+     */
+    public ApiResponseCache(Path folder) {
+        this.folder = folder;
+    }
+
+    /**
+     * Returns the cached response of an endpoint.
+     * @param endpoint the endpoint
+     * @return the entry, or null if the endpoint has never been cached
+     */
+    public Entry get(String endpoint) {
+        synchronized (lock(endpoint)) {
+            return read(endpoint);
+        }
+    }
+
+    /**
+     * Stores the body of a response, replacing the previous one.
+     * @param endpoint the endpoint
+     * @param body the body of the response, that is copied as it is read
+     * @param etag the ETag of the response, or null
+     * @param lastModified the Last-Modified date of the response, or null
+     * @return the new entry
+     * @throws IOException if the response cannot be read or stored
+     */
+    public Entry put(String endpoint, InputStream body, String etag, String lastModified) throws IOException {
+        Files.createDirectories(folder);
+        Path file = folder.resolve(fileName(endpoint) + ".json");
+        Path partial = Files.createTempFile(folder, fileName(endpoint), ".part");
+        try {
+            try (OutputStream out = Files.newOutputStream(partial)) {
+                body.transferTo(out);
+            }
+            synchronized (lock(endpoint)) {
+                Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                Entry entry = new Entry(endpoint, file, etag, lastModified, System.currentTimeMillis());
+                writeMeta(entry);
+                return entry;
+            }
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+    }
+
+    /**
+     * Marks an entry as just fetched, after the server confirmed that it has not changed.
+     * Nothing is written if a newer response of the endpoint has been stored meanwhile.
+     * @param entry the entry
+     * @return the refreshed entry
+     */
+    public Entry touch(Entry entry) {
+        Entry refreshed = new Entry(entry.endpoint, entry.body, entry.etag, entry.lastModified, System.currentTimeMillis());
+        synchronized (lock(entry.endpoint)) {
+            Entry stored = read(entry.endpoint);
+            if (stored != null && Objects.equals(stored.etag, entry.etag)
+                    && Objects.equals(stored.lastModified, entry.lastModified)) {
+                try {
+                    writeMeta(refreshed);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+        return refreshed;
+    }
+
+    private Entry read(String endpoint) {
+        Path meta = folder.resolve(fileName(endpoint) + ".properties");
+        Path body = folder.resolve(fileName(endpoint) + ".json");
+        if (!Files.exists(meta) || !Files.exists(body)) return null;
+
+        Properties p = new Properties();
+        try (Reader in = Files.newBufferedReader(meta, StandardCharsets.UTF_8)) {
+            p.load(in);
+            return new Entry(endpoint, body, p.getProperty("etag"), p.getProperty("lastModified"),
+                    Long.parseLong(p.getProperty("fetchedAt", "0")));
+        } catch (IOException | NumberFormatException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private Object lock(String endpoint) {
+        return locks.computeIfAbsent(endpoint, e -> new Object());
+    }
+
+    private void writeMeta(Entry entry) throws IOException {
+        Properties p = new Properties();
+        if (entry.etag != null) p.setProperty("etag", entry.etag);
+        if (entry.lastModified != null) p.setProperty("lastModified", entry.lastModified);
+        p.setProperty("fetchedAt", Long.toString(entry.fetchedAt));
+        try (Writer out = Files.newBufferedWriter(folder.resolve(fileName(entry.endpoint) + ".properties"),
+                StandardCharsets.UTF_8)) {
+            p.store(out, entry.endpoint);
+        }
+    }
+
+    private static String fileName(String endpoint) {
+        return endpoint.replaceAll("[^A-Za-z0-9]", "_");
+    }
+
+    /**
+     * A cached response.
+     */
+    public static class Entry {
+        private final String endpoint;
+        private final Path body;
+        private final String etag;
+        private final String lastModified;
+        private final long fetchedAt;
+
+        Entry(String endpoint, Path body, String etag, String lastModified, long fetchedAt) {
+            this.endpoint = endpoint;
+            this.body = body;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.fetchedAt = fetchedAt;
+        }
+
+        /**
+         * Getter for the file holding the body of the response.
+         * @return the body file
+         */
+        public Path getBody() {
+            return body;
+        }
+
+        /**
+         * Getter for the ETag of the response.
+         * @return the ETag, or null if the server did not send one
+         */
+        public String getEtag() {
+            return etag;
+        }
+
+        /**
+         * Getter for the Last-Modified date of the response.
+         * @return the date, or null if the server did not send one
+         */
+        public String getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * Tells whether the response can still be used without asking the server.
+         * @param ttlMillis time to live of the responses of the endpoint
+         * @return true if the response was fetched or revalidated less than ttlMillis ago
+         */
+        public boolean isFresh(long ttlMillis) {
+            return System.currentTimeMillis() - fetchedAt < ttlMillis;
+        }
+    }
+}
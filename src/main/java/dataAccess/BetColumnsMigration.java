@@ -0,0 +1,52 @@
+package dataAccess;
+
+import domain.Bet;
+
+import javax.persistence.EntityManager;
+
+/**
+ * Fills the question, event, event date and active state copied into the bets placed before
+ * they were copied, and into the bets created together with their question, whose id was not
+ * known yet, and flags as settled the bets of the results published before settlements were
+ * tracked. Until a bet is filled, the queries on those fields do not see it, so it runs when
+ * the business logic starts, before the aggregate counters and the daily rollups are rebuilt.
+ * It can also be run with the application stopped:
+ * <pre>
+ *     java -cp &lt;classpath&gt; dataAccess.BetColumnsMigration
+ * </pre>
+ */
+public class BetColumnsMigration {
+
+    private BetColumnsMigration() {}
+
+    /**
+     * Migrates the database set in the configuration and rebuilds its aggregates.
+     * @param args not used
+     */
+    public static void main(String[] args) {
+        DataAccess dataAccess = new DataAccess();
+        try {
+            long migrated = dataAccess.migrateBetColumns();
+            System.out.println(migrated + " bets filled with their question and event");
+            dataAccess.reconcileCounters();
+        } finally {
+            dataAccess.close();
+            DataAccess.shutdown();
+        }
+    }
+
+    /**
+     * Fills every bet that does not have the id of its question yet, and flags as settled the bets
+     * of the results published before settlements were tracked.
+     * @param db the entity manager
+     * @return the number of bets migrated
+     */
+    public static long migrate(EntityManager db) {
+        long migrated = MoneyMigration.migrate(db, Bet.class, "x.questionID IS NULL AND x.userForecast IS NOT NULL",
+                b -> b.locate(b.getUserForecast().getQuestion()));
+        // The results published before settlements were tracked were paid all at once
+        migrated += MoneyMigration.migrate(db, Bet.class, "x.active = false AND x.settled = false " +
+                "AND x.userForecast.question.settlementStatus IS NULL", b -> b.setSettled(true));
+        return migrated;
+    }
+}
@@ -0,0 +1,255 @@
+package dataAccess;
+
+import configuration.ConfigXML;
+import domain.AggregateCounter;
+import domain.Bet;
+import domain.Event;
+import domain.Forecast;
+import domain.PendingRemoval;
+import domain.Question;
+import domain.User;
+import utils.Money;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Removes an event, a question or a forecast together with its bets, refunding them.
+ * The bets are refunded in chunks, each one in its own transaction, and the refunds of a chunk
+ * are grouped per gambler, so each gambler gets a single deposit and a single ledger entry per
+ * chunk instead of one per bet. The removal is stored as a {@link PendingRemoval} that keeps its
+ * progress and is deleted in the same transaction that finally removes the object, so a removal
+ * interrupted half way can be resumed without refunding any bet twice. A chunk that conflicts
+ * with another transaction updating the wallet of one of its gamblers is retried.
+ */
+public class BetRemovalPipeline {
+
+    private static final String[] BETS_OF = {
+            "SELECT b FROM Bet b WHERE b.eventID=?1 ORDER BY b.betID",
+            "SELECT b FROM Bet b WHERE b.questionID=?1 ORDER BY b.betID",
+            "SELECT b FROM Bet b WHERE b.userForecast.forecastID=?1 ORDER BY b.betID"
+    };
+
+    private final EntityManager db;
+    private final int chunkSize;
+    private final int snapshotInterval = ConfigXML.getInstance().getLedgerSnapshotInterval();
+
+    /**
+     * Constructor that instantiates the pipeline.
+     * @param db the entity manager used to remove the objects
+     * @param chunkSize number of bets refunded per transaction
+     */
+    public BetRemovalPipeline(EntityManager db, int chunkSize) {
+        if (chunkSize < 1) throw new IllegalArgumentException("The chunk size must be at least 1");
+        this.db = db;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Removes an event with its questions and forecasts, refunding all its bets.
+     * @param eventID the event id
+     * @return the finished removal
+     */
+    public PendingRemoval removeEvent(int eventID) {
+        return remove(PendingRemoval.EVENT, eventID);
+    }
+
+    /**
+     * Removes a question with its forecasts, refunding all its bets.
+     * @param questionID the question id
+     * @return the finished removal
+     */
+    public PendingRemoval removeQuestion(int questionID) {
+        return remove(PendingRemoval.QUESTION, questionID);
+    }
+
+    /**
+     * Removes a forecast, refunding all its bets.
+     * @param forecastID the forecast id
+     * @return the finished removal
+     */
+    public PendingRemoval removeForecast(int forecastID) {
+        return remove(PendingRemoval.FORECAST, forecastID);
+    }
+
+    /**
+     * Finishes every removal that was interrupted before all the bets were refunded.
+     * @return the finished removals
+     */
+    public List<PendingRemoval> resumePending() {
+        List<PendingRemoval> removals = new ArrayList<PendingRemoval>();
+        for (PendingRemoval pending : getPending()) {
+            removals.add(resume(pending.getRemovalID()));
+        }
+        return removals;
+    }
+
+    /**
+     * Returns the removals that are being processed or were interrupted, with their progress.
+     * @return the pending removals
+     */
+    public List<PendingRemoval> getPending() {
+        return db.createQuery("SELECT r FROM PendingRemoval r ORDER BY r.removalID", PendingRemoval.class)
+                .getResultList();
+    }
+
+    /**
+     * Starts the removal of an object, or resumes it if it was already started.
+     */
+    private PendingRemoval remove(int targetType, int targetID) {
+        TypedQuery<PendingRemoval> started = db.createQuery("SELECT r FROM PendingRemoval r " +
+                "WHERE r.targetType=?1 AND r.targetID=?2", PendingRemoval.class);
+        started.setParameter(1, targetType);
+        started.setParameter(2, targetID);
+        List<PendingRemoval> pending = started.getResultList();
+        if (!pending.isEmpty()) return resume(pending.get(0).getRemovalID());
+
+        TypedQuery<Long> count = db.createQuery(BETS_OF[targetType].replace("SELECT b ", "SELECT COUNT(b) ")
+                .replace(" ORDER BY b.betID", ""), Long.class);
+        count.setParameter(1, targetID);
+
+        db.getTransaction().begin();
+        PendingRemoval removal = new PendingRemoval(targetType, targetID, count.getSingleResult(),
+                Calendar.getInstance().getTime());
+        db.persist(removal);
+        db.getTransaction().commit();
+        return resume(removal.getRemovalID());
+    }
+
+    /**
+     * Refunds the remaining bets of a removal, chunk by chunk, and then removes the object.
+     * @param removalID the id of the pending removal
+     * @return the finished removal
+     */
+    private PendingRemoval resume(int removalID) {
+        PendingRemoval removal = db.find(PendingRemoval.class, removalID);
+        int targetType = removal.getTargetType();
+        long start = System.nanoTime();
+
+        // The refunded bets are deleted, so the first chunk of the remaining ones is always read
+        TypedQuery<Bet> query = db.createQuery(BETS_OF[targetType], Bet.class);
+        query.setParameter(1, removal.getTargetID());
+        query.setMaxResults(chunkSize);
+
+        List<Bet> chunk;
+        int conflicts = 0;
+        while (!(chunk = query.getResultList()).isEmpty()) {
+            db.getTransaction().begin();
+            try {
+                refund(chunk);
+                removal = db.find(PendingRemoval.class, removalID);
+                removal.addRefunded(chunk.size(), chunk.stream().mapToLong(Bet::getAmountCents).sum());
+                db.getTransaction().commit();
+                conflicts = 0;
+            } catch (RuntimeException e) {
+                // A gambler's wallet was changed meanwhile: the chunk is read and refunded again
+                if (!OptimisticRetry.shouldRetry(db, e, ++conflicts)) throw e;
+                continue;
+            } finally {
+                if (db.getTransaction().isActive()) db.getTransaction().rollback();
+            }
+            System.out.println(removal);
+            // Keep the persistence context small while processing big removals
+            db.clear();
+        }
+
+        db.getTransaction().begin();
+        removal = db.find(PendingRemoval.class, removalID);
+        removeTarget(targetType, removal.getTargetID());
+        db.remove(removal);
+        db.getTransaction().commit();
+
+        System.out.println(removal + " finished in " +
+                String.format("%.3f", (System.nanoTime() - start) / 1_000_000.0) + " ms");
+        return removal;
+    }
+
+    /**
+     * Deletes a chunk of bets and gives their money back to their gamblers, grouping the refunds
+     * of each gambler and the changes of the rollup of each day. It must be called inside an
+     * active transaction.
+     */
+    private void refund(List<Bet> chunk) {
+        Map<User, long[]> refunds = new LinkedHashMap<User, long[]>();
+        Map<Date, long[]> rollups = new LinkedHashMap<Date, long[]>();
+        long activeBets = 0;
+        long activeMoney = 0;
+
+        for (Bet bet : chunk) {
+            long amount = bet.getAmountCents();
+            Question question = bet.getUserForecast().getQuestion();
+            Forecast correct = question.getCorrectForecast();
+            boolean active = correct == null;
+            boolean settled = bet.isSettled();
+            boolean won = settled && correct.equals(bet.getUserForecast());
+            long prize = won ? Money.multiply(amount, bet.getUserForecast().getFeeHundredths()) : 0;
+
+            if (active) {
+                activeBets++;
+                activeMoney = Money.add(activeMoney, amount);
+            }
+            // Remove the bet from the daily rollup (including its result, if the settlement already booked it)
+            long[] rollup = rollups.computeIfAbsent(question.getEvent().getEventDate(), d -> new long[3]);
+            rollup[0] = Money.subtract(rollup[0], amount);
+            if (won) rollup[1] = Money.subtract(rollup[1], prize);
+            else if (settled) rollup[2] = Money.subtract(rollup[2], amount);
+
+            long[] refund = refunds.computeIfAbsent(bet.getGambler(), u -> new long[6]);
+            refund[0]++;
+            refund[1] = Money.add(refund[1], amount);
+            // What the bets of the gambler added to their statistics: active ones, won ones and prizes
+            if (active) {
+                refund[2]++;
+                refund[3] = Money.add(refund[3], amount);
+            }
+            if (won) {
+                refund[4]++;
+                refund[5] = Money.add(refund[5], prize);
+            }
+            bet.getGambler().removeBet(bet);
+        }
+
+        if (activeBets > 0) AggregateCounters.add(db, AggregateCounter.ACTIVE_BETS, -activeBets, -activeMoney);
+        for (Map.Entry<Date, long[]> e : rollups.entrySet())
+            DailyRollups.add(db, e.getKey(), e.getValue()[0], e.getValue()[1], e.getValue()[2]);
+
+        // A single deposit and ledger entry for all the bets of each gambler in the chunk
+        Date today = Calendar.getInstance().getTime();
+        for (Map.Entry<User, long[]> e : refunds.entrySet()) {
+            User user = e.getKey();
+            long[] r = e.getValue();
+            user.depositMoneyIntoWallet(r[1]);
+            Ledger.append(db, user, 0, r[0] == 1 ? "Bet refund" : "Refund of " + r[0] + " bets", r[1], today,
+                    snapshotInterval);
+            UserStatsRecords.update(db, user.getUserID()).refunded(r[0], r[1], r[2], r[3], r[4], r[5]);
+        }
+    }
+
+    /**
+     * Removes the object once it has no bets left. It must be called inside an active transaction.
+     * Its questions and forecasts are removed with it thanks to cascade = CascadeType.ALL.
+     */
+    private void removeTarget(int targetType, int targetID) {
+        if (targetType == PendingRemoval.EVENT) {
+            Event e = db.find(Event.class, targetID);
+            if (e == null) return;
+            EventCalendar.remove(db, e);
+            db.remove(e);
+        } else if (targetType == PendingRemoval.QUESTION) {
+            Question q = db.find(Question.class, targetID);
+            if (q == null) return;
+            db.remove(q);
+            q.getEvent().getQuestions().remove(q);
+        } else {
+            Forecast f = db.find(Forecast.class, targetID);
+            if (f == null) return;
+            f.getQuestion().getForecasts().remove(f);
+        }
+    }
+}
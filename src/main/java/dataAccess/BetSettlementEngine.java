@@ -0,0 +1,191 @@
+package dataAccess;
+
+import configuration.ConfigXML;
+import domain.AggregateCounter;
+import domain.Bet;
+import domain.Forecast;
+import domain.Question;
+import domain.User;
+import domain.UserStats;
+import utils.Money;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pays out the bets of a question once its result is published.
+ * The bets are processed in chunks, each one in its own transaction, so settling a popular
+ * question does not require a single huge transaction. Every bet is flagged as settled in the
+ * same transaction that pays it, and the question keeps its settlement status, so a settlement
+ * interrupted half way can be resumed without paying any bet twice. A chunk that conflicts with
+ * another transaction updating the wallet of one of its winners is retried.
+ */
+public class BetSettlementEngine {
+
+    private final EntityManager db;
+    private final int chunkSize;
+    private final int snapshotInterval = ConfigXML.getInstance().getLedgerSnapshotInterval();
+
+    /**
+     * Constructor that instantiates the engine.
+     * @param db the entity manager used to settle the bets
+     * @param chunkSize number of bets processed per transaction
+     */
+    public BetSettlementEngine(EntityManager db, int chunkSize) {
+        if (chunkSize < 1) throw new IllegalArgumentException("The chunk size must be at least 1");
+        this.db = db;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Publishes the correct forecast of a question and pays out its winning bets.
+     * If the question is already being settled with the same forecast, the settlement is resumed;
+     * if it has already been settled, nothing is done.
+     * @param qID the question id
+     * @param fID the correct forecast id
+     * @return the report of the settlement
+     */
+    public SettlementReport settle(int qID, int fID) {
+        Question q = db.find(Question.class, qID);
+        Forecast f = db.find(Forecast.class, fID);
+
+        if (q.getSettlementStatus() != null) {
+            if (q.getCorrectForecast() != null && !q.getCorrectForecast().getForecastID().equals(fID))
+                throw new IllegalStateException("Question " + qID + " was already settled with another forecast");
+            if (q.getSettlementStatus() == Question.SETTLEMENT_DONE) return new SettlementReport(qID);
+            return resume(q);
+        }
+        // Result published before settlements were tracked: its winners were already paid
+        if (q.getCorrectForecast() != null) return new SettlementReport(qID);
+
+        db.getTransaction().begin();
+        // Bets placed meanwhile lock the question too, so none is missed by the counts below
+        db.refresh(q, LockModeType.PESSIMISTIC_WRITE);
+        if (q.getSettlementStatus() != null || q.getCorrectForecast() != null) {
+            // Published meanwhile by another settlement
+            db.getTransaction().rollback();
+            return settle(qID, fID);
+        }
+
+        // Once the result is published, the bets of the question are no longer active
+        TypedQuery<Object[]> activeBets = db.createQuery("SELECT b.gambler.userID, COUNT(b), SUM(b.amountCents) " +
+                "FROM Bet b WHERE b.questionID=?1 GROUP BY b.gambler.userID", Object[].class);
+        activeBets.setParameter(1, qID);
+        List<Object[]> activePerGambler = activeBets.getResultList();
+        long activeCount = 0;
+        long activeMoney = 0;
+        for (Object[] row : activePerGambler) {
+            activeCount += AggregateCounters.toLong(row[1]);
+            activeMoney = Money.add(activeMoney, AggregateCounters.toLong(row[2]));
+        }
+
+        q.setCorrectForecast(f);
+        q.setSettlementStatus(Question.SETTLEMENT_IN_PROGRESS);
+        AggregateCounters.add(db, AggregateCounter.ACTIVE_BETS, -activeCount, -activeMoney);
+        for (Object[] row : activePerGambler)
+            UserStatsRecords.update(db, (Integer) row[0]).closed(AggregateCounters.toLong(row[1]),
+                    AggregateCounters.toLong(row[2]));
+        db.createQuery("UPDATE Bet b SET b.active = false WHERE b.questionID=?1").setParameter(1, qID).executeUpdate();
+        db.getTransaction().commit();
+        // The bets already in the persistence context were not changed by the update
+        db.clear();
+
+        return resume(db.find(Question.class, qID));
+    }
+
+    /**
+     * Finishes every settlement that was interrupted before all the bets were processed.
+     * @return the reports of the resumed settlements
+     */
+    public List<SettlementReport> resumePending() {
+        TypedQuery<Integer> query = db.createQuery("SELECT q.questionID FROM Question q WHERE q.settlementStatus=?1", Integer.class);
+        query.setParameter(1, Question.SETTLEMENT_IN_PROGRESS);
+
+        List<SettlementReport> reports = new ArrayList<SettlementReport>();
+        for (Integer qID : query.getResultList()) {
+            reports.add(resume(db.find(Question.class, qID)));
+        }
+        return reports;
+    }
+
+    /**
+     * Processes the pending bets of a question whose settlement is in progress, chunk by chunk.
+     * @param q the question
+     * @return the report of the settlement
+     */
+    private SettlementReport resume(Question q) {
+        int qID = q.getQuestionID();
+        int fID = q.getCorrectForecast().getForecastID();
+        Date eventDate = q.getEvent().getEventDate();
+        SettlementReport report = new SettlementReport(qID);
+        long start = System.nanoTime();
+
+        // Each chunk starts after the last bet of the previous one, instead of skipping again the settled ones
+        TypedQuery<Bet> query = db.createQuery("SELECT b FROM Bet b WHERE b.questionID=?1 " +
+                "AND b.settled=false AND b.betID > ?2 ORDER BY b.betID", Bet.class);
+        query.setParameter(1, qID);
+        query.setMaxResults(chunkSize);
+
+        List<Bet> chunk;
+        int lastBetID = Integer.MIN_VALUE;
+        int conflicts = 0;
+        while (!(chunk = query.setParameter(2, lastBetID).getResultList()).isEmpty()) {
+            db.getTransaction().begin();
+            try {
+                Date today = Calendar.getInstance().getTime();
+                long paidOut = 0;
+                long houseNet = 0;
+                int winners = 0;
+                Map<User, List<Long>> prizes = new LinkedHashMap<User, List<Long>>();
+                for (Bet b : chunk) {
+                    if (b.getUserForecast().getForecastID() == fID) {
+                        long wonAmount = Money.multiply(b.getAmountCents(), b.getUserForecast().getFeeHundredths());
+                        User u = b.getGambler();
+                        // Add the amount to winner and register the transaction
+                        u.depositMoneyIntoWallet(wonAmount);
+                        Ledger.append(db, u, 0, "Won bet " + b.getBetID(), wonAmount, today, snapshotInterval);
+                        prizes.computeIfAbsent(u, w -> new ArrayList<Long>()).add(wonAmount);
+                        winners++;
+                        paidOut = Money.add(paidOut, wonAmount);
+                    } else {
+                        houseNet = Money.add(houseNet, b.getAmountCents());
+                    }
+                    b.setSettled(true);
+                }
+                DailyRollups.add(db, eventDate, 0, paidOut, houseNet);
+                for (Map.Entry<User, List<Long>> e : prizes.entrySet()) {
+                    UserStats stats = UserStatsRecords.update(db, e.getKey().getUserID());
+                    for (long wonAmount : e.getValue()) stats.won(wonAmount);
+                }
+                db.getTransaction().commit();
+                report.addWinners(winners, paidOut);
+                conflicts = 0;
+            } catch (RuntimeException e) {
+                // A winner's wallet was changed meanwhile: the chunk is read and paid again
+                if (!OptimisticRetry.shouldRetry(db, e, ++conflicts)) throw e;
+                continue;
+            } finally {
+                if (db.getTransaction().isActive()) db.getTransaction().rollback();
+            }
+            report.addBets(chunk.size());
+            lastBetID = chunk.get(chunk.size() - 1).getBetID();
+            // Keep the persistence context small while processing big questions
+            db.clear();
+        }
+
+        db.getTransaction().begin();
+        db.find(Question.class, qID).setSettlementStatus(Question.SETTLEMENT_DONE);
+        db.getTransaction().commit();
+
+        report.finish(System.nanoTime() - start);
+        System.out.println(report);
+        return report;
+    }
+}
@@ -0,0 +1,195 @@
+package dataAccess;
+
+import domain.DailyRollup;
+import utils.Dates;
+import utils.Money;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Reads and updates the {@link DailyRollup} entities.
+ * As the aggregate counters, the rollups are updated in the same transaction as the bets they
+ * summarize and can be rebuilt from scratch by the reconciliation. The money paid out and won by
+ * BetAndRuin only counts the bets already settled, as the settlement adds each chunk of bets when
+ * it processes them.
+ */
+public class DailyRollups {
+
+    private DailyRollups() {}
+
+    /**
+     * Adds the given amounts to the rollup of the day of an event. It must be called inside an
+     * active transaction, and the rollup stays locked until the transaction ends.
+     * @param db the entity manager of the transaction
+     * @param eventDate the date of the event the bets belong to
+     * @param amountBet money bet in cents
+     * @param paidOut money won by users in cents
+     * @param houseNet money won by BetAndRuin in cents
+     */
+    public static void add(EntityManager db, Date eventDate, long amountBet, long paidOut, long houseNet) {
+        add(db, Dates.convertToLocalDateViaInstant(eventDate), amountBet, paidOut, houseNet);
+    }
+
+    private static void add(EntityManager db, LocalDate date, long amountBet, long paidOut, long houseNet) {
+        DailyRollup rollup = RowLocks.lockOrCreate(db, DailyRollup.class, DailyRollup.toDay(date), () -> new DailyRollup(date));
+        rollup.add(amountBet, paidOut, houseNet);
+    }
+
+    /**
+     * Moves the amounts of the bets of an event to the rollup of its new day, when the event is
+     * rescheduled. It must be called inside an active transaction, before the date of the bets
+     * is changed, since the amounts are taken from the days the bets are stored with.
+     * @param db the entity manager of the transaction
+     * @param eventID the id of the event
+     * @param newDate the new date of the event
+     */
+    public static void move(EntityManager db, Integer eventID, Date newDate) {
+        Map<Integer, long[]> sums = sumBets(db, "b.eventID = ?1", eventID);
+        LocalDate to = Dates.convertToLocalDateViaInstant(newDate);
+        long[] moved = new long[3];
+        for (Map.Entry<Integer, long[]> e : sums.entrySet()) {
+            if (e.getKey() == DailyRollup.toDay(to)) continue;
+            long[] daySums = e.getValue();
+            add(db, DailyRollup.toDate(e.getKey()), -daySums[0], -daySums[1], -daySums[2]);
+            for (int i = 0; i < 3; i++) moved[i] = Money.add(moved[i], daySums[i]);
+        }
+        if (moved[0] != 0 || moved[1] != 0 || moved[2] != 0) add(db, to, moved[0], moved[1], moved[2]);
+    }
+
+    /**
+     * Subtracts the bets of a user from the rollups of their days, when the user is removed with
+     * their bets. It must be called inside an active transaction, before the user is removed.
+     * @param db the entity manager of the transaction
+     * @param userID the id of the user
+     */
+    public static void removeBetsOf(EntityManager db, Integer userID) {
+        for (Map.Entry<Integer, long[]> e : sumBets(db, "b.gambler.userID = ?1", userID).entrySet()) {
+            long[] daySums = e.getValue();
+            add(db, DailyRollup.toDate(e.getKey()), -daySums[0], -daySums[1], -daySums[2]);
+        }
+    }
+
+    /**
+     * Adds up the money bet, paid out and won by BetAndRuin in the bets matching a condition, per
+     * day of the bets, sorted by day so the rollups are always locked in the same order.
+     * @param condition the condition on the bet b, with a single parameter ?1
+     * @param parameter the value of the parameter
+     */
+    private static Map<Integer, long[]> sumBets(EntityManager db, String condition, Object parameter) {
+        Map<Integer, long[]> sums = new TreeMap<Integer, long[]>();
+        TypedQuery<Object[]> q = db.createQuery("SELECT b.eventDate, SUM(b.amountCents) FROM Bet b " +
+                "WHERE " + condition + " GROUP BY b.eventDate", Object[].class);
+        q.setParameter(1, parameter);
+        for (Object[] row : q.getResultList()) add(sums, 0, (Date) row[0], AggregateCounters.toLong(row[1]));
+        // Each prize is rounded to the cent on its own, as when it was paid, so they are added one by one
+        q = db.createQuery("SELECT b.eventDate, b.amountCents, b.userForecast.feeHundredths FROM Bet b " +
+                "WHERE " + condition + " AND b.active = false AND b.settled = true " +
+                "AND b.userForecast.question.correctForecast = b.userForecast", Object[].class);
+        q.setParameter(1, parameter);
+        for (Object[] row : q.getResultList())
+            add(sums, 1, (Date) row[0], Money.multiply(AggregateCounters.toLong(row[1]), AggregateCounters.toLong(row[2])));
+        q = db.createQuery("SELECT b.eventDate, SUM(b.amountCents) FROM Bet b WHERE " + condition +
+                " AND b.active = false AND b.settled = true " +
+                "AND b.userForecast.question.correctForecast <> b.userForecast GROUP BY b.eventDate", Object[].class);
+        q.setParameter(1, parameter);
+        for (Object[] row : q.getResultList()) add(sums, 2, (Date) row[0], AggregateCounters.toLong(row[1]));
+        return sums;
+    }
+
+    /**
+     * Returns the rollups of the days between the given dates, both included.
+     * Days without any bet have no rollup.
+     * @param db the entity manager
+     * @param from first day
+     * @param to last day
+     * @return the rollups sorted by day
+     */
+    public static List<DailyRollup> range(EntityManager db, LocalDate from, LocalDate to) {
+        TypedQuery<DailyRollup> q = db.createQuery("SELECT r FROM DailyRollup r WHERE r.day >= ?1 AND r.day <= ?2 " +
+                "ORDER BY r.day", DailyRollup.class);
+        q.setParameter(1, DailyRollup.toDay(from));
+        q.setParameter(2, DailyRollup.toDay(to));
+        return q.getResultList();
+    }
+
+    /**
+     * Rebuilds every rollup from the bets in the database, reporting the days that had drifted.
+     * @param db the entity manager
+     * @return the number of days whose stored rollup was wrong
+     */
+    public static int rebuild(EntityManager db) {
+        Map<Integer, long[]> actual = new HashMap<Integer, long[]>();
+        sumPerDay(db, actual, 0, "SELECT b.eventDate, SUM(b.amountCents) FROM Bet b GROUP BY b.eventDate");
+        // Each prize is rounded to the cent on its own, as when it was paid, so they are added one by one
+        // and, as there is a row per winning bet, they are streamed
+        try (Stream<Object[]> won = QueryStream.of(db, "SELECT b.betID, b.eventDate, b.amountCents, b.userForecast.feeHundredths " +
+                "FROM Bet b WHERE b.active = false AND b.settled = true " +
+                "AND b.userForecast.question.correctForecast = b.userForecast AND b.betID > ?1 ORDER BY b.betID", Object[].class, row -> row[0], Integer.MIN_VALUE)) {
+            won.forEach(row -> add(actual, 1, (Date) row[1],
+                    Money.multiply(AggregateCounters.toLong(row[2]), AggregateCounters.toLong(row[3]))));
+        }
+        sumPerDay(db, actual, 2, "SELECT b.eventDate, SUM(b.amountCents) FROM Bet b " +
+                "WHERE b.active = false AND b.settled = true " +
+                "AND b.userForecast.question.correctForecast <> b.userForecast GROUP BY b.eventDate");
+
+        db.getTransaction().begin();
+        try {
+            int drifted = 0;
+            TypedQuery<DailyRollup> stored = db.createQuery("SELECT r FROM DailyRollup r", DailyRollup.class);
+            for (DailyRollup r : stored.getResultList()) {
+                long[] sums = actual.remove(r.getDay());
+                if (sums == null) sums = new long[3];
+                if (set(r, sums)) drifted++;
+            }
+            for (Map.Entry<Integer, long[]> e : actual.entrySet()) {
+                DailyRollup r = new DailyRollup(DailyRollup.toDate(e.getKey()));
+                db.persist(r);
+                if (set(r, e.getValue())) drifted++;
+            }
+            db.getTransaction().commit();
+            return drifted;
+        } finally {
+            if (db.getTransaction().isActive()) db.getTransaction().rollback();
+        }
+    }
+
+    /**
+     * Runs a query returning (event date, amount) pairs and adds the amounts to the given
+     * position of the sums of each day.
+     */
+    private static void sumPerDay(EntityManager db, Map<Integer, long[]> sums, int position, String query) {
+        TypedQuery<Object[]> q = db.createQuery(query, Object[].class);
+        for (Object[] row : q.getResultList()) add(sums, position, (Date) row[0], AggregateCounters.toLong(row[1]));
+    }
+
+    private static void add(Map<Integer, long[]> sums, int position, Date eventDate, long cents) {
+        int day = DailyRollup.toDay(Dates.convertToLocalDateViaInstant(eventDate));
+        long[] daySums = sums.computeIfAbsent(day, d -> new long[3]);
+        daySums[position] = Money.add(daySums[position], cents);
+    }
+
+    /**
+     * Overwrites a rollup with its actual values.
+     * @return true if the stored values were different
+     */
+    private static boolean set(DailyRollup r, long[] sums) {
+        boolean drifted = r.getAmountBetCents() != sums[0] || r.getPaidOutCents() != sums[1]
+                || r.getHouseNetCents() != sums[2];
+        if (drifted)
+            System.out.println("Daily rollup " + r.getDate() + " drifted: " + r + " -> amountBet=" + Money.format(sums[0]) +
+                    ", paidOut=" + Money.format(sums[1]) + ", houseNet=" + Money.format(sums[2]));
+
+        r.setAmountBetCents(sums[0]);
+        r.setPaidOutCents(sums[1]);
+        r.setHouseNetCents(sums[2]);
+        return drifted;
+    }
+}
@@ -5,17 +5,16 @@
     import configuration.UtilDate;
     import domain.*;
     import exceptions.*;
-    import utils.Dates;
+    import utils.Money;
 
     import javax.persistence.*;
     import java.nio.file.Files;
     import java.nio.file.Paths;
     import java.text.SimpleDateFormat;
     import java.time.LocalDate;
-    import java.time.temporal.ChronoUnit;
     import java.util.*;
-    import java.util.stream.Collectors;
-    import java.util.stream.IntStream;
+    import java.util.function.Function;
+    import java.util.function.ToDoubleFunction;
 
     /**
      * This class implements the Data Access utility to the objectDb database
@@ -27,7 +26,15 @@
 
         protected EntityManager  db;
         protected EntityManagerFactory emf;
-        protected Manager mg = new Manager();
+        // The pool that lent the current entity manager
+        private EntityManagerPool lender;
+
+        // Shared by all the instances, so the factory is only built once per process
+        private static EntityManagerPool pool;
+        private static boolean shutdownHookRegistered = false;
+
+        // Created on demand, only needed to synchronize the matches with the football API
+        protected Manager mg;
 
         ConfigXML config = ConfigXML.getInstance();
 
@@ -353,8 +360,8 @@
 
                 db.persist(userCard);
                 db.persist(adminCard);
-                updateDB();
                 db.getTransaction().commit();
+                updateDB();
                 // System.out.println("The database has been initialized");
             }
             catch (Exception e){
@@ -363,67 +370,111 @@
         }
 
         /**
-         * Updates the data base using the api.football-data.org
+         * Updates the data base using the api.football-data.org.
+         * Only the competitions and matches that changed since the previous update are written,
+         * and the questions of the matches that finished are settled.
+         * @return the number of events created or updated
+         * @throws IllegalStateException if some of the data could not be requested to the API
          */
-        public void updateDB()
+        public int updateDB()
         {
-            List<Competition> competitions = mg.getCompetitions();
-            List<Match> matches;
-
-            for(Competition c : competitions) {
-                //System.out.println(c);
-                db.persist(c);
-            }
-                matches = mg.getMatches();
-                if(matches != null) {
-                    for (Match m : matches) {
-                        Event ev = new Event(m.getHomeTeam().getName() + '-' + m.getAwayTeam().getName(), m.getUtcDate(), m.getCompetition().getArea().getName(), m);
-                        Question q1 = ev.addQuestion(ResourceBundle.getBundle("Etiquetas").getString("WinnerQuestion"), 1D);
-                        Question q2 = ev.addQuestion(ResourceBundle.getBundle("Etiquetas").getString("TieQuestion"), 2D);
-                        Forecast f1 = q1.addForecast(m.getHomeTeam().getName(), 2D);
-                        Forecast f2 = q1.addForecast(m.getAwayTeam().getName(), 2.4);
-                        Forecast f3 = q2.addForecast(ResourceBundle.getBundle("Etiquetas").getString("No"), 1D);
-                        Forecast f4 = q2.addForecast(ResourceBundle.getBundle("Etiquetas").getString("Yes"), 2D);
-                        db.persist(ev);
-                    }
-                }
-            }
+            if (mg == null) mg = new Manager();
+            return new MatchIngestion(db, mg, config.getIngestionParallelism(), config.getIngestionBatchSize()).run();
+        }
 
         /**
-         * It opens the database
+         * It opens the database.
+         * The entity manager factory is created only once per process and shared by every
+         * DataAccess instance. Each open borrows an entity manager from a bounded pool, that
+         * is given back when the database is closed.
          * @param initializeMode initialize mode of the database
          */
         public void open(boolean initializeMode){
+            // Give back the entity manager of a previous open that was never closed
+            if (db != null) close();
 
+            lender = getPool(initializeMode);
+            emf = lender.getFactory();
+            db = lender.acquire();
+        }
+
+        /**
+         * Returns the process-wide entity manager pool, creating the factory the first time.
+         * If initializeMode is true, the current factory (if any) is discarded and the database
+         * file is dropped and created again.
+         * @param initializeMode initialize mode of the database
+         * @return the entity manager pool
+         */
+        private static synchronized EntityManagerPool getPool(boolean initializeMode) {
+            if (pool != null && !initializeMode) return pool;
+            if (pool != null) pool.shutdown();
+
+            ConfigXML config = ConfigXML.getInstance();
             System.out.println("Opening DataAccess instance => isDatabaseLocal: " +
                     config.isDataAccessLocal() + " getDatabBaseOpenMode: " + config.getDataBaseOpenMode());
 
-            String fileName = config.getDataBaseFilename();
-
-            if (Files.exists(Paths.get(System.getProperty("user.home") + "/config/"))) {
-                System.out.println("Opening db from user.home");
-                fileName = System.getProperty("user.home") + "/config/" + fileName;
-                System.out.println("The file name is: " + fileName);
-            }
-            System.setProperty("objectdb.home", System.getProperty("user.home") + "/config"); // new $objectdb
+            String fileName = getDataBaseFileName();
+            System.out.println("The file name is: " + fileName);
 
             if (initializeMode) {
                 fileName = fileName + ";drop";
                 System.out.println("Deleting the DataBase");
             }
 
+            EntityManagerFactory factory;
             if (config.isDataAccessLocal()) {
-                emf = Persistence.createEntityManagerFactory("objectdb:" + fileName);
-                db = emf.createEntityManager();
+                factory = Persistence.createEntityManagerFactory("objectdb:" + fileName);
             } else {
                 Map<String, String> properties = new HashMap<String, String>();
                 properties.put("javax.persistence.jdbc.user", config.getDataBaseUser());
                 properties.put("javax.persistence.jdbc.password", config.getDataBasePassword());
 
-                emf = Persistence.createEntityManagerFactory("objectdb://" + config.getDataAccessNode() +
+                factory = Persistence.createEntityManagerFactory("objectdb://" + config.getDataAccessNode() +
                         ":"+config.getDataAccessPort() + "/" + fileName, properties);
+            }
+
+            pool = new EntityManagerPool(factory, config.getEntityManagerPoolSize(),
+                    config.getEntityManagerIdleTimeout() * 1000L, config.getEntityManagerAcquireTimeout() * 1000L);
+
+            if (!shutdownHookRegistered) {
+                Runtime.getRuntime().addShutdownHook(new Thread(DataAccess::shutdown));
+                shutdownHookRegistered = true;
+            }
+            return pool;
+        }
+
+        /**
+         * Returns the path of the database file set in the configuration. Relative paths are looked up
+         * in the config folder of the user home when it exists.
+         * @return the database file name
+         */
+        static String getDataBaseFileName() {
+            String fileName = ConfigXML.getInstance().getDataBaseFilename();
+
+            if (!Paths.get(fileName).isAbsolute() && Files.exists(Paths.get(System.getProperty("user.home") + "/config/"))) {
+                fileName = System.getProperty("user.home") + "/config/" + fileName;
+            }
+            System.setProperty("objectdb.home", System.getProperty("user.home") + "/config"); // new $objectdb
+            return fileName;
+        }
+
+        /**
+         * Returns the pool that lends entity managers to the DataAccess instances,
+         * so that its size, idle timeout and acquisition wait metrics can be inspected.
+         * @return the entity manager pool, or null if the database has not been opened yet
+         */
+        public static synchronized EntityManagerPool getEntityManagerPool() {
+            return pool;
+        }
 
-                db = emf.createEntityManager();
+        /**
+         * Closes every pooled entity manager and the shared entity manager factory.
+         * It is invoked automatically when the process exits.
+         */
+        public static synchronized void shutdown() {
+            if (pool != null) {
+                pool.shutdown();
+                pool = null;
             }
         }
 
@@ -448,7 +499,89 @@
         public List<Event> getEvents() {
             // System.out.println(">> DataAccess: getEvents");
             TypedQuery<Event> query = db.createQuery("SELECT ev FROM Event ev", Event.class);
-            return query.getResultList();
+            // The events list only shows how many questions each event has
+            return loadQuestions(query.getResultList(), false);
+        }
+
+        /**
+         * Retrieves one page of the events stored in the database, sorted by date.
+         * @param pageSize maximum number of events in the page
+         * @param token the continuation token of the previous page, or null to get the first page
+         * @param search text that the description or the country of the events must contain, or their id,
+         *               ignoring case; null or blank to get every event
+         * @return the page of events
+         */
+        public Page<Event> getEvents(int pageSize, String token, String search) {
+            // System.out.println(">> DataAccess: getEvents => pageSize = " + pageSize + " token = " + token);
+            String pattern = likePattern(search);
+            List<String> conditions = new ArrayList<String>();
+            if (token != null) conditions.add("(ev.eventDate > ?1 OR (ev.eventDate = ?1 AND ev.eventID > ?2))");
+            // The parameters of the search follow the ones of the token, if any
+            int p = conditions.size() * 2 + 1;
+            if (pattern != null) conditions.add("(LOWER(ev.description) LIKE ?" + p + " ESCAPE '\\' " +
+                    "OR LOWER(ev.country) LIKE ?" + p + " ESCAPE '\\' OR ev.eventID = ?" + (p + 1) + ")");
+            TypedQuery<Event> q = db.createQuery("SELECT ev FROM Event ev" + where(conditions) +
+                    " ORDER BY ev.eventDate, ev.eventID", Event.class);
+            if (token != null) {
+                long[] key = PageToken.decode(token, 2);
+                q.setParameter(1, new Date(key[0]));
+                q.setParameter(2, (int) key[1]);
+            }
+            if (pattern != null) {
+                q.setParameter(p, pattern);
+                q.setParameter(p + 1, idIn(search));
+            }
+            q.setMaxResults(pageSize + 1);
+            List<Event> events = loadQuestions(q.getResultList(), false);
+            return toPage(events, pageSize, e -> PageToken.encode(e.getEventDate().getTime(), e.getEventID()));
+        }
+
+        /**
+         * Returns the pattern of a LIKE condition matching the values that contain the given text,
+         * ignoring case, with its wildcards escaped by a backslash.
+         * @param search the text searched
+         * @return the pattern, or null if the text is null or blank
+         */
+        private static String likePattern(String search) {
+            if (search == null || search.trim().isEmpty()) return null;
+            String escaped = search.trim().toLowerCase().replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+            return "%" + escaped + "%";
+        }
+
+        /**
+         * Returns the id searched by a text, so that rows can also be found by their id.
+         * @param search the text searched
+         * @return the number in the text, or -1 if it is not a number
+         */
+        private static int idIn(String search) {
+            try {
+                return Integer.parseInt(search.trim());
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+
+        /**
+         * Joins the conditions of a query in its WHERE clause.
+         * @param conditions the conditions, all of which must hold
+         * @return the WHERE clause, or an empty string if there are no conditions
+         */
+        private static String where(List<String> conditions) {
+            return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+        }
+
+        /**
+         * Builds a page from the rows returned by a paged query, that asks for one row more than
+         * the page size to know whether there is a next page.
+         * @param rows the rows returned by the query
+         * @param pageSize the page size
+         * @param keyOf function that returns the continuation token of a row
+         * @return the page
+         */
+        private <T> Page<T> toPage(List<T> rows, int pageSize, Function<T, String> keyOf) {
+            if (rows.size() <= pageSize) return new Page<T>(rows, null);
+            List<T> items = new ArrayList<T>(rows.subList(0, pageSize));
+            return new Page<T>(items, keyOf.apply(items.get(pageSize - 1)));
         }
 
         /**
@@ -461,7 +594,7 @@
             TypedQuery<Event> q = db.createQuery("SELECT ev FROM Event ev WHERE ev.eventDate=?1",
                     Event.class);
             q.setParameter(1, date);
-            return q.getResultList();
+            return loadQuestions(q.getResultList(), true);
         }
 
         /**
@@ -476,32 +609,18 @@
                     Event.class);
             q.setParameter(1, date);
             q.setParameter(2, competitionID);
-            return q.getResultList();
+            return loadQuestions(q.getResultList(), true);
         }
 
         /**
-         * It retrieves from the database the dates in a month for which there are events
+         * It retrieves from the database the days in a month for which there are events.
+         * They are read from the event calendar of the month, without going through the events.
          * @param date date of the month for which days with events want to be retrieved
-         * @return collection of dates
+         * @return collection of dates, at the start of each day
          */
         public Vector<Date> getEventsMonth(Date date) {
             // System.out.println(">> DataAccess: getEventsMonth");
-            Vector<Date> res = new Vector<Date>();
-
-            Date firstDayMonthDate= UtilDate.firstDayMonth(date);
-            Date lastDayMonthDate= UtilDate.lastDayMonth(date);
-
-
-            TypedQuery<Date> query = db.createQuery("SELECT DISTINCT ev.eventDate FROM Event ev "
-                    + "WHERE ev.eventDate BETWEEN ?1 and ?2", Date.class);
-            query.setParameter(1, firstDayMonthDate);
-            query.setParameter(2, lastDayMonthDate);
-            List<Date> dates = query.getResultList();
-            for (Date d:dates){
-                // System.out.println(d.toString());
-                res.add(d);
-            }
-            return res;
+            return EventCalendar.days(db, date);
         }
 
         /**
@@ -513,7 +632,24 @@
             // System.out.println(">> DataAccess: getEventsCountry");
             TypedQuery<Event> query = db.createQuery("SELECT ev FROM Event ev WHERE ev.country=?1", Event.class);
             query.setParameter(1, country);
-            return query.getResultList();
+            return loadQuestions(query.getResultList(), true);
+        }
+
+        /**
+         * Loads the lazy questions (and optionally their forecasts) of the given events, so they
+         * can still be read once the entity manager is released.
+         * Only the events actually returned to the client are loaded.
+         * @param events the events
+         * @param withForecasts true to also load the forecasts of each question
+         * @return the same events
+         */
+        private List<Event> loadQuestions(List<Event> events, boolean withForecasts) {
+            for (Event e: events) {
+                List<Question> questions = e.getQuestions();
+                questions.size();
+                if (withForecasts) for (Question q: questions) q.getForecasts().size();
+            }
+            return events;
         }
 
         /**
@@ -595,39 +731,40 @@
             db.getTransaction().begin();
             Event event = new Event(description, date, country, match);
             db.persist(event);
+            EventCalendar.add(db, date);
             db.getTransaction().commit();
 
             return event;
         }
 
         /**
-         * Removes the event with the given id.
+         * Returns the event a question, a forecast or the event itself belongs to, so the caches
+         * holding it can be invalidated when it changes.
+         * @param type Event, Question or Forecast
+         * @param id the id of the object
+         * @return the event, or null if the object does not exist
+         */
+        public Event findEventOf(Class<?> type, int id) {
+            if (type == Forecast.class) {
+                Forecast f = db.find(Forecast.class, id);
+                return f != null ? f.getQuestion().getEvent() : null;
+            }
+            if (type == Question.class) {
+                Question q = db.find(Question.class, id);
+                return q != null ? q.getEvent() : null;
+            }
+            return db.find(Event.class, id);
+        }
+
+        /**
+         * Removes the event with the given id, refunding its bets in chunks.
          * @param eventID the id of the event to be removed
          */
         public void removeEvent(Integer eventID) {
             // System.out.println(">> DataAccess: removeEvent => eventID = " + eventID);
-            Event e = db.find(Event.class, eventID);
-
-            // Remove all bets related to this event
-            TypedQuery<Bet> query = db.createQuery("SELECT b FROM Bet b WHERE b.userForecast.question.event=?1", Bet.class);
-            query.setParameter(1, e);
-
-            List<Bet> associatedBets = query.getResultList();
-            for (Bet b: associatedBets) removeBet(b.getBetID());
 
-            // Remove the event (associated forecasts and questions will also be deleted
-            // thanks to cascade = CascadeType.ALL)
-            db.getTransaction().begin();
-            db.remove(e);
-            db.getTransaction().commit();
-
-            // (Optional) Count the number of questions, forecasts and bets removed
-            int countQ = e.getQuestions().size();
-            int countF = e.getQuestions().stream().mapToInt(q -> q.getForecasts().size()).sum();
-            // System.out.println("Event removed");
-            // System.out.println("Questions removed: " + countQ);
-            // System.out.println("Forecasts removed: " + countF);
-            // System.out.println("Bets removed: " + associatedBets.size());
+            // The associated questions and forecasts are also deleted thanks to cascade = CascadeType.ALL
+            new BetRemovalPipeline(db, config.getRemovalChunkSize()).removeEvent(eventID);
         }
 
 
@@ -667,39 +804,23 @@
                     Question.class);
             query.setParameter(1, event);
             List<Question> questions = query.getResultList();
-            for (Question qu:questions) que.add(qu);
+            for (Question qu:questions) {
+                qu.getForecasts().size(); // load the lazy forecasts
+                que.add(qu);
+            }
 
             return que;
         }
 
         /**
-         * Removes the question with the given id.
+         * Removes the question with the given id, refunding its bets in chunks.
          * @param questionID the id of the question to be removed
          */
         public void removeQuestion(int questionID) {
             // System.out.println(">> DataAccess: removeQuestion => questionID = " + questionID);
-            Question q = db.find(Question.class, questionID);
-            Event e = db.find(Event.class, q.getEvent());
-
-            // Remove all bets related to this question
-            TypedQuery<Bet> query = db.createQuery("SELECT b FROM Bet b WHERE b.userForecast.question=?1", Bet.class);
-            query.setParameter(1, q);
-
-            List<Bet> associatedBets = query.getResultList();
-            for (Bet b: associatedBets) removeBet(b.getBetID());
-
-            // Remove the question (associated forecasts will also be deleted
-            // thanks to cascade = CascadeType.ALL)
-            db.getTransaction().begin();
-            db.remove(q);
-            e.getQuestions().remove(q);
-            db.getTransaction().commit();
 
-            // (Optional) Count the number of forecasts and bets removed
-            int countF = q.getForecasts().size();
-            // System.out.println("Question removed");
-            // System.out.println("Forecasts removed: " + countF);
-            // System.out.println("Bets removed: " + associatedBets.size());
+            // The associated forecasts are also deleted thanks to cascade = CascadeType.ALL
+            new BetRemovalPipeline(db, config.getRemovalChunkSize()).removeQuestion(questionID);
         }
 
         /**
@@ -724,29 +845,33 @@
         public void publishResult(int qID, int fID) {
             // System.out.println(">> DataAccess: publishResult => qID = " + qID + " fID = " + fID);
 
-            // Find the questions and correct forecast in the db
-            Question q = db.find(Question.class, qID);
-            Forecast f = db.find(Forecast.class, fID);
+            // The bets are paid in chunks, committing after each one
+            new BetSettlementEngine(db, config.getSettlementChunkSize()).settle(qID, fID);
+        }
 
-            db.getTransaction().begin();
-            q.setCorrectForecast(f);
-            // Get the correct bets
-            TypedQuery<Bet> query = db.createQuery("SELECT b FROM Bet b WHERE b.userForecast=?1", Bet.class);
-            query.setParameter(1, f);
-
-            // Add to winners the corresponding amount (and register the transaction)
-            for (Bet b: query.getResultList()) {
-                Date today = Calendar.getInstance().getTime();
-                double wonAmount = b.getAmount() * b.getUserForecast().getFee();
-
-                // Find user in db
-                User u = db.find(User.class, b.getGambler());
-                // Add the amount to winner
-                u.depositMoneyIntoWallet(wonAmount);
-                // Register the transaction
-                u.getCard().addTransaction(0, "Won bet " + b.getBetID(), wonAmount, today);
-            }
-            db.getTransaction().commit();
+        /**
+         * It finishes the settlements that were interrupted before paying all the bets
+         * (e.g. because the application was stopped while publishing a result)
+         */
+        public void resumePendingSettlements() {
+            new BetSettlementEngine(db, config.getSettlementChunkSize()).resumePending();
+        }
+
+        /**
+         * It finishes the removals of events, questions and forecasts that were interrupted before
+         * refunding all their bets (e.g. because the application was stopped while removing them)
+         * @return the number of removals finished
+         */
+        public int resumePendingRemovals() {
+            return new BetRemovalPipeline(db, config.getRemovalChunkSize()).resumePending().size();
+        }
+
+        /**
+         * Retrieves the removals of events, questions and forecasts whose bets are still being refunded.
+         * @return the pending removals, with their progress
+         */
+        public List<PendingRemoval> getPendingRemovals() {
+            return new BetRemovalPipeline(db, config.getRemovalChunkSize()).getPending();
         }
 
 
@@ -779,29 +904,12 @@
         }
 
         /**
-         * Removes the forecast with the given id from the database
+         * Removes the forecast with the given id from the database, refunding its bets in chunks.
          * @param forecastID the forecast identification
          */
         public void removeForecast(int forecastID) {
             // System.out.println(">> DataAccess: removeForecast => questionID = " + forecastID);
-            Forecast f = db.find(Forecast.class, forecastID);
-            Question q = db.find(Question.class, f.getQuestion());
-
-            // Remove all bets related to this forecast
-            TypedQuery<Bet> query = db.createQuery("SELECT b FROM Bet b WHERE b.userForecast=?1", Bet.class);
-            query.setParameter(1, f);
-
-            List<Bet> associatedBets = query.getResultList();
-            for (Bet b: associatedBets) removeBet(b.getBetID());
-
-            // Remove the forecast
-            db.getTransaction().begin();
-            q.getForecasts().remove(f);
-            db.getTransaction().commit();
-
-            // (Optional) Count the number of bets removed
-            // System.out.println("Forecast removed");
-            // System.out.println("Bets removed: " + associatedBets.size());
+            new BetRemovalPipeline(db, config.getRemovalChunkSize()).removeForecast(forecastID);
         }
 
 
@@ -812,7 +920,7 @@
          * @return all the active bets stored in the db
          */
         public List<Bet> getActiveBets() {
-            TypedQuery<Bet> q = db.createQuery("SELECT b FROM Bet b WHERE b.userForecast.question.correctForecast IS NULL", Bet.class);
+            TypedQuery<Bet> q = db.createQuery("SELECT b FROM Bet b WHERE b.active = true", Bet.class);
             return q.getResultList();
         }
 
@@ -828,13 +936,27 @@
          * @throws MinBetException Exception for when user inserts less fee than required.
          */
         public void setBet(Double betAmount, Forecast forecast, User gambler) throws BetAlreadyExistsException, LateBetException, LiquidityLackException, MinBetException, UserNotFoundException
+        {
+            // Retried from the start if the wallet is changed by another transaction meanwhile
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    placeBet(betAmount, forecast, gambler);
+                    return;
+                } catch (RuntimeException e) {
+                    if (!OptimisticRetry.shouldRetry(db, e, attempt)) throw e;
+                }
+            }
+        }
+
+        private void placeBet(Double betAmount, Forecast forecast, User gambler) throws BetAlreadyExistsException, LateBetException, LiquidityLackException, MinBetException, UserNotFoundException
         {
             // Check if user exists
             User user = db.find(User.class, gambler.getUserID());
             if (user == null) throw new UserNotFoundException();
 
-            // check for liquidity
-            if(gambler.getWallet() - betAmount < 0) throw new LiquidityLackException();
+            // check for liquidity, with the wallet in the database rather than the one sent by the client
+            long amount = Money.toCents(betAmount);
+            if(user.getWalletCents() < amount) throw new LiquidityLackException();
 
             // check if bet already exists
             if(getBet(gambler, forecast) != null) throw new BetAlreadyExistsException();
@@ -845,19 +967,149 @@
             if (today.compareTo(eventDate) > 0) throw new LateBetException();
 
             // check if minimum bet is surpassed
-            if(betAmount < forecast.getQuestion().getBetMinimum()) throw new MinBetException();
+            if(amount < Money.toCents(forecast.getQuestion().getBetMinimum())) throw new MinBetException();
 
             // Perform the bet
             db.getTransaction().begin();
-            user.setWallet(gambler.getWallet() - betAmount);
+            // Locked until the bet is committed, so the result cannot be published while it is placed
+            if (lockQuestion(forecast.getQuestion().getQuestionID()).getCorrectForecast() != null) {
+                db.getTransaction().rollback();
+                throw new LateBetException("The result of the question is already published");
+            }
+            user.setWalletCents(Money.subtract(user.getWalletCents(), amount));
             user.addBet(betAmount, forecast);
             Calendar cal = Calendar.getInstance();
-            user.getCard().addTransaction(1, "Bet placed", betAmount, cal.getTime());
+            Ledger.append(db, user, 1, "Bet placed", amount, cal.getTime(), config.getLedgerSnapshotInterval());
             db.persist(user);
+            AggregateCounters.add(db, AggregateCounter.ACTIVE_BETS, 1, amount);
+            DailyRollups.add(db, eventDate, amount, 0, 0);
+            UserStatsRecords.update(db, user.getUserID()).placed(amount);
             db.getTransaction().commit();
             // System.out.println("Bet has been saved.");
         }
 
+        /**
+         * Places all the bets of a bet slip for the given gambler, or none of them. Every bet is
+         * checked against the same reading of the wallet and the existing bets, as placeBet does
+         * for a single one, and then they are all placed in a single transaction.
+         * @param slip the bets to place
+         * @param gambler the user who places the bets
+         * @return the outcome of each bet, in the order of the slip
+         * @throws UserNotFoundException if the gambler does not exist
+         */
+        public List<BetResult> setBets(List<BetRequest> slip, User gambler) throws UserNotFoundException
+        {
+            // Retried from the start if the wallet is changed by another transaction meanwhile
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    return placeBets(slip, gambler);
+                } catch (RuntimeException e) {
+                    if (!OptimisticRetry.shouldRetry(db, e, attempt)) throw e;
+                } finally {
+                    if (db.getTransaction().isActive()) db.getTransaction().rollback();
+                }
+            }
+        }
+
+        private List<BetResult> placeBets(List<BetRequest> slip, User gambler) throws UserNotFoundException
+        {
+            User user = db.find(User.class, gambler.getUserID());
+            if (user == null) throw new UserNotFoundException();
+
+            // The forecasts of the slip and the ones of them the user has already bet on, in two queries
+            Set<Integer> ids = new HashSet<Integer>();
+            for (BetRequest r : slip) ids.add(r.getForecastID());
+            Map<Integer, Forecast> forecasts = new HashMap<Integer, Forecast>();
+            Set<Integer> alreadyBet = new HashSet<Integer>();
+            if (!ids.isEmpty()) {
+                TypedQuery<Forecast> fq = db.createQuery("SELECT f FROM Forecast f WHERE f.forecastID IN ?1", Forecast.class);
+                fq.setParameter(1, ids);
+                for (Forecast f : fq.getResultList()) forecasts.put(f.getForecastID(), f);
+                TypedQuery<Integer> bq = db.createQuery("SELECT b.userForecast.forecastID FROM Bet b " +
+                        "WHERE b.gambler = ?1 AND b.userForecast.forecastID IN ?2", Integer.class);
+                bq.setParameter(1, user);
+                bq.setParameter(2, ids);
+                alreadyBet.addAll(bq.getResultList());
+            }
+
+            Date today = Calendar.getInstance().getTime();
+            List<BetResult> results = new ArrayList<BetResult>();
+            long total = 0;
+            boolean rejected = false;
+            for (BetRequest r : slip) {
+                Forecast f = forecasts.get(r.getForecastID());
+                long amount = r.getAmount() == null ? 0 : Money.toCents(r.getAmount());
+                int status;
+                if (f == null) status = BetResult.FORECAST_NOT_FOUND;
+                else if (!alreadyBet.add(f.getForecastID())) status = BetResult.ALREADY_EXISTS;
+                else if (today.compareTo(f.getQuestion().getEvent().getEventDate()) > 0) status = BetResult.LATE;
+                else if (amount < Money.toCents(f.getQuestion().getBetMinimum())) status = BetResult.BELOW_MINIMUM;
+                else if (Money.add(total, amount) > user.getWalletCents()) status = BetResult.NOT_ENOUGH_MONEY;
+                else {
+                    status = BetResult.PLACED;
+                    total = Money.add(total, amount);
+                }
+                rejected |= status != BetResult.PLACED;
+                results.add(new BetResult(r.getForecastID(), status));
+            }
+            if (rejected || slip.isEmpty()) {
+                for (BetResult result : results)
+                    if (result.isPlaced()) result.setStatus(BetResult.NOT_PLACED);
+                return results;
+            }
+
+            // Perform the bets
+            db.getTransaction().begin();
+            Set<Integer> published = new HashSet<Integer>();
+            for (Forecast f : forecasts.values()) {
+                int questionID = f.getQuestion().getQuestionID();
+                if (!published.contains(questionID) && lockQuestion(questionID).getCorrectForecast() != null)
+                    published.add(questionID);
+            }
+            if (!published.isEmpty()) {
+                db.getTransaction().rollback();
+                for (BetResult result : results)
+                    result.setStatus(published.contains(forecasts.get(result.getForecastID()).getQuestion().getQuestionID())
+                            ? BetResult.LATE : BetResult.NOT_PLACED);
+                return results;
+            }
+            List<Bet> placed = new ArrayList<Bet>();
+            Map<Date, Long> perEventDate = new HashMap<Date, Long>();
+            int snapshotInterval = config.getLedgerSnapshotInterval();
+            for (BetRequest r : slip) {
+                Forecast f = forecasts.get(r.getForecastID());
+                Bet bet = user.addBet(r.getAmount(), f);
+                placed.add(bet);
+                // Each entry of the ledger records the balance after its own bet
+                user.setWalletCents(Money.subtract(user.getWalletCents(), bet.getAmountCents()));
+                Ledger.append(db, user, 1, "Bet placed", bet.getAmountCents(), today, snapshotInterval);
+                perEventDate.merge(f.getQuestion().getEvent().getEventDate(), bet.getAmountCents(), Money::add);
+            }
+            db.persist(user);
+            AggregateCounters.add(db, AggregateCounter.ACTIVE_BETS, slip.size(), total);
+            for (Map.Entry<Date, Long> e : perEventDate.entrySet()) DailyRollups.add(db, e.getKey(), e.getValue(), 0, 0);
+            UserStats stats = UserStatsRecords.update(db, user.getUserID());
+            for (Bet bet : placed) stats.placed(bet.getAmountCents());
+            db.getTransaction().commit();
+
+            for (int i = 0; i < results.size(); i++) results.get(i).setBetID(placed.get(i).getBetID());
+            return results;
+        }
+
+        /**
+         * Reads a question again and locks it until the active transaction ends. Settlements lock it
+         * too when they publish its result, so a bet is either counted by the settlement or sees
+         * the published result and is refused.
+         * @param questionID the id of the question
+         * @return the question, as currently stored
+         */
+        private Question lockQuestion(int questionID)
+        {
+            Question question = db.find(Question.class, questionID);
+            db.refresh(question, LockModeType.PESSIMISTIC_WRITE);
+            return question;
+        }
+
         /**
          * Returns the single possible bet for a given gambler and the gambler's forecast.
          * @param gambler The user to get the bet from.
@@ -886,12 +1138,57 @@
             // System.out.println(">> DataAccess: getNumberOfActiveBets");
             User u = db.find(User.class, gambler.getUserID());
 
-            TypedQuery<Bet> q = db.createQuery("SELECT b FROM Bet b WHERE b.gambler = ?1 AND b.userForecast.question.correctForecast IS NULL", Bet.class);
+            TypedQuery<Bet> q = db.createQuery("SELECT b FROM Bet b WHERE b.gambler = ?1 AND b.active = true", Bet.class);
             q.setParameter(1, u);
 
             return q.getResultList();
         }
 
+        /**
+         * Returns one page of the active bets made by the given user, sorted by id.
+         * @param gambler the user who made the bets
+         * @param pageSize maximum number of bets in the page
+         * @param token the continuation token of the previous page, or null to get the first page
+         * @return the page of active bets
+         */
+        public Page<Bet> getActiveBets(User gambler, int pageSize, String token) {
+            User u = db.find(User.class, gambler.getUserID());
+
+            TypedQuery<Bet> q = db.createQuery("SELECT b FROM Bet b WHERE b.gambler = ?1 AND b.active = true " +
+                    "AND b.betID > ?2 ORDER BY b.betID", Bet.class);
+            q.setParameter(1, u);
+            q.setParameter(2, token == null ? Integer.MIN_VALUE : (int) PageToken.decode(token, 1)[0]);
+            q.setMaxResults(pageSize + 1);
+
+            return toPage(q.getResultList(), pageSize, b -> PageToken.encode(b.getBetID()));
+        }
+
+        /**
+         * Retrieves the betting statistics of the given user.
+         * @param gambler the user
+         * @return the statistics of the user
+         */
+        public UserStats getUserStats(User gambler) {
+            return UserStatsRecords.get(db, gambler.getUserID());
+        }
+
+        /**
+         * Computes all the figures of the overview of the given user: the betting statistics,
+         * the next events and the wallet after each active day of the last month.
+         * @param user the user
+         * @param upcomingEvents the number of upcoming events to include
+         * @return the snapshot of the figures
+         */
+        public UserDashboard getUserDashboard(User user, int upcomingEvents) {
+            Calendar cal = Calendar.getInstance();
+            Date today = cal.getTime();
+            cal.add(Calendar.MONTH, -1);
+
+            TreeMap<String, Double> walletPerDay = new TreeMap<String, Double>();
+            getDailyBalances(user, cal.getTime(), today).forEach((day, balance) -> walletPerDay.put(day.toString(), balance));
+            return new UserDashboard(getUserStats(user), getUpcomingEvents(upcomingEvents), walletPerDay, today);
+        }
+
         /**
          * Retrieves the total number of active bets (this is,
          * the ones that have no correct forecast defined yet)
@@ -899,24 +1196,45 @@
          */
         public long countActiveBets() {
             // System.out.println(">> DataAccess: countActiveBets");
-
-            TypedQuery<Long> q = db.createQuery("SELECT COUNT(b) FROM Bet b WHERE b.userForecast.question.correctForecast IS NULL", Long.class);
-            return q.getSingleResult();
+            return AggregateCounters.get(db, AggregateCounter.ACTIVE_BETS).getCount();
         }
 
         public void removeBet(Integer betID) {
+            // Retried from the start if the wallet is changed by another transaction meanwhile
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    refundBet(betID);
+                    return;
+                } catch (RuntimeException e) {
+                    if (!OptimisticRetry.shouldRetry(db, e, attempt)) throw e;
+                }
+            }
+        }
+
+        private void refundBet(Integer betID) {
             Bet bet = db.find(Bet.class, betID);
             User user = db.find(User.class, bet.getGambler());
-            Double amountToRefund = bet.getAmount();
+            long amountToRefund = bet.getAmountCents();
+            Question question = bet.getUserForecast().getQuestion();
+            Forecast correct = question.getCorrectForecast();
+            boolean active = correct == null;
 
             db.getTransaction().begin();
             // Delete the bet
             user.removeBet(bet);
+            if (active) AggregateCounters.add(db, AggregateCounter.ACTIVE_BETS, -1, -amountToRefund);
+            // Remove the bet from the daily rollup (including its result, if the settlement already booked it)
+            boolean settled = bet.isSettled();
+            boolean won = settled && correct.equals(bet.getUserForecast());
+            long wonAmount = won ? Money.multiply(amountToRefund, bet.getUserForecast().getFeeHundredths()) : 0;
+            DailyRollups.add(db, question.getEvent().getEventDate(), -amountToRefund, -wonAmount,
+                    settled && !won ? -amountToRefund : 0);
+            UserStatsRecords.update(db, user.getUserID()).refunded(amountToRefund, active, won, wonAmount);
             // Refund the money
             user.depositMoneyIntoWallet(amountToRefund);
             // Register the transaction
             Calendar cal = Calendar.getInstance();
-            user.getCard().addTransaction(0, "Bet refund", amountToRefund, cal.getTime());
+            Ledger.append(db, user, 0, "Bet refund", amountToRefund, cal.getTime(), config.getLedgerSnapshotInterval());
             db.persist(user);
             db.getTransaction().commit();
         }
@@ -926,50 +1244,46 @@
          * @return the sum of the money bet in all the active bets
          */
         public double getActiveMoney() {
-            // Get all the active bets
-            List<Bet> activeBets = getActiveBets();
-            return activeBets.stream().mapToDouble(b -> b.getAmount()).sum();
+            return AggregateCounters.get(db, AggregateCounter.ACTIVE_BETS).getAmount();
+        }
+
+        /**
+         * Rebuilds the aggregate counters, the daily rollups, the event calendar and the statistics
+         * of the users from scratch, reporting the ones that had drifted.
+         * @return the number of counters, daily rollups, calendar months and user statistics whose value was wrong
+         */
+        public int reconcileCounters() {
+            return AggregateCounters.reconcile(db) + DailyRollups.rebuild(db) + EventCalendar.rebuild(db)
+                    + UserStatsRecords.rebuild(db);
+        }
+
+        /**
+         * Moves the amounts of money still stored as doubles to their fields in cents.
+         * The aggregate counters and daily rollups must be rebuilt afterwards.
+         * @return the number of objects migrated
+         */
+        public long migrateMoney() {
+            return MoneyMigration.migrate(db);
+        }
+
+        /**
+         * Copies the question, event, event date and active state into the bets that do not have them.
+         * The aggregate counters and daily rollups must be rebuilt afterwards.
+         * @return the number of bets filled
+         */
+        public long migrateBetColumns() {
+            return BetColumnsMigration.migrate(db);
         }
 
         /**
-         * Returns the money bet by all users last month and have already a correct forecast
+         * Returns the money bet by all users last month.
          * Note: the date of the bet is not recorded. Instead, the date of the event is taken into account.
          * So the criteria used to group the amounts is actually the event date
          * @returns a map with days as keys and the sum of each day as value
          */
         public Map<LocalDate, Double> moneyBetPerDayLastMonth() {
-            // Dates between today and one month ago
-            Calendar cal = Calendar.getInstance();
-            Date today = cal.getTime();
-            cal.add(Calendar.MONTH, -1);
-            Date monthAgo = cal.getTime();
-
-            // Get all bets of last month
-            TypedQuery<Bet> q = db.createQuery("SELECT b FROM Bet b WHERE b.userForecast.question.event.eventDate > ?1 and b.userForecast.question.event.eventDate < ?2", Bet.class);
-            q.setParameter(1, monthAgo);
-            q.setParameter(2, today);
-            List<Bet> bets = q.getResultList();
-
-            // Get all days of last month
-            LocalDate startDate = Dates.convertToLocalDateViaInstant(monthAgo);
-            LocalDate endDate = Dates.convertToLocalDateViaInstant(today);
-            long numOfDaysBetween = ChronoUnit.DAYS.between(startDate, endDate) + 1; // also today
-            List<LocalDate> daysOfMonth = IntStream.iterate(0, i -> i + 1)
-                    .limit(numOfDaysBetween)
-                    .mapToObj(i -> startDate.plusDays(i))
-                    .collect(Collectors.toList());
-
-            // Add all days to the final map
-            Map<LocalDate, Double> perDay = new TreeMap<LocalDate, Double>();
-            for (LocalDate ld: daysOfMonth) perDay.put(ld, 0D);
-
-            // Add all the money to each date
-            for (Bet b: bets) {
-                LocalDate eventDate = Dates.convertToLocalDateViaInstant(b.getUserForecast().getQuestion().getEvent().getEventDate());
-                perDay.put(eventDate, perDay.get(eventDate) + b.getAmount());
-            }
-
-            return perDay;
+            LocalDate today = LocalDate.now();
+            return moneyBetPerDay(today.minusMonths(1), today);
         }
 
         /**
@@ -981,91 +1295,96 @@
          * @returns a map with days as keys and the sum of each day as value
          */
         public Map<LocalDate, Double> wonByUsersLastMonth() {
-            // Dates between today and one month ago
-            Calendar cal = Calendar.getInstance();
-            Date today = cal.getTime();
-            cal.add(Calendar.MONTH, -1);
-            Date monthAgo = cal.getTime();
+            LocalDate today = LocalDate.now();
+            return wonByUsersPerDay(today.minusMonths(1), today);
+        }
 
-            // Get all bets of last month
-            TypedQuery<Bet> q = db.createQuery("SELECT b FROM Bet b WHERE b.userForecast.question.event.eventDate > ?1 and b.userForecast.question.event.eventDate < ?2 and b.userForecast.question.correctForecast IS NOT NULL", Bet.class);
-            q.setParameter(1, monthAgo);
-            q.setParameter(2, today);
-            List<Bet> bets = q.getResultList();
+        /**
+         * Returns the money won by BetAndRuin betting last month.
+         * @returns the money won by users betting last  month
+         */
+        public Map<LocalDate, Double> wonByBetAndRuinLastMonth() {
+            LocalDate today = LocalDate.now();
+            return wonByBetAndRuinPerDay(today.minusMonths(1), today);
+        }
 
-            // Filter won bets
-            List<Bet> wonBets = bets
-                    .stream()
-                    .filter(b -> b.getUserForecast().equals(b.getUserForecast().getQuestion().getCorrectForecast()))
-                    .toList();
-
-            // Get all days of last month
-            LocalDate startDate = Dates.convertToLocalDateViaInstant(monthAgo);
-            LocalDate endDate = Dates.convertToLocalDateViaInstant(today);
-            long numOfDaysBetween = ChronoUnit.DAYS.between(startDate, endDate) + 1; // also today
-            List<LocalDate> daysOfMonth = IntStream.iterate(0, i -> i + 1)
-                    .limit(numOfDaysBetween)
-                    .mapToObj(i -> startDate.plusDays(i))
-                    .collect(Collectors.toList());
-
-            // Add all days to the final map
-            Map<LocalDate, Double> perDay = new TreeMap<LocalDate, Double>();
-            for (LocalDate ld: daysOfMonth) perDay.put(ld, 0D);
+        /**
+         * Returns the money bet by all users in the events of each day between the given dates (both included).
+         * @param from first day
+         * @param to last day
+         * @return a map with days as keys and the sum of each day as value
+         */
+        public Map<LocalDate, Double> moneyBetPerDay(LocalDate from, LocalDate to) {
+            return perDay(from, to, DailyRollup::getAmountBet);
+        }
 
-            // Add all the amount bet * forecast fee to the result
-            for (Bet b: wonBets) {
-                LocalDate eventDate = Dates.convertToLocalDateViaInstant(b.getUserForecast().getQuestion().getEvent().getEventDate());
-                perDay.put(eventDate, perDay.get(eventDate) + (b.getAmount() * b.getUserForecast().getFee()));
-            }
+        /**
+         * Returns the money won by users in the events of each day between the given dates (both included).
+         * @param from first day
+         * @param to last day
+         * @return a map with days as keys and the sum of each day as value
+         */
+        public Map<LocalDate, Double> wonByUsersPerDay(LocalDate from, LocalDate to) {
+            return perDay(from, to, DailyRollup::getPaidOut);
+        }
 
-            return perDay;
+        /**
+         * Returns the money won by BetAndRuin (the amount of the lost bets) in the events of each day
+         * between the given dates (both included).
+         * @param from first day
+         * @param to last day
+         * @return a map with days as keys and the sum of each day as value
+         */
+        public Map<LocalDate, Double> wonByBetAndRuinPerDay(LocalDate from, LocalDate to) {
+            return perDay(from, to, DailyRollup::getHouseNet);
         }
 
         /**
-         * Returns the money won by BetAndRuin betting last month.
-         * @returns the money won by users betting last  month
+         * Returns the daily rollups between the given dates (both included).
+         * Days without bets have no rollup.
+         * @param from first day
+         * @param to last day
+         * @return the rollups sorted by day
          */
-        public Map<LocalDate, Double> wonByBetAndRuinLastMonth() {
-            // Dates between today and one month ago
-            Calendar cal = Calendar.getInstance();
-            Date today = cal.getTime();
-            cal.add(Calendar.MONTH, -1);
-            Date monthAgo = cal.getTime();
+        public List<DailyRollup> getDailyRollups(LocalDate from, LocalDate to) {
+            return DailyRollups.range(db, from, to);
+        }
 
-            // Get all bets of last month
-            TypedQuery<Bet> q = db.createQuery("SELECT b FROM Bet b WHERE b.userForecast.question.event.eventDate > ?1 and b.userForecast.question.event.eventDate < ?2 and b.userForecast.question.correctForecast IS NOT NULL", Bet.class);
-            q.setParameter(1, monthAgo);
-            q.setParameter(2, today);
-            List<Bet> bets = q.getResultList();
+        /**
+         * Builds a map with every day between the given dates (both included) and the given value
+         * of the rollup of each day, or 0 if there were no bets that day.
+         */
+        private Map<LocalDate, Double> perDay(LocalDate from, LocalDate to, ToDoubleFunction<DailyRollup> value) {
+            return perDay(from, to, DailyRollups.range(db, from, to), value);
+        }
 
-            // Filter lost bets
-            List<Bet> wonBets = bets
-                    .stream()
-                    .filter(b -> !b.getUserForecast().equals(b.getUserForecast().getQuestion().getCorrectForecast()))
-                    .toList();
-
-            // Get all days of last month
-            LocalDate startDate = Dates.convertToLocalDateViaInstant(monthAgo);
-            LocalDate endDate = Dates.convertToLocalDateViaInstant(today);
-            long numOfDaysBetween = ChronoUnit.DAYS.between(startDate, endDate) + 1; // also today
-            List<LocalDate> daysOfMonth = IntStream.iterate(0, i -> i + 1)
-                    .limit(numOfDaysBetween)
-                    .mapToObj(i -> startDate.plusDays(i))
-                    .collect(Collectors.toList());
-
-            // Add all days to the final map
+        private Map<LocalDate, Double> perDay(LocalDate from, LocalDate to, List<DailyRollup> rollups,
+                                              ToDoubleFunction<DailyRollup> value) {
             Map<LocalDate, Double> perDay = new TreeMap<LocalDate, Double>();
-            for (LocalDate ld: daysOfMonth) perDay.put(ld, 0D);
-
-            // Add all the amount bet * forecast fee to the result
-            for (Bet b: wonBets) {
-                LocalDate eventDate = Dates.convertToLocalDateViaInstant(b.getUserForecast().getQuestion().getEvent().getEventDate());
-                perDay.put(eventDate, perDay.get(eventDate) + b.getAmount());
-            }
+            for (LocalDate ld = from; !ld.isAfter(to); ld = ld.plusDays(1)) perDay.put(ld, 0D);
 
+            for (DailyRollup r: rollups) perDay.put(r.getDate(), value.applyAsDouble(r));
             return perDay;
         }
 
+        /**
+         * Computes all the figures of the administrator overview: the counters and the money bet,
+         * won by users and won by BetAndRuin in each day of the last month.
+         * @return the snapshot of the figures
+         */
+        public AdminDashboard getAdminDashboard() {
+            LocalDate today = LocalDate.now();
+            LocalDate from = today.minusMonths(1);
+            // The three series come from the same rollups, so they are read once
+            List<DailyRollup> rollups = DailyRollups.range(db, from, today);
+            AggregateCounter activeBets = AggregateCounters.get(db, AggregateCounter.ACTIVE_BETS);
+
+            return new AdminDashboard(getTotalNumberOfUsers(), countUpcomingEvents(), activeBets.getCount(),
+                    activeBets.getAmount(), perDay(from, today, rollups, DailyRollup::getAmountBet),
+                    perDay(from, today, rollups, DailyRollup::getPaidOut),
+                    perDay(from, today, rollups, DailyRollup::getHouseNet), Calendar.getInstance().getTime());
+        }
+
 
         /* ---------- [*] User [*] --------------------------------------------------------------------------- */
 
@@ -1076,14 +1395,116 @@
             return q.getResultList();
         }
 
+        /**
+         * Returns a summary of every user, with the number of active bets and the money at stake of each one.
+         * The bets are aggregated by the database, so neither the bets nor the transactions of the users are loaded.
+         * @return the summaries of the users
+         */
+        public List<UserSummary> getUserSummaries() {
+            // System.out.println(">> DataAccess: getUserSummaries()");
+            TypedQuery<User> q = db.createQuery("SELECT u FROM User u ORDER BY u.userID", User.class);
+            return summarize(q.getResultList());
+        }
+
+        /**
+         * Returns one page of the summaries of the users, sorted by id.
+         * @param pageSize maximum number of users in the page
+         * @param token the continuation token of the previous page, or null to get the first page
+         * @param search text that the username, the name, the last name or the email of the users must
+         *               contain, ignoring case; null or blank to get every user
+         * @return the page of user summaries
+         */
+        public Page<UserSummary> getUserSummaries(int pageSize, String token, String search) {
+            // System.out.println(">> DataAccess: getUserSummaries => pageSize = " + pageSize + " token = " + token);
+            String pattern = likePattern(search);
+            List<String> conditions = new ArrayList<String>();
+            conditions.add("u.userID > ?1");
+            if (pattern != null) conditions.add("(LOWER(u.username) LIKE ?2 ESCAPE '\\' OR LOWER(u.firstName) LIKE ?2 ESCAPE '\\' " +
+                    "OR LOWER(u.lastName) LIKE ?2 ESCAPE '\\' OR LOWER(u.email) LIKE ?2 ESCAPE '\\')");
+            TypedQuery<User> q = db.createQuery("SELECT u FROM User u" + where(conditions) + " ORDER BY u.userID", User.class);
+            q.setParameter(1, token == null ? Integer.MIN_VALUE : (int) PageToken.decode(token, 1)[0]);
+            if (pattern != null) q.setParameter(2, pattern);
+            q.setMaxResults(pageSize + 1);
+
+            Page<User> users = toPage(q.getResultList(), pageSize, u -> PageToken.encode(u.getUserID()));
+            return new Page<UserSummary>(summarize(users.getItems()), users.getNextToken());
+        }
+
+        /**
+         * Builds the summaries of the given users, sorted by id, aggregating only their active bets.
+         */
+        private List<UserSummary> summarize(List<User> users) {
+            List<UserSummary> summaries = new ArrayList<UserSummary>();
+            if (users.isEmpty()) return summaries;
+
+            TypedQuery<Object[]> active = db.createQuery("SELECT b.gambler.userID, COUNT(b), SUM(b.amountCents) FROM Bet b " +
+                    "WHERE b.gambler.userID >= ?1 AND b.gambler.userID <= ?2 AND b.active = true " +
+                    "GROUP BY b.gambler.userID", Object[].class);
+            active.setParameter(1, users.get(0).getUserID());
+            active.setParameter(2, users.get(users.size() - 1).getUserID());
+            Map<Integer, Object[]> activePerUser = new HashMap<Integer, Object[]>();
+            for (Object[] row: active.getResultList()) activePerUser.put((Integer) row[0], row);
+
+            for (User u: users) {
+                Object[] row = activePerUser.get(u.getUserID());
+                summaries.add(row == null ? new UserSummary(u, 0, 0) :
+                        new UserSummary(u, AggregateCounters.toLong(row[1]), Money.toDouble(AggregateCounters.toLong(row[2]))));
+            }
+            return summaries;
+        }
+
+        /**
+         * Returns one page of the transactions of the card of the given user, newest first.
+         * @param user the owner of the card
+         * @param pageSize maximum number of transactions in the page
+         * @param token the continuation token of the previous page, or null to get the first page
+         * @return the page of transactions
+         */
+        public Page<Transaction> getTransactions(User user, int pageSize, String token) {
+            User u = db.find(User.class, user.getUserID());
+
+            TypedQuery<Transaction> q = db.createQuery("SELECT t FROM Transaction t WHERE t.card = ?1 AND t.transactionID < ?2 " +
+                    "ORDER BY t.transactionID DESC", Transaction.class);
+            q.setParameter(1, u.getCard());
+            q.setParameter(2, token == null ? Integer.MAX_VALUE : (int) PageToken.decode(token, 1)[0]);
+            q.setMaxResults(pageSize + 1);
+
+            return toPage(q.getResultList(), pageSize, t -> PageToken.encode(t.getTransactionID()));
+        }
+
+        /**
+         * Returns the balance of the wallet of the given user at the end of each day with movements
+         * in a period, from the ledger of its card: the balance before the period is taken from the
+         * last snapshot before it, so only the entries after the snapshot are read.
+         * @param user the user
+         * @param from the start of the period, excluded
+         * @param to the end of the period, excluded
+         * @return the balance at the end of each day with movements, by day
+         */
+        public TreeMap<LocalDate, Double> getDailyBalances(User user, Date from, Date to) {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    User u = db.find(User.class, user.getUserID());
+                    if (!u.getCard().isLedgerStarted()) {
+                        // Entries written before the ledger existed
+                        db.getTransaction().begin();
+                        Ledger.start(db, u.getCard(), u.getWalletCents(), config.getLedgerSnapshotInterval());
+                        db.getTransaction().commit();
+                    }
+                    return Ledger.dailyBalances(db, u, from, to);
+                } catch (RuntimeException e) {
+                    if (!OptimisticRetry.shouldRetry(db, e, attempt)) throw e;
+                }
+            }
+        }
+
         /**
          * Counts the total number of users in the aplication
          * @return number of users in the application
          */
         public long getTotalNumberOfUsers() {
             // System.out.println(">> DataAccess: getTotalNumberOfUsers");
-            TypedQuery<Long> q = db.createQuery("SELECT COUNT(u) FROM User u", Long.class);
-            return q.getSingleResult();
+            return AggregateCounters.get(db, AggregateCounter.USERS).getCount();
         }
 
         /**
@@ -1129,6 +1550,7 @@
                 // Create the card (with 100€, for testing purposes)
                 newUser.setCard(new Card(cardNumber, expirationDate, securityCode, 100.0, newUser));
                 db.persist(newUser);
+                AggregateCounters.add(db, AggregateCounter.USERS, 1, 0);
                 db.getTransaction().commit();
                 // System.out.println(newUser + " has been saved");
 
@@ -1148,7 +1570,7 @@
         public User getUser(int userID) throws UserNotFoundException {
             User u = db.find(User.class, userID);
             if (u == null) throw new UserNotFoundException();
-            return u;
+            return loadHistory(u);
         }
 
         /**
@@ -1165,11 +1587,24 @@
             u.setParameter(1, username);
             List<User> query = u.getResultList();
             if(query.size() !=  1) throw new UserNotFoundException();
-            return query.get(0);
+            return loadHistory(query.get(0));
+        }
+
+        /**
+         * Loads the lazy bets of the given user. Only the users kept in a session need them; the
+         * users listed by the administrators never load their history. The card transactions are
+         * never loaded whole: they are read from the ledger a page or a period at a time.
+         * @param u the user
+         * @return the same user
+         */
+        private User loadHistory(User u) {
+            u.getAllBets().size();
+            return u;
         }
 
         /**
          * Updtes user information.
+         * @param userId the id of the user to update
          * @param username username
          * @param email user's email
          * @param firstName user's first name
@@ -1179,7 +1614,7 @@
         public void updateUserData(int userId, String username, String email, String firstName, String lastName, String address) {
             // System.out.println(">> DataAccess: updateUserData => username = " + username + " email = " + email
             //        + " firstName = " + firstName + " lastName = " + lastName + " address = " + address);
-            User user = db.find(User.class, 1);
+            User user = db.find(User.class, userId);
 
             db.getTransaction().begin();
             if (!username.isEmpty()) user.setUsername(username);
@@ -1234,8 +1669,19 @@
             // System.out.println(">> DataAccess: deleteUser => user = " + user);
             User u = db.find(User.class, user.getUserID());
 
+            // The bets of the user are removed with it
+            TypedQuery<Object[]> q = db.createQuery("SELECT COUNT(b), SUM(b.amountCents) FROM Bet b " +
+                    "WHERE b.gambler=?1 AND b.active = true", Object[].class);
+            q.setParameter(1, u);
+            Object[] active = q.getSingleResult();
+
             db.getTransaction().begin();
+            DailyRollups.removeBetsOf(db, u.getUserID());
+            UserStatsRecords.remove(db, u.getUserID());
             db.remove(u);
+            AggregateCounters.add(db, AggregateCounter.USERS, -1, 0);
+            AggregateCounters.add(db, AggregateCounter.ACTIVE_BETS,
+                    -AggregateCounters.toLong(active[0]), -AggregateCounters.toLong(active[1]));
             db.getTransaction().commit();
 
             // System.out.println("User deleted");
@@ -1277,43 +1723,63 @@
 
         /**
          *
-         * @param amount
+         * @param amount the amount in cents
          * @param user
          * @throws NotEnoughMoneyException
          */
-        public Transaction depositMoney(double amount, User user) throws NotEnoughMoneyException {
-            // If not taken form the db, the update is not performed
-            User u = db.find(User.class, user);
-
-            db.getTransaction().begin();
-            // Withdraw from user's credit card
-            u.getCard().withdrawMoney(amount);
-            // Deposit into user's wallet
-            u.depositMoneyIntoWallet(amount);
-
-            // Register the transaction
-            Calendar cal = Calendar.getInstance();
-            Transaction t = u.getCard().addTransaction(0, "Deposit into BetAndRuin", amount, cal.getTime());
-            db.getTransaction().commit();
-
-            return t;
+        public Transaction depositMoney(long amount, User user) throws NotEnoughMoneyException {
+            // Retried from the start if the wallet or the card are changed by another transaction meanwhile
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    // If not taken form the db, the update is not performed
+                    User u = db.find(User.class, user.getUserID());
+
+                    db.getTransaction().begin();
+                    // Withdraw from user's credit card
+                    u.getCard().withdrawMoney(amount);
+                    // Deposit into user's wallet
+                    u.depositMoneyIntoWallet(amount);
+
+                    // Register the transaction
+                    Calendar cal = Calendar.getInstance();
+                    Transaction t = Ledger.append(db, u, 0, "Deposit into BetAndRuin", amount, cal.getTime(),
+                            config.getLedgerSnapshotInterval());
+                    db.getTransaction().commit();
+
+                    return t;
+                } catch (RuntimeException e) {
+                    if (!OptimisticRetry.shouldRetry(db, e, attempt)) throw e;
+                } finally {
+                    if (db.getTransaction().isActive()) db.getTransaction().rollback();
+                }
+            }
         }
 
-        public Transaction withdrawMoney(double origAmount, double convertedAmount, User user) throws NotEnoughMoneyException {
-            User u = db.find(User.class, user);
-
-            db.getTransaction().begin();
-            // Withdraw original amount from wallet
-            u.withdrawMoneyFromWallet(origAmount);
-            // Add the converted amount to the credit card
-            u.getCard().depositMoney(convertedAmount);
-
-            // Register the transaction
-            Calendar cal = Calendar.getInstance();
-            Transaction t = u.getCard().addTransaction(1, "Withdraw from BetAndRuin wallet", origAmount, cal.getTime());
-            db.getTransaction().commit();
-
-            return t;
+        public Transaction withdrawMoney(long origAmount, long convertedAmount, User user) throws NotEnoughMoneyException {
+            // Retried from the start if the wallet or the card are changed by another transaction meanwhile
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    User u = db.find(User.class, user.getUserID());
+
+                    db.getTransaction().begin();
+                    // Withdraw original amount from wallet
+                    u.withdrawMoneyFromWallet(origAmount);
+                    // Add the converted amount to the credit card
+                    u.getCard().depositMoney(convertedAmount);
+
+                    // Register the transaction
+                    Calendar cal = Calendar.getInstance();
+                    Transaction t = Ledger.append(db, u, 1, "Withdraw from BetAndRuin wallet", origAmount, cal.getTime(),
+                            config.getLedgerSnapshotInterval());
+                    db.getTransaction().commit();
+
+                    return t;
+                } catch (RuntimeException e) {
+                    if (!OptimisticRetry.shouldRetry(db, e, attempt)) throw e;
+                } finally {
+                    if (db.getTransaction().isActive()) db.getTransaction().rollback();
+                }
+            }
         }
 
 
@@ -1321,9 +1787,11 @@
 
 
         /**
-         * It closes the database
+         * It closes the database, giving back the entity manager to the pool
          */
         public void close(){
-            db.close();
+            if (db == null) return;
+            lender.release(db);
+            db = null;
         }
     }
\ No newline at end of file
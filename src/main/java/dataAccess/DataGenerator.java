@@ -0,0 +1,393 @@
+package dataAccess;
+
+import businessLogic.BlFacadeImplementation;
+import configuration.UtilDate;
+import domain.*;
+import utils.Money;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import javax.persistence.TypedQuery;
+import java.util.*;
+
+/**
+ * Fills a database with synthetic data for load tests and benchmarks: competitions, matches,
+ * events with their questions and forecasts, users with their cards, bets and transactions.
+ * <p>
+ * The data only depends on the seed, the sizes and the anchor date, so two databases generated
+ * with the same values are identical. The events are spread over the {@value #DAYS_AROUND} days
+ * before and after the anchor date. Each one has a "who will win" and a "will it be a draw"
+ * question with two forecasts. The first question of the past events is already settled, and its
+ * winning bets paid out, while the second one is left open. Every user has the same password.
+ * <p>
+ * The objects are written in transactions of {@link #setBatchSize(int) batchSize} objects, and the
+ * writes can be throttled to a target number of objects per second so a soak test can generate data
+ * while the application is being used. It can also be run on its own:
+ * <pre>
+ *     java -cp &lt;classpath&gt; dataAccess.DataGenerator &lt;database file&gt; [users=100000] [bets=1000000] ...
+ * </pre>
+ */
+public class DataGenerator {
+
+    /**
+     * Days before and after the anchor date over which the events are spread.
+     */
+    public static final int DAYS_AROUND = 365;
+
+    private static final String[] COUNTRIES = {"Spain", "England", "Germany", "Italy", "France", "Portugal",
+            "Netherlands", "Brazil"};
+    private static final String[] TEAMS = {"United", "City", "Athletic", "Sporting", "Real", "Racing", "Olympic",
+            "Rovers", "Wanderers", "Dynamo"};
+
+    private final EntityManager db;
+    private final Random random;
+
+    private int competitions = 10;
+    private int events = 10000;
+    private int users = 100000;
+    private long bets = 1000000;
+    private int depositsPerUser = 3;
+    private int batchSize = 1000;
+    private int rowsPerSecond = 0; // 0 => as fast as possible
+    private String password = "password";
+    private Date anchor = UtilDate.trim(new Date());
+
+    // Progress of the current generation
+    private long rows;
+    private long rowsInBatch;
+    private long start;
+
+    /**
+     * Constructor.
+     * @param db the entity manager of the database to fill, that is not used by anyone else meanwhile
+     * @param seed the seed of the generated values
+     */
+    public DataGenerator(EntityManager db, long seed) {
+        this.db = db;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Sets the number of competitions (10 by default), each one in its own area.
+     * @param competitions number of competitions
+     */
+    public void setCompetitions(int competitions) {
+        this.competitions = competitions;
+    }
+
+    /**
+     * Sets the number of events (10000 by default), each one for a match of one of the competitions.
+     * @param events number of events
+     */
+    public void setEvents(int events) {
+        this.events = events;
+    }
+
+    /**
+     * Sets the number of users (100000 by default).
+     * @param users number of users
+     */
+    public void setUsers(int users) {
+        this.users = users;
+    }
+
+    /**
+     * Sets the total number of bets (1000000 by default), shared out evenly between the users.
+     * @param bets number of bets
+     */
+    public void setBets(long bets) {
+        this.bets = bets;
+    }
+
+    /**
+     * Sets the number of deposits in the card of each user (3 by default).
+     * @param depositsPerUser deposits per user
+     */
+    public void setDepositsPerUser(int depositsPerUser) {
+        this.depositsPerUser = depositsPerUser;
+    }
+
+    /**
+     * Sets the number of objects written in each transaction (1000 by default).
+     * @param batchSize objects per transaction
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Sets the maximum number of objects written per second, or 0 to write as fast as possible (the default).
+     * @param rowsPerSecond objects per second
+     */
+    public void setRowsPerSecond(int rowsPerSecond) {
+        this.rowsPerSecond = rowsPerSecond;
+    }
+
+    /**
+     * Sets the password of all the users ("password" by default).
+     * @param password the password
+     */
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    /**
+     * Sets the day around which the events are spread (today by default).
+     * @param anchor the anchor date
+     */
+    public void setAnchor(Date anchor) {
+        this.anchor = UtilDate.trim(anchor);
+    }
+
+    /**
+     * Returns the date of the given generated event.
+     * @param anchor the anchor date of the generation
+     * @param i index of the event
+     * @return the date of the event
+     */
+    public static Date eventDate(Date anchor, int i) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(anchor);
+        calendar.add(Calendar.DAY_OF_MONTH, i % (2 * DAYS_AROUND) - DAYS_AROUND);
+        return UtilDate.trim(calendar.getTime());
+    }
+
+    /**
+     * Returns the username of the given generated user.
+     * @param i index of the user
+     * @return the username
+     */
+    public static String username(int i) {
+        return "user" + i;
+    }
+
+    /**
+     * Writes all the data, and then rebuilds the aggregate counters, the daily rollups and the event calendar.
+     * @return the number of objects written
+     */
+    public long generate() {
+        rows = 0;
+        rowsInBatch = 0;
+        start = System.currentTimeMillis();
+        System.out.println("Generating " + competitions + " competitions, " + events + " events, " + users +
+                " users and " + bets + " bets");
+
+        db.getTransaction().begin();
+        try {
+            List<Competition> generatedCompetitions = generateCompetitions();
+            generateEvents(generatedCompetitions);
+            generateUsers(forecasts());
+            db.getTransaction().commit();
+        } finally {
+            if (db.getTransaction().isActive()) db.getTransaction().rollback();
+        }
+        db.clear();
+
+        AggregateCounters.reconcile(db);
+        DailyRollups.rebuild(db);
+        EventCalendar.rebuild(db);
+
+        long millis = Math.max(1, System.currentTimeMillis() - start);
+        System.out.println("Generated " + rows + " objects in " + millis / 1000.0 + " s (" +
+                rows * 1000 / millis + " objects/s)");
+        return rows;
+    }
+
+    private List<Competition> generateCompetitions() {
+        List<Competition> result = new ArrayList<Competition>();
+        for (int i = 0; i < competitions; i++) {
+            Area area = new Area();
+            area.setName(COUNTRIES[i % COUNTRIES.length]);
+            Competition c = new Competition();
+            c.setArea(area);
+            c.setName(area.getName() + " League " + (i / COUNTRIES.length + 1));
+            c.setCode("L" + i);
+            c.setPlan("TIER_ONE");
+            db.persist(c);
+            result.add(c);
+            written(2);
+        }
+        // Committed before the matches reference them
+        db.getTransaction().commit();
+        db.getTransaction().begin();
+        return result;
+    }
+
+    private void generateEvents(List<Competition> generatedCompetitions) {
+        for (int i = 0; i < events; i++) {
+            Competition competition = generatedCompetitions.get(i % generatedCompetitions.size());
+            Date date = eventDate(anchor, i);
+            boolean past = date.before(anchor);
+
+            Match match = new Match();
+            match.setCompetition(db.getReference(Competition.class, competition.getId()));
+            match.setUtcDate(date);
+            match.setStatus(past ? "FINISHED" : "SCHEDULED");
+            match.setMatchday(i / generatedCompetitions.size() % 38 + 1);
+            match.setHomeTeam(team());
+            match.setAwayTeam(team());
+            db.persist(match);
+
+            Event event = new Event(match.getHomeTeam().getName() + '-' + match.getAwayTeam().getName(), date,
+                    competition.getArea().getName(), match);
+            Question winner = event.addQuestion("Who will win the match?", 1D);
+            Forecast home = winner.addForecast(match.getHomeTeam().getName(), fee());
+            Forecast away = winner.addForecast(match.getAwayTeam().getName(), fee());
+            Question draw = event.addQuestion("Will the match end in a draw?", 2D);
+            draw.addForecast("No", fee());
+            draw.addForecast("Yes", fee());
+            if (past) {
+                winner.setCorrectForecast(random.nextBoolean() ? home : away);
+                winner.setSettlementStatus(Question.SETTLEMENT_DONE);
+            }
+            db.persist(event);
+            written(8);
+        }
+    }
+
+    private Team team() {
+        Team team = new Team();
+        team.setId(random.nextInt(1000));
+        team.setName(COUNTRIES[random.nextInt(COUNTRIES.length)] + " " + TEAMS[random.nextInt(TEAMS.length)]);
+        return team;
+    }
+
+    private Double fee() {
+        return 1.1 + random.nextInt(300) / 100.0;
+    }
+
+    /**
+     * Returns the id of every forecast, whether its question is settled and whether it won, with the
+     * data of its question and event copied into its bets.
+     */
+    private List<Object[]> forecasts() {
+        db.getTransaction().commit();
+        db.clear();
+        db.getTransaction().begin();
+        TypedQuery<Object[]> q = db.createQuery("SELECT f.forecastID, c.forecastID, f.feeHundredths, e.eventDate, " +
+                "q.questionID, e.eventID FROM Forecast f " +
+                "JOIN f.question q JOIN q.event e LEFT JOIN q.correctForecast c ORDER BY f.forecastID", Object[].class);
+        return q.getResultList();
+    }
+
+    private void generateUsers(List<Object[]> forecasts) {
+        Date birthdate = UtilDate.newDate(1990, 0, 1);
+        Date expiration = UtilDate.newDate(2030, 0, 1);
+
+        for (int u = 0; u < users; u++) {
+            byte[] salt = new byte[16];
+            random.nextBytes(salt);
+            User user = new User(username(u), "Name" + u, "Surname" + u, birthdate, "Street " + u,
+                    username(u) + "@betandruin.com", BlFacadeImplementation.hashPassword(password, salt), salt, 1, 0D);
+            Card card = new Card(4_000_000_000_000_000L + u, expiration, 100 + u % 900, 0D, user);
+            user.setCard(card);
+
+            long wallet = 0;
+            for (int d = 0; d < depositsPerUser; d++) {
+                double amount = 50 + random.nextInt(20) * 25;
+                card.addTransaction(0, "Deposit", amount, dayBefore(anchor, random.nextInt(2 * DAYS_AROUND)));
+                wallet += Money.toCents(amount);
+            }
+
+            long userBets = bets / users + (u < bets % users ? 1 : 0);
+            Set<Object> chosen = new HashSet<Object>();
+            while (chosen.size() < Math.min(userBets, forecasts.size())) {
+                Object[] f = forecasts.get(random.nextInt(forecasts.size()));
+                if (!chosen.add(f[0])) continue;
+                double amount = 1 + random.nextInt(50);
+                Date eventDate = (Date) f[3];
+                Bet bet = user.addBet(amount, db.getReference(Forecast.class, f[0]));
+                bet.setQuestionID((Integer) f[4]);
+                bet.setEventID((Integer) f[5]);
+                bet.setEventDate(eventDate);
+                bet.setActive(f[1] == null);
+                Date placed = eventDate.before(anchor) ? dayBefore(eventDate, 1) : dayBefore(anchor, random.nextInt(7));
+                card.addTransaction(1, "Bet placed", amount, placed);
+                wallet -= Money.toCents(amount);
+                if (f[1] != null) {
+                    bet.setSettled(true);
+                    if (f[1].equals(f[0])) {
+                        long prize = Money.multiply(Money.toCents(amount), (Long) f[2]);
+                        card.addTransaction(0, "Won bet", Money.toDouble(prize), eventDate);
+                        wallet += prize;
+                    }
+                }
+            }
+            // Bets are paid from the deposits, and the wallet never goes below 0
+            if (wallet < 0) {
+                card.addTransaction(0, "Deposit", Money.toDouble(-wallet), dayBefore(anchor, 2 * DAYS_AROUND));
+                wallet = 0;
+            }
+            user.setWalletCents(wallet);
+            db.persist(user);
+            written(2 + card.getTransactions().size() + chosen.size());
+        }
+    }
+
+    private static Date dayBefore(Date date, int days) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(date);
+        calendar.add(Calendar.DAY_OF_MONTH, -days);
+        return calendar.getTime();
+    }
+
+    /**
+     * Counts written objects, committing each full batch and waiting when ahead of the target throughput.
+     */
+    private void written(int n) {
+        rows += n;
+        rowsInBatch += n;
+        if (rowsInBatch < batchSize) return;
+
+        db.getTransaction().commit();
+        db.clear();
+        rowsInBatch = 0;
+        if (rowsPerSecond > 0) {
+            long ahead = rows * 1000 / rowsPerSecond - (System.currentTimeMillis() - start);
+            if (ahead > 0) {
+                try {
+                    Thread.sleep(ahead);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        db.getTransaction().begin();
+    }
+
+    /**
+     * Generates the data of a database file.
+     * @param args the database file, followed by any of seed, competitions, events, users, bets,
+     *             depositsPerUser, batchSize and rowsPerSecond as name=value
+     */
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.out.println("Usage: DataGenerator <database file> [seed=1] [competitions=10] [events=10000] " +
+                    "[users=100000] [bets=1000000] [depositsPerUser=3] [batchSize=1000] [rowsPerSecond=0]");
+            return;
+        }
+        Map<String, String> options = new HashMap<String, String>();
+        for (int i = 1; i < args.length; i++) {
+            String[] option = args[i].split("=", 2);
+            if (option.length == 2) options.put(option[0], option[1]);
+        }
+
+        EntityManagerFactory factory = Persistence.createEntityManagerFactory("objectdb:" + args[0]);
+        EntityManager db = factory.createEntityManager();
+        try {
+            DataGenerator generator = new DataGenerator(db, Long.parseLong(options.getOrDefault("seed", "1")));
+            if (options.containsKey("competitions")) generator.setCompetitions(Integer.parseInt(options.get("competitions")));
+            if (options.containsKey("events")) generator.setEvents(Integer.parseInt(options.get("events")));
+            if (options.containsKey("users")) generator.setUsers(Integer.parseInt(options.get("users")));
+            if (options.containsKey("bets")) generator.setBets(Long.parseLong(options.get("bets")));
+            if (options.containsKey("depositsPerUser")) generator.setDepositsPerUser(Integer.parseInt(options.get("depositsPerUser")));
+            if (options.containsKey("batchSize")) generator.setBatchSize(Integer.parseInt(options.get("batchSize")));
+            if (options.containsKey("rowsPerSecond")) generator.setRowsPerSecond(Integer.parseInt(options.get("rowsPerSecond")));
+            generator.generate();
+        } finally {
+            db.close();
+            factory.close();
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package dataAccess;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded pool of entity managers created from a single, long-lived entity manager factory.
+ * Building an ObjectDB factory is expensive, so it is created once per process and every
+ * request just borrows an entity manager from this pool and gives it back when it is done.
+ */
+public class EntityManagerPool {
+
+    private final EntityManagerFactory emf;
+    private final int maxSize;
+    private final long idleTimeoutMillis;
+    private final long acquireTimeoutMillis;
+
+    // One permit per entity manager that can be lent at the same time
+    private final Semaphore permits;
+    // Entity managers waiting to be reused, most recently released first (guarded by this)
+    private final Deque<IdleEntityManager> idle = new ArrayDeque<IdleEntityManager>();
+
+    // Metrics
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+    private final AtomicLong acquisitions = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    private volatile boolean closed = false;
+
+    /**
+     * Constructor that instantiates the pool.
+     * @param emf the factory used to create new entity managers
+     * @param maxSize maximum number of entity managers lent at the same time
+     * @param idleTimeoutMillis time after which an unused entity manager is closed
+     * @param acquireTimeoutMillis maximum time a caller waits for a free entity manager
+     */
+    public EntityManagerPool(EntityManagerFactory emf, int maxSize, long idleTimeoutMillis, long acquireTimeoutMillis) {
+        if (maxSize < 1) throw new IllegalArgumentException("The pool size must be at least 1");
+        this.emf = emf;
+        this.maxSize = maxSize;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    /**
+     * Borrows an entity manager from the pool, waiting if all of them are in use.
+     * @return an open entity manager, that must be given back with {@link #release(EntityManager)}
+     * @throws PersistenceException if no entity manager becomes available in time
+     */
+    public EntityManager acquire() {
+        if (closed) throw new PersistenceException("The entity manager pool is closed");
+
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeouts.incrementAndGet();
+                throw new PersistenceException("Timed out waiting for a free entity manager");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PersistenceException("Interrupted while waiting for a free entity manager", e);
+        }
+        recordWait(System.nanoTime() - start);
+
+        try {
+            EntityManager em = pollIdle();
+            if (em == null) {
+                em = emf.createEntityManager();
+                created.incrementAndGet();
+            }
+            return em;
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Gives back an entity manager previously borrowed with {@link #acquire()}.
+     * Any transaction left open is rolled back and the persistence context is cleared.
+     * @param em the entity manager
+     */
+    public void release(EntityManager em) {
+        try {
+            if (em.isOpen()) {
+                if (em.getTransaction().isActive()) em.getTransaction().rollback();
+                em.clear();
+
+                if (closed) em.close();
+                else synchronized (this) {
+                    idle.push(new IdleEntityManager(em, System.currentTimeMillis()));
+                }
+            }
+        } finally {
+            permits.release();
+        }
+        evictIdle();
+    }
+
+    /**
+     * Closes the entity managers that have not been used for longer than the idle timeout.
+     */
+    public void evictIdle() {
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            Iterator<IdleEntityManager> it = idle.descendingIterator();
+            while (it.hasNext()) {
+                IdleEntityManager entry = it.next();
+                if (now - entry.since < idleTimeoutMillis) break; // the rest are newer
+                it.remove();
+                closeQuietly(entry.em);
+            }
+        }
+    }
+
+    /**
+     * Closes every idle entity manager and the underlying factory.
+     */
+    public void shutdown() {
+        closed = true;
+        synchronized (this) {
+            for (IdleEntityManager entry : idle) closeQuietly(entry.em);
+            idle.clear();
+        }
+        if (emf.isOpen()) emf.close();
+    }
+
+    private synchronized EntityManager pollIdle() {
+        IdleEntityManager entry;
+        while ((entry = idle.poll()) != null) {
+            if (entry.em.isOpen()) return entry.em;
+            evicted.incrementAndGet();
+        }
+        return null;
+    }
+
+    private void closeQuietly(EntityManager em) {
+        evicted.incrementAndGet();
+        try {
+            if (em.isOpen()) em.close();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void recordWait(long nanos) {
+        acquisitions.incrementAndGet();
+        totalWaitNanos.addAndGet(nanos);
+        maxWaitNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /* ---------- [*] Metrics [*] --------------------------------------------------------------------------- */
+
+    /**
+     * Getter for the factory shared by all the entity managers of the pool.
+     * @return the entity manager factory
+     */
+    public EntityManagerFactory getFactory() {
+        return emf;
+    }
+
+    /**
+     * Getter for the maximum number of entity managers that can be lent at the same time.
+     * @return the pool size
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Getter for the time after which an unused entity manager is closed.
+     * @return the idle timeout in milliseconds
+     */
+    public long getIdleTimeoutMillis() {
+        return idleTimeoutMillis;
+    }
+
+    /**
+     * Returns the number of entity managers currently lent.
+     * @return entity managers in use
+     */
+    public int getInUse() {
+        return maxSize - permits.availablePermits();
+    }
+
+    /**
+     * Returns the number of open entity managers waiting to be reused.
+     * @return idle entity managers
+     */
+    public synchronized int getIdle() {
+        return idle.size();
+    }
+
+    /**
+     * Returns the number of entity managers created since the pool was started.
+     * @return created entity managers
+     */
+    public long getCreated() {
+        return created.get();
+    }
+
+    /**
+     * Returns the number of entity managers closed because they were idle or broken.
+     * @return evicted entity managers
+     */
+    public long getEvicted() {
+        return evicted.get();
+    }
+
+    /**
+     * Returns the number of successful acquisitions.
+     * @return acquisitions
+     */
+    public long getAcquisitions() {
+        return acquisitions.get();
+    }
+
+    /**
+     * Returns the number of acquisitions that gave up waiting.
+     * @return timed out acquisitions
+     */
+    public long getTimeouts() {
+        return timeouts.get();
+    }
+
+    /**
+     * Returns the average time spent waiting for a free entity manager.
+     * @return average acquisition wait in milliseconds
+     */
+    public double getAverageWaitMillis() {
+        long n = acquisitions.get();
+        return n == 0 ? 0 : totalWaitNanos.get() / (n * 1_000_000.0);
+    }
+
+    /**
+     * Returns the longest time spent waiting for a free entity manager.
+     * @return maximum acquisition wait in milliseconds
+     */
+    public double getMaxWaitMillis() {
+        return maxWaitNanos.get() / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return "EntityManagerPool{" +
+                "maxSize=" + maxSize +
+                ", idleTimeoutMillis=" + idleTimeoutMillis +
+                ", inUse=" + getInUse() +
+                ", idle=" + getIdle() +
+                ", created=" + getCreated() +
+                ", evicted=" + getEvicted() +
+                ", acquisitions=" + getAcquisitions() +
+                ", timeouts=" + getTimeouts() +
+                ", averageWaitMillis=" + String.format("%.3f", getAverageWaitMillis()) +
+                ", maxWaitMillis=" + String.format("%.3f", getMaxWaitMillis()) +
+                '}';
+    }
+
+    /**
+     * An entity manager waiting in the pool, with the moment it was given back.
+     */
+    private static class IdleEntityManager {
+        private final EntityManager em;
+        private final long since;
+
+        IdleEntityManager(EntityManager em, long since) {
+            this.em = em;
+            this.since = since;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package dataAccess;
+
+import domain.Event;
+import domain.EventCalendarMonth;
+import utils.Dates;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Reads and updates the {@link EventCalendarMonth} entities.
+ * As the daily rollups, they are updated in the same transaction as the events they summarize and
+ * can be rebuilt from scratch by the reconciliation. A database written before the calendar existed
+ * gets it built the first time it is read.
+ */
+public class EventCalendar {
+
+    private EventCalendar() {}
+
+    /**
+     * Marks the day of a new event as having events. It must be called inside an active transaction.
+     * @param db the entity manager of the transaction
+     * @param eventDate the date of the event
+     */
+    public static void add(EntityManager db, Date eventDate) {
+        LocalDate date = Dates.convertToLocalDateViaInstant(eventDate);
+        month(db, date).setEvents(date.getDayOfMonth(), true);
+    }
+
+    /**
+     * Unmarks the day of an event that is going to be removed, unless other events take place
+     * that day. It must be called inside an active transaction.
+     * @param db the entity manager of the transaction
+     * @param event the event
+     */
+    public static void remove(EntityManager db, Event event) {
+        LocalDate date = Dates.convertToLocalDateViaInstant(event.getEventDate());
+        if (countOthers(db, date, event) == 0) month(db, date).setEvents(date.getDayOfMonth(), false);
+    }
+
+    /**
+     * Updates the calendar for an event that is going to be moved to another date.
+     * It must be called inside an active transaction.
+     * @param db the entity manager of the transaction
+     * @param event the event, still with its old date
+     * @param newDate the new date of the event
+     */
+    public static void move(EntityManager db, Event event, Date newDate) {
+        LocalDate from = Dates.convertToLocalDateViaInstant(event.getEventDate());
+        LocalDate to = Dates.convertToLocalDateViaInstant(newDate);
+        if (from.equals(to)) return;
+        remove(db, event);
+        month(db, to).setEvents(to.getDayOfMonth(), true);
+    }
+
+    /**
+     * Returns the days with events of the month of the given date.
+     * @param db the entity manager
+     * @param date a date of the month
+     * @return the days with events, in order
+     */
+    public static Vector<Date> days(EntityManager db, Date date) {
+        int key = EventCalendarMonth.toMonth(Dates.convertToLocalDateViaInstant(date));
+        EventCalendarMonth month = db.find(EventCalendarMonth.class, key);
+        if (month == null && db.find(EventCalendarMonth.class, EventCalendarMonth.BUILT) == null) {
+            rebuild(db);
+            month = db.find(EventCalendarMonth.class, key);
+        }
+
+        Vector<Date> days = new Vector<Date>();
+        if (month != null)
+            for (LocalDate d : month.getDates()) days.add(Dates.convertToDate(d));
+        return days;
+    }
+
+    /**
+     * Rebuilds the calendar from the events in the database, reporting the months that had drifted.
+     * @param db the entity manager
+     * @return the number of months whose stored days were wrong
+     */
+    public static int rebuild(EntityManager db) {
+        Map<Integer, EventCalendarMonth> actual = new HashMap<Integer, EventCalendarMonth>();
+        TypedQuery<Date> dates = db.createQuery("SELECT DISTINCT e.eventDate FROM Event e", Date.class);
+        for (Date d : dates.getResultList()) {
+            LocalDate date = Dates.convertToLocalDateViaInstant(d);
+            actual.computeIfAbsent(EventCalendarMonth.toMonth(date), EventCalendarMonth::new)
+                    .setEvents(date.getDayOfMonth(), true);
+        }
+
+        db.getTransaction().begin();
+        try {
+            int drifted = 0;
+            TypedQuery<EventCalendarMonth> stored = db.createQuery("SELECT m FROM EventCalendarMonth m " +
+                    "WHERE m.month <> ?1", EventCalendarMonth.class);
+            stored.setParameter(1, EventCalendarMonth.BUILT);
+            for (EventCalendarMonth m : stored.getResultList()) {
+                EventCalendarMonth a = actual.remove(m.getMonth());
+                if (set(m, a != null ? a.getDays() : 0)) drifted++;
+            }
+            for (EventCalendarMonth m : actual.values()) {
+                System.out.println("Event calendar " + m.getMonth() + " was missing");
+                db.persist(m);
+                drifted++;
+            }
+            if (db.find(EventCalendarMonth.class, EventCalendarMonth.BUILT) == null)
+                db.persist(new EventCalendarMonth(EventCalendarMonth.BUILT));
+            db.getTransaction().commit();
+            return drifted;
+        } finally {
+            if (db.getTransaction().isActive()) db.getTransaction().rollback();
+        }
+    }
+
+    /**
+     * Returns the month of the given day, locked until the transaction ends and created if it does not exist.
+     */
+    private static EventCalendarMonth month(EntityManager db, LocalDate date) {
+        int key = EventCalendarMonth.toMonth(date);
+        return RowLocks.lockOrCreate(db, EventCalendarMonth.class, key, () -> new EventCalendarMonth(key));
+    }
+
+    /**
+     * Counts the events of the given day other than the given one.
+     */
+    private static long countOthers(EntityManager db, LocalDate date, Event event) {
+        TypedQuery<Long> q = db.createQuery("SELECT COUNT(e) FROM Event e WHERE e.eventDate >= ?1 " +
+                "AND e.eventDate < ?2 AND e <> ?3", Long.class);
+        q.setParameter(1, Dates.convertToDate(date));
+        q.setParameter(2, Dates.convertToDate(date.plusDays(1)));
+        q.setParameter(3, event);
+        return q.getSingleResult();
+    }
+
+    /**
+     * Overwrites the days of a month with the actual ones.
+     * @return true if the stored days were different
+     */
+    private static boolean set(EventCalendarMonth m, int days) {
+        if (m.getDays() == days) return false;
+        System.out.println("Event calendar " + m.getMonth() + " drifted: " + m + " -> " + Integer.toBinaryString(days));
+        m.setDays(days);
+        return true;
+    }
+}
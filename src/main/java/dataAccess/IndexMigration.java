@@ -0,0 +1,77 @@
+package dataAccess;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Builds the indexes declared in the domain classes on a database file created before they existed.
+ * ObjectDB only maintains an index for the objects stored after it was declared, so the objects
+ * of an old database are copied by the ObjectDB Doctor into a new file, which is then put in place
+ * of the original one. The original file is kept with the ".pre-index.bak" suffix.
+ * It must be run with the application stopped and the entity classes in the classpath:
+ * <pre>
+ *     java -cp &lt;classpath&gt; dataAccess.IndexMigration [database file]
+ * </pre>
+ * If no file is given, the one set in the configuration is migrated.
+ */
+public class IndexMigration {
+
+    /**
+     * Suffix of the copy of the database that is kept after the migration.
+     */
+    public static final String BACKUP_SUFFIX = ".pre-index.bak";
+
+    private IndexMigration() {}
+
+    /**
+     * Migrates a database file.
+     * @param args the path of the database file (optional)
+     * @throws IOException if the files cannot be moved
+     * @throws InterruptedException if the migration is interrupted
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Path original = Paths.get(args.length > 0 ? args[0] : DataAccess.getDataBaseFileName());
+        if (!Files.exists(original)) {
+            System.out.println("There is no database to migrate at " + original);
+            return;
+        }
+
+        Path migrated = original.resolveSibling(original.getFileName() + ".indexed");
+        Path backup = original.resolveSibling(original.getFileName() + BACKUP_SUFFIX);
+        Files.deleteIfExists(migrated);
+
+        System.out.println("Rebuilding " + original + " with the indexes of the domain classes");
+        long start = System.nanoTime();
+        int exitCode = runDoctor(original, migrated);
+        if (exitCode != 0 || !Files.exists(migrated)) {
+            System.out.println("The ObjectDB Doctor failed (exit code " + exitCode + "), the database was not changed");
+            Files.deleteIfExists(migrated);
+            return;
+        }
+
+        Files.move(original, backup, StandardCopyOption.REPLACE_EXISTING);
+        Files.move(migrated, original);
+        System.out.println("Migration done in " + (System.nanoTime() - start) / 1_000_000 + " ms. " +
+                "The previous database was kept at " + backup);
+    }
+
+    /**
+     * Runs the ObjectDB Doctor in its own process, which copies the objects of a database
+     * into a new file building all its indexes.
+     * @param from the database to read
+     * @param to the new database
+     * @return the exit code of the Doctor
+     */
+    private static int runDoctor(Path from, Path to) throws IOException, InterruptedException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        Process doctor = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                "com.objectdb.Doctor", from.toString(), to.toString())
+                .inheritIO()
+                .start();
+        return doctor.waitFor();
+    }
+}
@@ -0,0 +1,163 @@
+package dataAccess;
+
+import domain.BalanceSnapshot;
+import domain.Card;
+import domain.DailyRollup;
+import domain.Transaction;
+import domain.User;
+import utils.Dates;
+import utils.Money;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Append-only ledger of the money movements of the wallets. Each entry is a {@link Transaction}
+ * numbered after the previous one of the same card, and every given number of entries, and on the
+ * first entry of each day, a {@link BalanceSnapshot} records the balance of the wallet after it.
+ * The balance at any moment is then the one of the last snapshot before it plus the entries that
+ * follow, without going through the whole history.
+ * <p>
+ * The entries written before the ledger existed are numbered the first time their card is used,
+ * in the order of their dates, starting from the balance that makes them add up to the current wallet.
+ */
+public class Ledger {
+
+    private Ledger() {}
+
+    /**
+     * Appends an entry to the ledger of the card of a user whose wallet has just been updated with it.
+     * It must be called inside an active transaction.
+     * @param db the entity manager of the transaction
+     * @param user the user, with the wallet already updated
+     * @param type 0 for money into the wallet, 1 for money out of it
+     * @param description the description of the movement
+     * @param amount the amount moved in cents
+     * @param date the date of the movement
+     * @param snapshotInterval number of entries between two snapshots of the balance
+     * @return the entry
+     */
+    public static Transaction append(EntityManager db, User user, int type, String description, long amount,
+                                     Date date, int snapshotInterval) {
+        Card card = user.getCard();
+        if (!card.isLedgerStarted())
+            start(db, card, Money.subtract(user.getWalletCents(), signed(type, amount)), snapshotInterval);
+
+        long sequence = card.getLedgerSequence() + 1;
+        Transaction t = new Transaction(type, description, null, date, card);
+        t.setAmountCents(amount);
+        t.setSequence(sequence);
+        db.persist(t);
+
+        int day = day(date);
+        if (sequence % snapshotInterval == 0 || day != card.getLastEntryDay())
+            db.persist(new BalanceSnapshot(card, sequence, date, user.getWalletCents()));
+        card.setLedgerSequence(sequence);
+        card.setLastEntryDay(day);
+        return t;
+    }
+
+    /**
+     * Returns the balance of the wallet of a user after every entry up to the given date.
+     * @param db the entity manager
+     * @param user the user, whose ledger must be started
+     * @param date the date
+     * @return the balance at that date in cents
+     */
+    public static long balanceAt(EntityManager db, User user, Date date) {
+        Card card = user.getCard();
+        TypedQuery<BalanceSnapshot> snapshots = db.createQuery("SELECT s FROM BalanceSnapshot s WHERE s.card = ?1 " +
+                "AND s.date <= ?2 ORDER BY s.sequence DESC", BalanceSnapshot.class);
+        snapshots.setParameter(1, card);
+        snapshots.setParameter(2, date);
+        snapshots.setMaxResults(1);
+        List<BalanceSnapshot> last = snapshots.getResultList();
+        if (last.isEmpty()) return opening(db, card);
+
+        BalanceSnapshot s = last.get(0);
+        TypedQuery<Object[]> tail = db.createQuery("SELECT t.type, SUM(t.amountCents) FROM Transaction t WHERE t.card = ?1 " +
+                "AND t.sequence > ?2 AND t.date <= ?3 GROUP BY t.type", Object[].class);
+        tail.setParameter(1, card);
+        tail.setParameter(2, s.getSequence());
+        tail.setParameter(3, date);
+        long balance = s.getBalanceCents();
+        for (Object[] row : tail.getResultList())
+            balance = Money.add(balance, signed(((Number) row[0]).intValue(), AggregateCounters.toLong(row[1])));
+        return balance;
+    }
+
+    /**
+     * Returns the balance of the wallet of a user at the end of each day with movements between two dates.
+     * @param db the entity manager
+     * @param user the user, whose ledger must be started
+     * @param from the start of the period, excluded
+     * @param to the end of the period, excluded
+     * @return the balance at the end of each day, by day
+     */
+    public static TreeMap<LocalDate, Double> dailyBalances(EntityManager db, User user, Date from, Date to) {
+        TypedQuery<Transaction> entries = db.createQuery("SELECT t FROM Transaction t WHERE t.card = ?1 " +
+                "AND t.date > ?2 AND t.date < ?3 ORDER BY t.sequence", Transaction.class);
+        entries.setParameter(1, user.getCard());
+        entries.setParameter(2, from);
+        entries.setParameter(3, to);
+
+        long balance = balanceAt(db, user, from);
+        TreeMap<LocalDate, Double> balances = new TreeMap<LocalDate, Double>();
+        for (Transaction t : entries.getResultList()) {
+            balance = Money.add(balance, signed(t.getType(), t.getAmountCents()));
+            balances.put(Dates.convertToLocalDateViaInstant(t.getDate()), Money.toDouble(balance));
+        }
+        return balances;
+    }
+
+    /**
+     * Numbers the existing entries of a card in the order of their dates and writes their snapshots,
+     * starting from the balance that makes them add up to the given one. It must be called inside an
+     * active transaction.
+     * @param db the entity manager of the transaction
+     * @param card the card, whose ledger is not started
+     * @param balance the current balance of the wallet in cents
+     * @param snapshotInterval number of entries between two snapshots of the balance
+     */
+    public static void start(EntityManager db, Card card, long balance, int snapshotInterval) {
+        TypedQuery<Transaction> q = db.createQuery("SELECT t FROM Transaction t WHERE t.card = ?1 " +
+                "ORDER BY t.date, t.transactionID", Transaction.class);
+        q.setParameter(1, card);
+        List<Transaction> entries = q.getResultList();
+
+        for (Transaction t : entries) balance = Money.subtract(balance, signed(t.getType(), t.getAmountCents()));
+        db.persist(new BalanceSnapshot(card, 0, new Date(0), balance));
+
+        long sequence = 0;
+        int lastDay = 0;
+        for (Transaction t : entries) {
+            t.setSequence(++sequence);
+            balance = Money.add(balance, signed(t.getType(), t.getAmountCents()));
+            int day = day(t.getDate());
+            if (sequence % snapshotInterval == 0 || day != lastDay)
+                db.persist(new BalanceSnapshot(card, sequence, t.getDate(), balance));
+            lastDay = day;
+        }
+        card.setLedgerSequence(sequence);
+        card.setLastEntryDay(lastDay);
+        card.setLedgerStarted(true);
+    }
+
+    private static long opening(EntityManager db, Card card) {
+        TypedQuery<BalanceSnapshot> q = db.createQuery("SELECT s FROM BalanceSnapshot s WHERE s.card = ?1 " +
+                "AND s.sequence = 0", BalanceSnapshot.class);
+        q.setParameter(1, card);
+        List<BalanceSnapshot> opening = q.getResultList();
+        return opening.isEmpty() ? 0 : opening.get(0).getBalanceCents();
+    }
+
+    private static long signed(int type, long amount) {
+        return type == 0 ? amount : -amount;
+    }
+
+    private static int day(Date date) {
+        return DailyRollup.toDay(Dates.convertToLocalDateViaInstant(date));
+    }
+}
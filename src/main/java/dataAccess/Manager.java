@@ -1,113 +1,244 @@
 package dataAccess;
 
-import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import configuration.ConfigXML;
 import okhttp3.*;
 import domain.*;
 import java.io.IOException;
-import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import com.google.gson.*;
 
+/**
+ * Client of the football-data.org API.
+ * All the instances share the same HTTP client, so the connections to the API are reused, and the
+ * responses are parsed as they are read instead of being loaded whole in memory first.
+ * <p>
+ * The responses are kept in an {@link ApiResponseCache} and reused while they are fresh: the
+ * competitions and teams for an hour and the matches for a minute by default. Once expired, they are
+ * revalidated with a conditional request. When the rate limit of the API is reached, the requests
+ * wait until the limit is reset, or get the expired response if there is one.
+ */
 public class Manager {
+    // Shared by all the managers, it keeps the connections to the API alive between requests
+    private static final OkHttpClient CLIENT = new OkHttpClient.Builder()
+            .connectionPool(new ConnectionPool(8, 5, TimeUnit.MINUTES))
+            .connectTimeout(10, TimeUnit.SECONDS)
+            .readTimeout(30, TimeUnit.SECONDS)
+            .build();
+
+    // Until when the API must not be requested, because the requests available in this minute ran out
+    private static long rateLimitedUntil = 0;
+    private static final long DEFAULT_RATE_LIMIT_WAIT = 60_000;
+
+    private final Gson gson = new Gson();
+    private final String baseUrl;
+    private final ApiResponseCache cache;
+    private final long competitionsTtl;
+    private final long matchesTtl;
     private List<Competition> competitions;
 
     public Manager()
     {
-        competitions = setCompetitions();
+        this(ConfigXML.getInstance().getFootballDataUrl(), new ApiResponseCache(cacheFolder()));
     }
 
-    public String request(String endpoint)
+    /**
+     * Constructor for a given server, such as a local stand-in of the API.
+     * @param baseUrl the URL the endpoints are relative to, ending with "/"
+     * @param cache the cache of the responses, or null to always request the server
+     */
+    public Manager(String baseUrl, ApiResponseCache cache)
     {
-        String result = "";
-
-        OkHttpClient client = new OkHttpClient();
-
-        Request request = new Request.Builder()
-                .url("https://api.football-data.org/v2/" + endpoint)
-                .get()
-                .addHeader("X-Auth-Token", System.getenv("TOKEN"))
-                .build();
-        try{
-            Response response = client.newCall(request).execute();
-            if(response.code() == 200) {
-                result = response.body().string();
+        this(baseUrl, cache, ConfigXML.getInstance().getFootballDataCompetitionsTtl() * 1000L,
+                ConfigXML.getInstance().getFootballDataMatchesTtl() * 1000L);
+    }
+
+    /**
+     * Constructor for a given server and times to live of the cached responses.
+     * @param baseUrl the URL the endpoints are relative to, ending with "/"
+     * @param cache the cache of the responses, or null to always request the server
+     * @param competitionsTtl milliseconds the competitions and teams are reused
+     * @param matchesTtl milliseconds the matches are reused
+     */
+    public Manager(String baseUrl, ApiResponseCache cache, long competitionsTtl, long matchesTtl)
+    {
+        this.baseUrl = baseUrl;
+        this.cache = cache;
+        this.competitionsTtl = competitionsTtl;
+        this.matchesTtl = matchesTtl;
+    }
+
+    /**
+     * Returns the folder of the response cache set in the configuration. As the database file,
+     * a relative folder is placed in the config folder of the user home when it exists.
+     */
+    private static Path cacheFolder()
+    {
+        Path folder = Paths.get(ConfigXML.getInstance().getFootballDataCacheFolder());
+        Path config = Paths.get(System.getProperty("user.home"), "config");
+        if (!folder.isAbsolute() && Files.exists(config)) folder = config.resolve(folder);
+        return folder;
+    }
+
+    /**
+     * Requests an endpoint of the API and reads the array in the given field of the response.
+     * A fresh cached response is used without requesting the server.
+     * @param endpoint the endpoint, relative to the base URL
+     * @param field the field of the response holding the array
+     * @param type the type of the elements of the array
+     * @return the elements of the array, or null if the request failed
+     */
+    private <T> List<T> request(String endpoint, String field, Class<T> type)
+    {
+        if (endpoint.startsWith("/")) endpoint = endpoint.substring(1);
+        ApiResponseCache.Entry cached = cache != null ? cache.get(endpoint) : null;
+        long ttl = endpoint.contains("matches") ? matchesTtl : competitionsTtl;
+        if (cached != null && cached.isFresh(ttl)) return read(cached, field, type);
+
+        Request.Builder request = new Request.Builder()
+                .url(baseUrl + endpoint)
+                .get();
+        String token = System.getenv("TOKEN");
+        if (token != null) request.addHeader("X-Auth-Token", token);
+        if (cached != null && cached.getEtag() != null) request.addHeader("If-None-Match", cached.getEtag());
+        if (cached != null && cached.getLastModified() != null) request.addHeader("If-Modified-Since", cached.getLastModified());
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            if (!waitForRateLimit(cached != null)) {
+                if (cached == null) return null;
+                System.out.println("Rate limit reached, using the cached response of " + endpoint);
+                return read(cached, field, type);
             }
-        } catch(IOException e){
+            try (Response response = CLIENT.newCall(request.build()).execute()) {
+                updateRateLimit(response);
+                if (response.code() == 429) continue; // retried once the limit is reset
+                if (response.code() == 304 && cached != null) return read(cache.touch(cached), field, type);
+                if (response.code() != 200) {
+                    System.out.println("Request to " + endpoint + " failed with code " + response.code());
+                    return null;
+                }
+                if (cache == null) return readArray(new JsonReader(response.body().charStream()), field, type);
+                return read(cache.put(endpoint, response.body().byteStream(), response.header("ETag"),
+                        response.header("Last-Modified")), field, type);
+            } catch (IOException e) {
+                e.printStackTrace();
+                return null;
+            }
+        }
+        System.out.println("Request to " + endpoint + " failed, the rate limit of the API was reached");
+        return cached != null ? read(cached, field, type) : null;
+    }
+
+    /**
+     * Reads a cached response.
+     */
+    private <T> List<T> read(ApiResponseCache.Entry entry, String field, Class<T> type)
+    {
+        try (JsonReader reader = new JsonReader(Files.newBufferedReader(entry.getBody(), StandardCharsets.UTF_8))) {
+            return readArray(reader, field, type);
+        } catch (IOException | JsonParseException e) {
             e.printStackTrace();
+            return null;
         }
-        return result;
     }
 
-    private List<Competition> setCompetitions(){
-        String body = this.request("competitions");
-        //System.out.println(body);
+    /**
+     * Waits until the rate limit of the API is reset, unless there is a cached response to fall back on.
+     * @param hasCachedResponse whether the request has a cached response
+     * @return true if the API can be requested, false if the cached response must be used
+     */
+    private static boolean waitForRateLimit(boolean hasCachedResponse)
+    {
+        long wait;
+        synchronized (Manager.class) {
+            wait = rateLimitedUntil - System.currentTimeMillis();
+        }
+        if (wait <= 0) return true;
+        if (hasCachedResponse) return false;
+        try {
+            Thread.sleep(wait);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return true;
+    }
 
-        Gson gson = new Gson();
-        JsonObject jsonObject;
+    /**
+     * Reads the requests left in the current minute from the headers of the API, blocking the following
+     * requests until the counter is reset when none are left.
+     */
+    private static void updateRateLimit(Response response)
+    {
+        String available = response.header("X-Requests-Available-Minute");
+        if (response.code() != 429 && !"0".equals(available)) return;
+
+        long wait = DEFAULT_RATE_LIMIT_WAIT;
+        try {
+            String reset = response.header("X-RequestCounter-Reset");
+            if (reset != null) wait = Long.parseLong(reset.trim()) * 1000;
+        } catch (NumberFormatException e) {
+            // Keep the default wait
+        }
+        synchronized (Manager.class) {
+            rateLimitedUntil = Math.max(rateLimitedUntil, System.currentTimeMillis() + wait);
+        }
+    }
 
-        jsonObject = gson.fromJson(body, JsonObject.class);
-        Type competitionListType = new TypeToken<ArrayList<Competition>>(){}.getType();
-        List<Competition> competitions = gson.fromJson((jsonObject.get("competitions")), competitionListType);
-        return competitions;
+    /**
+     * Reads the elements of the array in the given field of a JSON object one by one, skipping the rest.
+     */
+    private <T> List<T> readArray(JsonReader reader, String field, Class<T> type) throws IOException
+    {
+        List<T> result = new ArrayList<T>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals(field)) {
+                reader.beginArray();
+                while (reader.hasNext()) result.add(gson.fromJson(reader, type));
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return result;
     }
 
-    public List<Competition> getCompetitions(){
+    /**
+     * Returns the competitions of the configured plan. They are requested the first time only.
+     * @return the competitions, or null if they could not be requested
+     */
+    public synchronized List<Competition> getCompetitions(){
+        if (competitions == null)
+            competitions = request("competitions?plan=" + ConfigXML.getInstance().getFootballDataPlan(),
+                    "competitions", Competition.class);
         return competitions;
     }
 
     public List<Match> getMatches(){
-        String body = this.request("/matches");
-        List<Match> matches = null;
-        if(body != null)
-            if(!body.isEmpty()) {
-                //System.out.println(body);
-                Gson gson = new Gson();
-                JsonObject jsonObject;
-
-                jsonObject = gson.fromJson(body, JsonObject.class);
-                Type matchListType = new TypeToken<ArrayList<Match>>() {
-                }.getType();
-
-
-                matches = gson.fromJson((jsonObject.get("matches")), matchListType);
-            }
-        return matches;
+        return request("matches", "matches", Match.class);
     }
 
     public List<Match> getMatches(int competitionID){
-        String body = this.request("competitions/"+ competitionID + "/matches");
-        List<Match> matches = null;
-        if(body != null)
-            if(!body.isEmpty()) {
-                //System.out.println(body);
-                Gson gson = new Gson();
-                JsonObject jsonObject;
-
-                jsonObject = gson.fromJson(body, JsonObject.class);
-                Type matchListType = new TypeToken<ArrayList<Match>>() {
-                }.getType();
-                matches = gson.fromJson((jsonObject.get("matches")), matchListType);
-            }
-        return matches;
+        return request("competitions/" + competitionID + "/matches", "matches", Match.class);
     }
 
     //Only use once. Integer = teamID, Team = team object.
     public HashMap<Integer,Team> getTeams(int competitionID)
     {
         HashMap<Integer, Team> result = new HashMap<Integer, Team>();
-        String body = this.request("/competitions/" +competitionID + "/teams");
-        //System.out.println(body);
-
-        Gson gson = new Gson();
-        JsonObject jsonObject;
-
-        jsonObject = gson.fromJson(body, JsonObject.class);
-        Type teamListType = new TypeToken<ArrayList<Team>>(){}.getType();
-        List<Team> teams = gson.fromJson((jsonObject.get("teams")), teamListType);
-        for(Team t : teams)
-            result.put(t.getId(), t);
+        List<Team> teams = request("competitions/" + competitionID + "/teams", "teams", Team.class);
+        if (teams != null)
+            for(Team t : teams)
+                result.put(t.getId(), t);
 
         return result;
     }
@@ -121,4 +252,3 @@ public class Manager {
         //System.out.println(manager.getTeams(2014));
     }
 }
-
@@ -0,0 +1,251 @@
+package dataAccess;
+
+import configuration.ConfigXML;
+import domain.*;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Synchronizes the competitions and their matches from the football-data.org API with the database.
+ * <p>
+ * The sync is incremental: only the competitions whose lastUpdated changed since the previous sync
+ * have their matches requested, and only the matches that are new, or whose status, date or
+ * lastUpdated changed, are written. A new match gets its event, with its questions and forecasts;
+ * a changed one updates its event. When a match finishes, the result of the questions of its event
+ * is published, which pays out their bets.
+ * <p>
+ * The matches of several competitions are requested at the same time, up to a given number of
+ * requests in flight, while the calling thread writes the ones already received in batches of
+ * changed matches, one transaction per batch. The next competition is only requested once a
+ * response has been written, so a slow database holds back the requests.
+ */
+public class MatchIngestion {
+
+    private final EntityManager db;
+    private final Manager manager;
+    private final int parallelism;
+    private final int batchSize;
+
+    // Events whose match finished during this sync, to be settled once everything is written
+    private final List<Integer> finishedEvents = new ArrayList<Integer>();
+    // New events of finished matches, whose ids are known once their batch is committed
+    private final List<Event> finishedNewEvents = new ArrayList<Event>();
+    private int created;
+    private int updated;
+
+    /**
+     * Constructor.
+     * @param db the entity manager the data is persisted with
+     * @param manager the client of the API
+     * @param parallelism maximum number of competitions whose matches are requested at the same time
+     * @param batchSize number of changed matches written per transaction
+     */
+    public MatchIngestion(EntityManager db, Manager manager, int parallelism, int batchSize) {
+        this.db = db;
+        this.manager = manager;
+        this.parallelism = Math.max(1, parallelism);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Brings the competitions whose data changed up to date, and settles the matches that finished.
+     * @return the number of events created or updated
+     * @throws IllegalStateException if some of the data could not be requested, after writing the rest
+     */
+    public int run() {
+        long start = System.currentTimeMillis();
+        List<Competition> competitions = manager.getCompetitions();
+        if (competitions == null) throw new IllegalStateException("The competitions could not be requested");
+
+        List<Competition> changed = new ArrayList<Competition>();
+        for (Competition c : competitions) {
+            Competition stored = db.find(Competition.class, c.getId());
+            if (stored == null || !Objects.equals(stored.getLastUpdated(), c.getLastUpdated())) changed.add(c);
+        }
+        db.clear();
+
+        ExecutorService fetchers = Executors.newFixedThreadPool(parallelism, new ThreadFactory() {
+            private final AtomicInteger n = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "match-ingestion-" + n.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        CompletionService<List<Match>> fetched = new ExecutorCompletionService<List<Match>>(fetchers);
+        Map<Future<List<Match>>, Competition> pending = new HashMap<Future<List<Match>>, Competition>();
+        int failed = 0;
+        try {
+            // A new request is only sent when a response has been written, so the responses waiting
+            // to be written never exceed the parallelism even if the database is slower than the API
+            Iterator<Competition> toFetch = changed.iterator();
+            for (int i = 0; i < parallelism && toFetch.hasNext(); i++) {
+                Competition c = toFetch.next();
+                pending.put(fetched.submit(() -> manager.getMatches(c.getId())), c);
+            }
+            for (int i = 0; i < changed.size(); i++) {
+                Future<List<Match>> next = fetched.take();
+                List<Match> matches = next.get();
+                // Retried in the next sync, as its lastUpdated is not stored
+                if (matches != null) sync(pending.remove(next), matches);
+                else failed++;
+
+                if (toFetch.hasNext()) {
+                    Competition c = toFetch.next();
+                    pending.put(fetched.submit(() -> manager.getMatches(c.getId())), c);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failed = changed.size();
+        } catch (ExecutionException e) {
+            e.getCause().printStackTrace();
+            failed = changed.size();
+        } finally {
+            for (Future<List<Match>> f : pending.keySet()) f.cancel(true);
+            fetchers.shutdownNow();
+            if (db.getTransaction().isActive()) db.getTransaction().rollback();
+            finishedNewEvents.clear();
+        }
+
+        int settled = settleFinished();
+        System.out.println("Synchronized " + changed.size() + " of " + competitions.size() + " competitions in " +
+                (System.currentTimeMillis() - start) + " ms: " + created + " events created, " + updated +
+                " updated, " + settled + " questions settled");
+        if (failed > 0) throw new IllegalStateException(failed + " competitions could not be synchronized");
+        return created + updated;
+    }
+
+    /**
+     * Writes the new and changed matches of a competition, and then stores its lastUpdated,
+     * so the competition is requested again if the sync does not finish.
+     */
+    private void sync(Competition c, List<Match> matches) {
+        String lastUpdated = c.getLastUpdated();
+        String country = c.getArea() != null ? c.getArea().getName() : "";
+        ResourceBundle labels = ResourceBundle.getBundle("Etiquetas");
+
+        db.getTransaction().begin();
+        if (db.find(Competition.class, c.getId()) == null) {
+            c.setLastUpdated(null);
+            db.persist(c);
+        }
+
+        int inBatch = 0;
+        for (Match m : matches) {
+            Match stored = db.find(Match.class, m.getId());
+            if (stored == null) {
+                m.setCompetition(db.getReference(Competition.class, c.getId()));
+                db.persist(m);
+                Event ev = newEvent(m, country, labels);
+                db.persist(ev);
+                EventCalendar.add(db, ev.getEventDate());
+                if (m.isFinished()) finishedNewEvents.add(ev);
+                created++;
+            } else if (hasChanged(stored, m)) {
+                boolean finishedNow = m.isFinished() && !stored.isFinished();
+                stored.setStatus(m.getStatus());
+                stored.setUtcDate(m.getUtcDate());
+                stored.setScore(m.getScore());
+                stored.setMatchday(m.getMatchday());
+                stored.setLastUpdated(m.getLastUpdated());
+                for (Event ev : eventsOf(stored)) {
+                    EventCalendar.move(db, ev, m.getUtcDate());
+                    DailyRollups.move(db, ev.getEventID(), m.getUtcDate());
+                    ev.setEventDate(m.getUtcDate());
+                    db.createQuery("UPDATE Bet b SET b.eventDate=?1 WHERE b.eventID=?2")
+                            .setParameter(1, m.getUtcDate()).setParameter(2, ev.getEventID()).executeUpdate();
+                    if (finishedNow) finishedEvents.add(ev.getEventID());
+                }
+                updated++;
+            } else {
+                continue;
+            }
+
+            if (++inBatch == batchSize) {
+                commit();
+                inBatch = 0;
+                db.getTransaction().begin();
+            }
+        }
+        db.find(Competition.class, c.getId()).setLastUpdated(lastUpdated);
+        commit();
+    }
+
+    private void commit() {
+        db.getTransaction().commit();
+        for (Event ev : finishedNewEvents) finishedEvents.add(ev.getEventID());
+        finishedNewEvents.clear();
+        db.clear();
+    }
+
+    private static boolean hasChanged(Match stored, Match m) {
+        return !Objects.equals(stored.getStatus(), m.getStatus())
+                || !Objects.equals(stored.getUtcDate(), m.getUtcDate())
+                || !Objects.equals(stored.getLastUpdated(), m.getLastUpdated());
+    }
+
+    private List<Event> eventsOf(Match m) {
+        TypedQuery<Event> q = db.createQuery("SELECT e FROM Event e WHERE e.match = ?1", Event.class);
+        q.setParameter(1, m);
+        return q.getResultList();
+    }
+
+    /**
+     * Publishes the result of the questions of the events whose match finished: the winner
+     * question (unless it was a draw) and the draw question.
+     * @return the number of questions settled
+     */
+    private int settleFinished() {
+        BetSettlementEngine engine = new BetSettlementEngine(db, ConfigXML.getInstance().getSettlementChunkSize());
+        int settled = 0;
+        for (Integer eventID : finishedEvents) {
+            Event ev = db.find(Event.class, eventID);
+            String winner = ev != null ? ev.getMatch().getWinner() : null;
+            if (winner == null || ev.getQuestions().size() < 2) continue;
+
+            // Forecasts in the order given by newEvent
+            Question winnerQuestion = ev.getQuestions().get(0);
+            Question drawQuestion = ev.getQuestions().get(1);
+            if (!winner.equals("DRAW"))
+                settled += settle(engine, winnerQuestion, winner.equals("HOME_TEAM") ? 0 : 1);
+            settled += settle(engine, drawQuestion, winner.equals("DRAW") ? 1 : 0);
+        }
+        finishedEvents.clear();
+        return settled;
+    }
+
+    /**
+     * Publishes the given forecast of a question, unless a result was already published by the administrator.
+     * @return 1 if the question was settled, 0 otherwise
+     */
+    private static int settle(BetSettlementEngine engine, Question q, int forecast) {
+        if (q.getCorrectForecast() != null) return 0;
+        engine.settle(q.getQuestionID(), q.getForecasts().get(forecast).getForecastID());
+        return 1;
+    }
+
+    /**
+     * Creates the event of a match, with the questions of every match.
+     * @param m the match
+     * @param country the country of the competition of the match
+     * @param labels the translations of the questions and forecasts
+     * @return the event
+     */
+    static Event newEvent(Match m, String country, ResourceBundle labels) {
+        Event ev = new Event(m.getHomeTeam().getName() + '-' + m.getAwayTeam().getName(), m.getUtcDate(), country, m);
+        Question q1 = ev.addQuestion(labels.getString("WinnerQuestion"), 1D);
+        Question q2 = ev.addQuestion(labels.getString("TieQuestion"), 2D);
+        q1.addForecast(m.getHomeTeam().getName(), 2D);
+        q1.addForecast(m.getAwayTeam().getName(), 2.4);
+        q2.addForecast(labels.getString("No"), 1D);
+        q2.addForecast(labels.getString("Yes"), 2D);
+        return ev;
+    }
+}
@@ -0,0 +1,90 @@
+package dataAccess;
+
+import domain.*;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Moves the amounts of money stored as doubles, before they were kept in cents, to their new fields.
+ * The entities still read the old field while it has a value, so the application works on a
+ * database that is not migrated yet, but the sums computed by the queries only see the new fields.
+ * The objects are migrated in chunks, each one in its own transaction, and migrating a database
+ * twice does nothing. It runs when the business logic starts, before the aggregate counters and
+ * the daily rollups are rebuilt, and it can also be run with the application stopped:
+ * <pre>
+ *     java -cp &lt;classpath&gt; dataAccess.MoneyMigration
+ * </pre>
+ */
+public class MoneyMigration {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    private MoneyMigration() {}
+
+    /**
+     * Migrates the database set in the configuration and rebuilds its aggregates.
+     * @param args not used
+     */
+    public static void main(String[] args) {
+        DataAccess dataAccess = new DataAccess();
+        try {
+            long migrated = dataAccess.migrateMoney();
+            System.out.println(migrated + " objects migrated to amounts in cents");
+            dataAccess.reconcileCounters();
+        } finally {
+            dataAccess.close();
+            DataAccess.shutdown();
+        }
+    }
+
+    /**
+     * Migrates every object whose amount of money is still stored in its old field.
+     * @param db the entity manager
+     * @return the number of objects migrated
+     */
+    public static long migrate(EntityManager db) {
+        long migrated = 0;
+        migrated += migrate(db, User.class, "x.wallet IS NOT NULL", u -> u.setWalletCents(u.getWalletCents()));
+        migrated += migrate(db, Card.class, "x.money IS NOT NULL", c -> c.setMoneyCents(c.getMoneyCents()));
+        migrated += migrate(db, Forecast.class, "x.fee IS NOT NULL", f -> f.setFeeHundredths(f.getFeeHundredths()));
+        migrated += migrate(db, Bet.class, "x.amount IS NOT NULL", b -> b.setAmountCents(b.getAmountCents()));
+        migrated += migrate(db, Transaction.class, "x.amount IS NOT NULL", t -> t.setAmountCents(t.getAmountCents()));
+        migrated += migrate(db, BalanceSnapshot.class, "x.balance IS NOT NULL", s -> s.setBalanceCents(s.getBalanceCents()));
+        return migrated;
+    }
+
+    /**
+     * Migrates the objects of a class, chunk by chunk, until none of them matches the condition.
+     * @param condition condition on the objects x that are not migrated
+     * @param convert migrates an object, so that it no longer matches the condition
+     */
+    static <T> long migrate(EntityManager db, Class<T> type, String condition, Consumer<T> convert) {
+        TypedQuery<T> query = db.createQuery("SELECT x FROM " + type.getSimpleName() + " x WHERE " + condition, type);
+        query.setMaxResults(CHUNK_SIZE);
+
+        long migrated = 0;
+        int conflicts = 0;
+        List<T> chunk;
+        while (!(chunk = query.getResultList()).isEmpty()) {
+            db.getTransaction().begin();
+            try {
+                for (T object : chunk) convert.accept(object);
+                db.getTransaction().commit();
+                migrated += chunk.size();
+                conflicts = 0;
+            } catch (RuntimeException e) {
+                // A wallet was changed meanwhile: the chunk is read and migrated again
+                if (!OptimisticRetry.shouldRetry(db, e, ++conflicts)) throw e;
+                continue;
+            } finally {
+                if (db.getTransaction().isActive()) db.getTransaction().rollback();
+            }
+            db.clear();
+        }
+        if (migrated > 0) System.out.println(migrated + " " + type.getSimpleName() + " objects migrated");
+        return migrated;
+    }
+}
@@ -0,0 +1,65 @@
+package dataAccess;
+
+import javax.persistence.EntityManager;
+import javax.persistence.OptimisticLockException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retries the transactions that fail because another one changed the same versioned entity
+ * (a user or a card) after it was read. Used in a loop around the whole read-modify-write:
+ * <pre>
+ *     for (int attempt = 1; ; attempt++) {
+ *         try {
+ *             ...; return;
+ *         } catch (RuntimeException e) {
+ *             if (!OptimisticRetry.shouldRetry(db, e, attempt)) throw e;
+ *         }
+ *     }
+ * </pre>
+ * Before a retry, the transaction is rolled back and the persistence context cleared, so the
+ * next attempt reads the current values, after a short random pause that keeps the conflicting
+ * transactions from colliding again.
+ */
+public class OptimisticRetry {
+
+    /**
+     * Maximum number of attempts of a transaction.
+     */
+    public static final int MAX_ATTEMPTS = 8;
+
+    private static final long BASE_PAUSE_MILLIS = 2;
+
+    private OptimisticRetry() {}
+
+    /**
+     * Decides whether a failed attempt has to be retried, preparing the entity manager if so.
+     * @param db the entity manager of the transaction
+     * @param e the exception thrown by the attempt
+     * @param attempt the number of the attempt that failed, starting with 1
+     * @return true if it was a conflict with another transaction and there are attempts left
+     */
+    public static boolean shouldRetry(EntityManager db, RuntimeException e, int attempt) {
+        if (db.getTransaction().isActive()) db.getTransaction().rollback();
+        if (!isConflict(e) || attempt >= MAX_ATTEMPTS) return false;
+
+        db.clear();
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(1, (BASE_PAUSE_MILLIS << attempt) + 1));
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Tells whether an exception, or one of its causes, is an optimistic lock failure.
+     * @param e the exception
+     * @return true if the transaction conflicted with another one
+     */
+    public static boolean isConflict(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause())
+            if (t instanceof OptimisticLockException) return true;
+        return false;
+    }
+}
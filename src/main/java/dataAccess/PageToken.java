@@ -0,0 +1,50 @@
+package dataAccess;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes and decodes the continuation tokens of paged queries.
+ * A token holds the sort key of the last item of a page, so the next page is read with a
+ * keyset condition (the items after that key) instead of skipping all the previous rows.
+ * Clients must treat tokens as opaque strings.
+ */
+public class PageToken {
+
+    private static final String SEPARATOR = ":";
+
+    private PageToken() {}
+
+    /**
+     * Builds the token for the given sort key.
+     * @param keys the values of the sort key of the last item of a page
+     * @return the token
+     */
+    public static String encode(long... keys) {
+        StringBuilder sb = new StringBuilder();
+        for (long k : keys) {
+            if (sb.length() > 0) sb.append(SEPARATOR);
+            sb.append(k);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Extracts the sort key of a token.
+     * @param token the token
+     * @param size the number of values of the sort key
+     * @return the values of the sort key
+     * @throws IllegalArgumentException if the token is not valid
+     */
+    public static long[] decode(String token, int size) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(SEPARATOR);
+            if (parts.length != size) throw new IllegalArgumentException("Invalid page token: " + token);
+            long[] keys = new long[size];
+            for (int i = 0; i < size; i++) keys[i] = Long.parseLong(parts[i]);
+            return keys;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid page token: " + token, e);
+        }
+    }
+}
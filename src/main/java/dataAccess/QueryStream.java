@@ -0,0 +1,79 @@
+package dataAccess;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Streams the results of a query in constant memory. The results are read in chunks sorted by a
+ * unique key, each chunk starting after the key of the last result of the previous one, as the
+ * continuation tokens of the pages do, and the persistence context is cleared between chunks, so
+ * only one chunk is held at a time however many results there are.
+ * <p>
+ * The query must take the key to start after as its last parameter and sort by it, for example:
+ * <pre>
+ *     QueryStream.of(db, "SELECT b FROM Bet b WHERE b.active = true AND b.betID &gt; ?1 ORDER BY b.betID",
+ *             Bet.class, Bet::getBetID, Integer.MIN_VALUE)
+ * </pre>
+ * As the persistence context is cleared, it must not be used inside an active transaction, and the
+ * entities of a chunk are detached when the next one is read.
+ */
+public class QueryStream {
+
+    /**
+     * Number of results read at a time.
+     */
+    public static final int CHUNK_SIZE = 1000;
+
+    private QueryStream() {}
+
+    /**
+     * Streams the results of a query.
+     * @param db the entity manager
+     * @param jpql the query, taking the key to start after as its last parameter and sorted by that key
+     * @param type the type of the results
+     * @param key returns the key of a result
+     * @param firstKey a value lower than every key
+     * @param params the other parameters of the query
+     * @return the results, read as they are consumed
+     */
+    public static <T> Stream<T> of(EntityManager db, String jpql, Class<T> type, Function<T, Object> key,
+                                   Object firstKey, Object... params) {
+        TypedQuery<T> query = db.createQuery(jpql, type);
+        for (int i = 0; i < params.length; i++) query.setParameter(i + 1, params[i]);
+        query.setMaxResults(CHUNK_SIZE);
+        int keyParameter = params.length + 1;
+
+        Spliterator<T> chunks = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            private Object lastKey = firstKey;
+            private Iterator<T> chunk;
+            private boolean lastChunk;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                if (chunk == null || !chunk.hasNext()) {
+                    if (lastChunk) return false;
+                    if (chunk != null) db.clear();
+                    query.setParameter(keyParameter, lastKey);
+                    List<T> results = query.getResultList();
+                    lastChunk = results.size() < CHUNK_SIZE;
+                    chunk = results.iterator();
+                    if (!chunk.hasNext()) return false;
+                }
+                T next = chunk.next();
+                lastKey = key.apply(next);
+                action.accept(next);
+                return true;
+            }
+        };
+        return StreamSupport.stream(chunks, false);
+    }
+}
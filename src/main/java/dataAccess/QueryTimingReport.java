@@ -0,0 +1,160 @@
+package dataAccess;
+
+import domain.*;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import javax.persistence.TypedQuery;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Times the queries of {@link DataAccess} that filter on an indexed field, on one or more database
+ * files. Run on the backup kept by {@link IndexMigration} and on the migrated database, it shows how
+ * much each query gains when it becomes an index lookup instead of a scan of the whole class:
+ * <pre>
+ *     java -cp &lt;classpath&gt; dataAccess.QueryTimingReport bets.temp.pre-index.bak bets.temp [runs]
+ * </pre>
+ * ObjectDB does not return the plan it chooses, so it is read from the times (a scan grows with the
+ * number of objects, a lookup does not). The plan itself can be checked running the same queries
+ * in the ObjectDB Explorer.
+ * <p>
+ * The bet queries that now filter on the question, event and active state copied into the bets are
+ * also timed as they were written before, going through the forecast, question and event of each bet
+ * (the rows marked "(path)"), so both versions can be compared on the same database.
+ */
+public class QueryTimingReport {
+
+    private static final int WARMUP_RUNS = 5;
+    private static final int DEFAULT_RUNS = 50;
+
+    private QueryTimingReport() {}
+
+    /**
+     * Prints the average time of each query on each of the given database files.
+     * @param args the database files, optionally followed by the number of timed runs of each query
+     */
+    public static void main(String[] args) {
+        List<String> files = new ArrayList<String>(Arrays.asList(args));
+        int runs = DEFAULT_RUNS;
+        if (!files.isEmpty() && files.get(files.size() - 1).matches("\\d+"))
+            runs = Integer.parseInt(files.remove(files.size() - 1));
+        if (files.isEmpty()) files.add(DataAccess.getDataBaseFileName());
+
+        Map<String, List<Double>> times = new LinkedHashMap<String, List<Double>>();
+        for (String file : files) {
+            EntityManagerFactory factory = Persistence.createEntityManagerFactory("objectdb:" + file);
+            EntityManager db = factory.createEntityManager();
+            try {
+                for (Map.Entry<String, Double> e : time(db, runs).entrySet())
+                    times.computeIfAbsent(e.getKey(), k -> new ArrayList<Double>()).add(e.getValue());
+            } finally {
+                db.close();
+                factory.close();
+            }
+        }
+
+        System.out.println("Average time of " + runs + " runs in ms");
+        StringBuilder header = new StringBuilder(String.format("%-32s", "query"));
+        for (String file : files) header.append(String.format("%16s", shorten(file)));
+        if (files.size() > 1) header.append(String.format("%10s", "speedup"));
+        System.out.println(header);
+        for (Map.Entry<String, List<Double>> e : times.entrySet()) {
+            List<Double> t = e.getValue();
+            StringBuilder line = new StringBuilder(String.format("%-32s", e.getKey()));
+            for (Double ms : t) line.append(String.format("%16.3f", ms));
+            if (t.size() > 1) line.append(String.format("%9.1fx", t.get(0) / t.get(t.size() - 1)));
+            System.out.println(line);
+        }
+    }
+
+    /**
+     * Times the queries on a database, taking their parameters from the data it contains.
+     * The queries whose parameters cannot be found (for example, a database without bets) are skipped.
+     */
+    private static Map<String, Double> time(EntityManager db, int runs) {
+        Map<String, Double> times = new LinkedHashMap<String, Double>();
+        User user = first(db, "SELECT u FROM User u", User.class);
+        Event event = first(db, "SELECT e FROM Event e", Event.class);
+        Bet bet = first(db, "SELECT b FROM Bet b", Bet.class);
+        Card card = first(db, "SELECT c FROM Card c", Card.class);
+        Date now = new Date();
+
+        if (user != null)
+            times.put("user by username", time(db, runs, "SELECT u FROM User u WHERE u.username=?1", User.class,
+                    user.getUsername()));
+        if (event != null) {
+            times.put("events of a date", time(db, runs, "SELECT ev FROM Event ev WHERE ev.eventDate=?1", Event.class,
+                    event.getEventDate()));
+            times.put("event dates of a month", time(db, runs, "SELECT DISTINCT ev.eventDate FROM Event ev " +
+                    "WHERE ev.eventDate BETWEEN ?1 AND ?2", Date.class, event.getEventDate(), now));
+            times.put("events of a country", time(db, runs, "SELECT ev FROM Event ev WHERE ev.country=?1", Event.class,
+                    event.getCountry()));
+            times.put("questions of an event", time(db, runs, "SELECT qu FROM Question qu WHERE qu.event=?1",
+                    Question.class, event));
+        }
+        times.put("upcoming events", time(db, runs, "SELECT e FROM Event e WHERE e.eventDate > ?1 ORDER BY e.eventDate",
+                Event.class, now));
+        if (bet != null) {
+            times.put("bet of a user and forecast", time(db, runs, "SELECT b FROM Bet b WHERE b.gambler = ?1 " +
+                    "AND b.userForecast = ?2", Bet.class, bet.getGambler(), bet.getUserForecast()));
+            times.put("bets of a forecast", time(db, runs, "SELECT b FROM Bet b WHERE b.userForecast=?1", Bet.class,
+                    bet.getUserForecast()));
+            times.put("active bets of a user (path)", time(db, runs, "SELECT b FROM Bet b WHERE b.gambler = ?1 " +
+                    "AND b.userForecast.question.correctForecast IS NULL", Bet.class, bet.getGambler()));
+            times.put("active bets of a user", time(db, runs, "SELECT b FROM Bet b WHERE b.gambler = ?1 " +
+                    "AND b.active = true", Bet.class, bet.getGambler()));
+            Question question = bet.getUserForecast().getQuestion();
+            times.put("bets of an event (path)", time(db, runs, "SELECT b FROM Bet b WHERE b.userForecast.question.event=?1",
+                    Bet.class, question.getEvent()));
+            times.put("bets of an event", time(db, runs, "SELECT b FROM Bet b WHERE b.eventID=?1", Bet.class,
+                    question.getEvent().getEventID()));
+            times.put("bets of a question (path)", time(db, runs, "SELECT b FROM Bet b WHERE b.userForecast.question=?1",
+                    Bet.class, question));
+            times.put("bets of a question", time(db, runs, "SELECT b FROM Bet b WHERE b.questionID=?1", Bet.class,
+                    question.getQuestionID()));
+            times.put("money bet per day (path)", time(db, runs, "SELECT b.userForecast.question.event.eventDate, " +
+                    "SUM(b.amountCents) FROM Bet b GROUP BY b.userForecast.question.event.eventDate", Object[].class));
+            times.put("money bet per day", time(db, runs, "SELECT b.eventDate, SUM(b.amountCents) FROM Bet b " +
+                    "GROUP BY b.eventDate", Object[].class));
+        }
+        times.put("active bets (path)", time(db, runs, "SELECT b FROM Bet b WHERE b.userForecast.question.correctForecast IS NULL",
+                Bet.class));
+        times.put("active bets", time(db, runs, "SELECT b FROM Bet b WHERE b.active = true", Bet.class));
+        if (card != null)
+            times.put("transactions of a card", time(db, runs, "SELECT t FROM Transaction t WHERE t.card = ?1 " +
+                    "ORDER BY t.transactionID DESC", Transaction.class, card));
+        return times;
+    }
+
+    /**
+     * Runs a query the given number of times after warming it up.
+     * @return the average time of a run in ms
+     */
+    private static <T> double time(EntityManager db, int runs, String jpql, Class<T> type, Object... params) {
+        Function<EntityManager, List<T>> query = em -> {
+            TypedQuery<T> q = em.createQuery(jpql, type);
+            for (int i = 0; i < params.length; i++) q.setParameter(i + 1, params[i]);
+            return q.getResultList();
+        };
+        for (int i = 0; i < WARMUP_RUNS; i++) query.apply(db);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            query.apply(db).size();
+            db.clear(); // so the results are read from the database and not from the persistence context
+        }
+        return (System.nanoTime() - start) / 1e6 / runs;
+    }
+
+    private static <T> T first(EntityManager db, String jpql, Class<T> type) {
+        List<T> result = db.createQuery(jpql, type).setMaxResults(1).getResultList();
+        return result.isEmpty() ? null : result.get(0);
+    }
+
+    private static String shorten(String file) {
+        String name = file.substring(file.lastIndexOf('/') + 1);
+        return name.length() > 15 ? name.substring(name.length() - 15) : name;
+    }
+}
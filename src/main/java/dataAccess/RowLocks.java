@@ -0,0 +1,50 @@
+package dataAccess;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import java.util.function.Supplier;
+
+/**
+ * Locks the shared rows that many transactions update (the aggregate counters, the daily
+ * rollups, the months of the event calendar and the statistics of the users), creating them
+ * the first time they are needed.
+ * <p>
+ * A missing row is created in its own short transaction, with a separate entity manager, and
+ * then read again. When two transactions need the same new row at the same time, both try to
+ * create it, one of them fails with a duplicate key and simply reads the row created by the
+ * other, instead of the duplicate making the whole bet or deposit fail at commit.
+ */
+class RowLocks {
+
+    private RowLocks() {}
+
+    /**
+     * Returns a row locked until the transaction ends, creating it if it does not exist.
+     * It must be called inside an active transaction.
+     * @param db the entity manager of the transaction
+     * @param type the class of the row
+     * @param key the primary key of the row
+     * @param create creates the row, with its initial values
+     * @return the row, managed by the given entity manager
+     */
+    static <T> T lockOrCreate(EntityManager db, Class<T> type, Object key, Supplier<T> create) {
+        T row = db.find(type, key, LockModeType.PESSIMISTIC_WRITE);
+        if (row != null) return row;
+
+        EntityManager em = db.getEntityManagerFactory().createEntityManager();
+        try {
+            em.getTransaction().begin();
+            if (em.find(type, key) == null) em.persist(create.get());
+            em.getTransaction().commit();
+        } catch (RuntimeException e) {
+            // Created meanwhile by another transaction: it is read below
+        } finally {
+            if (em.getTransaction().isActive()) em.getTransaction().rollback();
+            em.close();
+        }
+
+        row = db.find(type, key, LockModeType.PESSIMISTIC_WRITE);
+        if (row == null) throw new IllegalStateException(type.getSimpleName() + " " + key + " could not be created");
+        return row;
+    }
+}
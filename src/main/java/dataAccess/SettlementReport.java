@@ -0,0 +1,105 @@
+package dataAccess;
+
+import utils.Money;
+
+/**
+ * Summary of the settlement of a single question: how many bets were processed,
+ * how much money was paid out and how long it took.
+ */
+public class SettlementReport {
+
+    private final int questionID;
+    private int bets;
+    private int winners;
+    private long amountPaidCents;
+    private long durationNanos;
+
+    /**
+     * Constructor that instantiates an empty report.
+     * @param questionID the id of the settled question
+     */
+    public SettlementReport(int questionID) {
+        this.questionID = questionID;
+    }
+
+    void addBets(int n) {
+        bets += n;
+    }
+
+    void addWinners(int n, long cents) {
+        winners += n;
+        amountPaidCents = Money.add(amountPaidCents, cents);
+    }
+
+    void finish(long durationNanos) {
+        this.durationNanos = durationNanos;
+    }
+
+    /**
+     * Getter for the id of the settled question.
+     * @return the question id
+     */
+    public int getQuestionID() {
+        return questionID;
+    }
+
+    /**
+     * Getter for the number of bets processed by this settlement.
+     * @return the number of bets
+     */
+    public int getBets() {
+        return bets;
+    }
+
+    /**
+     * Getter for the number of winning bets paid out.
+     * @return the number of winners
+     */
+    public int getWinners() {
+        return winners;
+    }
+
+    /**
+     * Getter for the total amount of money paid out.
+     * @return the amount paid
+     */
+    public double getAmountPaid() {
+        return Money.toDouble(amountPaidCents);
+    }
+
+    /**
+     * Getter for the total amount of money paid out in cents.
+     * @return the amount paid in cents
+     */
+    public long getAmountPaidCents() {
+        return amountPaidCents;
+    }
+
+    /**
+     * Getter for the duration of the settlement.
+     * @return the duration in milliseconds
+     */
+    public double getDurationMillis() {
+        return durationNanos / 1_000_000.0;
+    }
+
+    /**
+     * Returns the throughput of the settlement.
+     * @return processed bets per second
+     */
+    public double getBetsPerSecond() {
+        return durationNanos == 0 ? 0 : bets / (durationNanos / 1_000_000_000.0);
+    }
+
+    @Override
+    public String toString() {
+        return "SettlementReport{" +
+                "questionID=" + questionID +
+                ", bets=" + bets +
+                ", winners=" + winners +
+                ", amountPaid=" + Money.format(amountPaidCents) +
+                ", durationMillis=" + String.format("%.3f", getDurationMillis()) +
+                ", betsPerSecond=" + String.format("%.1f", getBetsPerSecond()) +
+                '}';
+    }
+}
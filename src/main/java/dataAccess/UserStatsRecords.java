@@ -0,0 +1,131 @@
+package dataAccess;
+
+import domain.UserStats;
+import utils.Money;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Reads and updates the {@link UserStats} entities.
+ * The statistics of a user are updated in the same transaction that places, settles or refunds
+ * their bets, so they are always consistent with them. The reconciliation rebuilds them from the
+ * bets, which is also how they are created for a database that did not have them yet. A bet only
+ * counts as won once the settlement has paid it.
+ */
+public class UserStatsRecords {
+
+    private UserStatsRecords() {}
+
+    /**
+     * Returns the statistics of a user locked for update, creating them if they do not exist.
+     * It must be called inside an active transaction, and the statistics stay locked until the
+     * transaction ends, so concurrent updates are not lost.
+     * @param db the entity manager of the transaction
+     * @param userID the user id
+     * @return the statistics of the user
+     */
+    public static UserStats update(EntityManager db, Integer userID) {
+        return RowLocks.lockOrCreate(db, UserStats.class, userID, () -> new UserStats(userID));
+    }
+
+    /**
+     * Removes the statistics of a user, when the user is removed with their bets. It must be
+     * called inside an active transaction.
+     * @param db the entity manager of the transaction
+     * @param userID the user id
+     */
+    public static void remove(EntityManager db, Integer userID) {
+        UserStats stats = db.find(UserStats.class, userID);
+        if (stats != null) db.remove(stats);
+    }
+
+    /**
+     * Returns the current statistics of a user.
+     * @param db the entity manager
+     * @param userID the user id
+     * @return the statistics, all 0 if they have not been created yet
+     */
+    public static UserStats get(EntityManager db, Integer userID) {
+        UserStats stats = db.find(UserStats.class, userID);
+        return stats != null ? stats : new UserStats(userID);
+    }
+
+    /**
+     * Rebuilds the statistics of every user from the bets in the database, reporting the users
+     * whose statistics had drifted.
+     * @param db the entity manager
+     * @return the number of users whose stored statistics were wrong
+     */
+    public static int rebuild(EntityManager db) {
+        Map<Integer, long[]> actual = new HashMap<Integer, long[]>();
+        sumPerUser(db, actual, 0, 3, "SELECT b.gambler.userID, COUNT(b), SUM(b.amountCents) FROM Bet b " +
+                "GROUP BY b.gambler.userID");
+        sumPerUser(db, actual, 1, 4, "SELECT b.gambler.userID, COUNT(b), SUM(b.amountCents) FROM Bet b " +
+                "WHERE b.active = true GROUP BY b.gambler.userID");
+        // Each prize is rounded to the cent on its own, as when it was paid, so they are added one by one
+        try (Stream<Object[]> won = QueryStream.of(db, "SELECT b.betID, b.gambler.userID, b.amountCents, " +
+                "b.userForecast.feeHundredths FROM Bet b WHERE b.active = false AND b.settled = true " +
+                "AND b.userForecast.question.correctForecast = b.userForecast AND b.betID > ?1 ORDER BY b.betID",
+                Object[].class, row -> row[0], Integer.MIN_VALUE)) {
+            won.forEach(row -> {
+                long[] sums = actual.computeIfAbsent((Integer) row[1], u -> new long[6]);
+                sums[2]++;
+                sums[5] = Money.add(sums[5], Money.multiply(AggregateCounters.toLong(row[2]),
+                        AggregateCounters.toLong(row[3])));
+            });
+        }
+
+        db.getTransaction().begin();
+        try {
+            int drifted = 0;
+            TypedQuery<UserStats> stored = db.createQuery("SELECT s FROM UserStats s", UserStats.class);
+            for (UserStats s : stored.getResultList()) {
+                long[] values = actual.remove(s.getUserID());
+                if (set(s, values != null ? values : new long[6])) drifted++;
+            }
+            for (Map.Entry<Integer, long[]> e : actual.entrySet()) {
+                UserStats s = new UserStats(e.getKey());
+                db.persist(s);
+                if (set(s, e.getValue())) drifted++;
+            }
+            db.getTransaction().commit();
+            return drifted;
+        } finally {
+            if (db.getTransaction().isActive()) db.getTransaction().rollback();
+        }
+    }
+
+    /**
+     * Runs a query returning (user id, count, amount) rows and adds the counts and amounts to the
+     * given positions of the statistics of each user.
+     */
+    private static void sumPerUser(EntityManager db, Map<Integer, long[]> sums, int countPosition,
+                                   int amountPosition, String query) {
+        TypedQuery<Object[]> q = db.createQuery(query, Object[].class);
+        for (Object[] row : q.getResultList()) {
+            long[] userSums = sums.computeIfAbsent((Integer) row[0], u -> new long[6]);
+            userSums[countPosition] += AggregateCounters.toLong(row[1]);
+            userSums[amountPosition] = Money.add(userSums[amountPosition], AggregateCounters.toLong(row[2]));
+        }
+    }
+
+    /**
+     * Overwrites the statistics of a user with their actual values.
+     * @return true if the stored values were different
+     */
+    private static boolean set(UserStats s, long[] values) {
+        boolean drifted = !Arrays.equals(s.getValues(), values);
+        if (drifted) {
+            UserStats actual = new UserStats(s.getUserID());
+            actual.setValues(values);
+            System.out.println("User stats drifted: " + s + " -> " + actual);
+        }
+        s.setValues(values);
+        return drifted;
+    }
+}
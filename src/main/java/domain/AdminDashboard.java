@@ -0,0 +1,119 @@
+package domain;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Snapshot of the figures shown in the administrator overview, computed together so the
+ * overview is loaded with a single request.
+ * @author Josefinators team
+ */
+@XmlAccessorType(XmlAccessType.FIELD)
+public class AdminDashboard implements Serializable {
+	private long registeredUsers;
+	private long upcomingEvents;
+	private long activeBets;
+	private double activeMoney; // money bet in the active bets
+	private Map<LocalDate, Double> moneyBetPerDay = new TreeMap<LocalDate, Double>();
+	private Map<LocalDate, Double> wonByUsersPerDay = new TreeMap<LocalDate, Double>();
+	private Map<LocalDate, Double> wonByBetAndRuinPerDay = new TreeMap<LocalDate, Double>();
+	private Date computedAt;
+
+	/**
+	 * Default constructor.
+	 */
+	public AdminDashboard() {}
+
+	/**
+	 * Constructor.
+	 * @param registeredUsers number of registered users
+	 * @param upcomingEvents number of upcoming events
+	 * @param activeBets number of active bets
+	 * @param activeMoney money bet in the active bets
+	 * @param moneyBetPerDay money bet in the events of each day of the last month
+	 * @param wonByUsersPerDay money won by users in the events of each day of the last month
+	 * @param wonByBetAndRuinPerDay money won by BetAndRuin in the events of each day of the last month
+	 * @param computedAt the time the figures were computed
+	 */
+	public AdminDashboard(long registeredUsers, long upcomingEvents, long activeBets, double activeMoney,
+			Map<LocalDate, Double> moneyBetPerDay, Map<LocalDate, Double> wonByUsersPerDay,
+			Map<LocalDate, Double> wonByBetAndRuinPerDay, Date computedAt) {
+		this.registeredUsers = registeredUsers;
+		this.upcomingEvents = upcomingEvents;
+		this.activeBets = activeBets;
+		this.activeMoney = activeMoney;
+		this.moneyBetPerDay = moneyBetPerDay;
+		this.wonByUsersPerDay = wonByUsersPerDay;
+		this.wonByBetAndRuinPerDay = wonByBetAndRuinPerDay;
+		this.computedAt = computedAt;
+	}
+
+	/**
+	 * Getter for the number of registered users.
+	 * @return the number of users
+	 */
+	public long getRegisteredUsers() {
+		return registeredUsers;
+	}
+
+	/**
+	 * Getter for the number of upcoming events.
+	 * @return the number of upcoming events
+	 */
+	public long getUpcomingEvents() {
+		return upcomingEvents;
+	}
+
+	/**
+	 * Getter for the number of active bets (the ones that have no correct forecast yet).
+	 * @return the number of active bets
+	 */
+	public long getActiveBets() {
+		return activeBets;
+	}
+
+	/**
+	 * Getter for the money bet in the active bets.
+	 * @return the money at stake
+	 */
+	public double getActiveMoney() {
+		return activeMoney;
+	}
+
+	/**
+	 * Getter for the money bet in the events of each day of the last month.
+	 * @return a map with days as keys and the sum of each day as value
+	 */
+	public Map<LocalDate, Double> getMoneyBetPerDay() {
+		return moneyBetPerDay;
+	}
+
+	/**
+	 * Getter for the money won by users in the events of each day of the last month.
+	 * @return a map with days as keys and the sum of each day as value
+	 */
+	public Map<LocalDate, Double> getWonByUsersPerDay() {
+		return wonByUsersPerDay;
+	}
+
+	/**
+	 * Getter for the money won by BetAndRuin in the events of each day of the last month.
+	 * @return a map with days as keys and the sum of each day as value
+	 */
+	public Map<LocalDate, Double> getWonByBetAndRuinPerDay() {
+		return wonByBetAndRuinPerDay;
+	}
+
+	/**
+	 * Getter for the time the figures were computed.
+	 * @return the time of the snapshot
+	 */
+	public Date getComputedAt() {
+		return computedAt;
+	}
+}
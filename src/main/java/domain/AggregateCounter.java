@@ -0,0 +1,116 @@
+package domain;
+
+import utils.Money;
+
+import javax.persistence.*;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import java.io.Serializable;
+
+/**
+ * This class represents a counter kept up to date by the operations that modify the database,
+ * so that the totals shown in the admin overview do not need to be computed on each visit.
+ * Each counter stores a number of items and, when it makes sense, the amount of money they hold,
+ * split into several rows so that concurrent updates do not wait for each other; the rows after the
+ * first one are named after the counter followed by "#" and the number of the row.
+ * @author Josefinators team
+ */
+@Entity
+@XmlAccessorType(XmlAccessType.FIELD)
+public class AggregateCounter implements Serializable {
+
+    /**
+     * Number of registered users.
+     */
+    public static final String USERS = "users";
+
+    /**
+     * Number of active bets (bets whose question has no correct forecast yet) and the money bet in them.
+     */
+    public static final String ACTIVE_BETS = "activeBets";
+
+    @Id
+    private String name;
+    private long count;
+    private long amountCents;
+
+    /**
+     * Default constructor.
+     */
+    public AggregateCounter() {}
+
+    /**
+     * Constructor. Creates a counter with value 0.
+     * @param name the name of the counter
+     */
+    public AggregateCounter(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Getter for the name of the counter.
+     * @return the name of the counter
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Getter for the number of items counted.
+     * @return the count
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Setter for the number of items counted.
+     * @param count the count
+     */
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    /**
+     * Getter for the amount of money held by the items counted.
+     * @return the amount
+     */
+    public double getAmount() {
+        return Money.toDouble(amountCents);
+    }
+
+    /**
+     * Getter for the amount of money held by the items counted in cents.
+     * @return the amount in cents
+     */
+    public long getAmountCents() {
+        return amountCents;
+    }
+
+    /**
+     * Setter for the amount of money held by the items counted in cents.
+     * @param amountCents the amount in cents
+     */
+    public void setAmountCents(long amountCents) {
+        this.amountCents = amountCents;
+    }
+
+    /**
+     * Adds the given deltas to the counter.
+     * @param countDelta the number of items added (negative if removed)
+     * @param amountDelta the money added in cents (negative if removed)
+     */
+    public void add(long countDelta, long amountDelta) {
+        count += countDelta;
+        amountCents = Money.add(amountCents, amountDelta);
+    }
+
+    @Override
+    public String toString() {
+        return "AggregateCounter{" +
+                "name='" + name + '\'' +
+                ", count=" + count +
+                ", amount=" + Money.format(amountCents) +
+                '}';
+    }
+}
@@ -0,0 +1,103 @@
+package domain;
+
+import utils.Money;
+
+import javax.jdo.annotations.Index;
+import javax.persistence.*;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * This class represents the balance of the wallet of a user right after one of the entries of the
+ * ledger of its card. They are taken every few entries and on the first entry of each day, so the
+ * balance at any moment is the one of the previous snapshot plus the few entries that follow it.
+ * @author Josefinators team
+ */
+@Entity
+@XmlAccessorType(XmlAccessType.FIELD)
+@Index(members = {"card", "sequence"}) // the snapshot before an entry
+public class BalanceSnapshot implements Serializable {
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long snapshotID;
+
+    @ManyToOne
+    private Card card;
+    private long sequence; // the entry the balance is taken after, 0 for the opening balance
+    @Index
+    private Date date;
+    private Double balance; // before the amounts were kept in cents, only read until they are migrated
+    private long balanceCents;
+
+    /**
+     * Default constructor.
+     */
+    public BalanceSnapshot() {}
+
+    /**
+     * Constructor.
+     * @param card the card whose ledger the snapshot belongs to
+     * @param sequence the number of the entry the balance is taken after, 0 for the opening balance
+     * @param date the date of that entry
+     * @param balanceCents the balance of the wallet after that entry, in cents
+     */
+    public BalanceSnapshot(Card card, long sequence, Date date, long balanceCents) {
+        this.card = card;
+        this.sequence = sequence;
+        this.date = date;
+        this.balanceCents = balanceCents;
+    }
+
+    /**
+     * Getter for the card whose ledger the snapshot belongs to.
+     * @return the card
+     */
+    public Card getCard() {
+        return card;
+    }
+
+    /**
+     * Getter for the number of the entry the balance is taken after.
+     * @return the sequence number, 0 for the opening balance
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Getter for the date of the entry the balance is taken after.
+     * @return the date
+     */
+    public Date getDate() {
+        return date;
+    }
+
+    /**
+     * Getter for the balance of the wallet after the entry.
+     * @return the balance in cents
+     */
+    public long getBalanceCents() {
+        // Snapshots taken while the field was a double read it as 0 until they are migrated
+        return balance != null && balance != 0 ? Money.toCents(balance) : balanceCents;
+    }
+
+    /**
+     * Setter for the balance of the wallet after the entry.
+     * @param balanceCents the balance in cents
+     */
+    public void setBalanceCents(long balanceCents) {
+        this.balanceCents = balanceCents;
+        this.balance = null;
+    }
+
+    @Override
+    public String toString() {
+        return "BalanceSnapshot{" +
+                "card=" + (card != null ? card.getCardNumber() : null) +
+                ", sequence=" + sequence +
+                ", date=" + date +
+                ", balance=" + Money.format(getBalanceCents()) +
+                '}';
+    }
+}
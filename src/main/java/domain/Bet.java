@@ -1,25 +1,48 @@
 package domain;
 
+import utils.Money;
+
+import javax.jdo.annotations.Index;
+import javax.jdo.annotations.Indices;
 import javax.persistence.*;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlID;
 import javax.xml.bind.annotation.XmlIDREF;
 import java.io.Serializable;
+import java.util.Date;
 
 /**
  * This class represents a bet done by a single user.
  */
 @Entity
 @XmlAccessorType(XmlAccessType.FIELD)
+@Indices({
+        @Index(members = {"gambler", "userForecast"}), // getBet and the bets of a user
+        @Index(members = {"gambler", "active"}) // the active bets of a user
+})
 public class Bet implements Serializable {
     @Id @GeneratedValue(strategy= GenerationType.IDENTITY)
     @XmlID
     private Integer betID;
-    private Double amount;
+    private Double amount; // before the amounts were kept in cents, only read until they are migrated
+    private long amountCents;
+    private boolean settled; // true once the settlement of the question has processed this bet
+
+    // Copied from the forecast when the bet is placed, so the queries on them do not have to go
+    // through the forecast, its question and its event for every bet
+    @Index
+    private Integer questionID;
+    @Index
+    private Integer eventID;
+    @Index
+    private Date eventDate; // moved with the event
+    @Index
+    private boolean active; // false once the result of the question is published
 
     @ManyToOne
     @XmlIDREF
+    @Index
     private Forecast userForecast;
 
     @ManyToOne
@@ -39,9 +62,22 @@ public class Bet implements Serializable {
      * @param gambler the user
      */
     public Bet(Double amount, Forecast userForecast, User gambler) {
-        this.amount = amount;
+        if (amount != null) this.amountCents = Money.toCents(amount);
         this.userForecast = userForecast;
         this.gambler = gambler;
+        if (userForecast != null && userForecast.getQuestion() != null) locate(userForecast.getQuestion());
+    }
+
+    /**
+     * Copies the data of the question and the event of the bet that the queries filter on.
+     * The ids are only known once they have been persisted.
+     * @param question the question of the forecast of the bet
+     */
+    public void locate(Question question) {
+        this.questionID = question.getQuestionID();
+        this.eventID = question.getEvent().getEventID();
+        this.eventDate = question.getEvent().getEventDate();
+        this.active = question.getCorrectForecast() == null;
     }
 
     /**
@@ -65,7 +101,7 @@ public class Bet implements Serializable {
      * @return the amount bet
      */
     public Double getAmount() {
-        return amount;
+        return Money.toDouble(getAmountCents());
     }
 
     /**
@@ -73,7 +109,24 @@ public class Bet implements Serializable {
      * @param amount amount bet
      */
     public void setAmount(Double amount) {
-        this.amount = amount;
+        setAmountCents(Money.toCents(amount));
+    }
+
+    /**
+     * Getter for the amount bet in cents.
+     * @return the amount bet in cents
+     */
+    public long getAmountCents() {
+        return amount != null ? Money.toCents(amount) : amountCents;
+    }
+
+    /**
+     * Setter for the amount bet in cents.
+     * @param amountCents amount bet in cents
+     */
+    public void setAmountCents(long amountCents) {
+        this.amountCents = amountCents;
+        this.amount = null;
     }
 
     /**
@@ -108,11 +161,93 @@ public class Bet implements Serializable {
         this.gambler = gambler;
     }
 
+    /**
+     * Returns whether the bet has already been processed by the settlement of its question
+     * (and paid out, if it was a winning bet).
+     * @return true if the bet is settled
+     */
+    public boolean isSettled() {
+        return settled;
+    }
+
+    /**
+     * Setter for the settlement state of the bet.
+     * @param settled true if the bet has been settled
+     */
+    public void setSettled(boolean settled) {
+        this.settled = settled;
+    }
+
+    /**
+     * Getter for the id of the question of the bet.
+     * @return the question id
+     */
+    public Integer getQuestionID() {
+        return questionID;
+    }
+
+    /**
+     * Setter for the id of the question of the bet.
+     * @param questionID the question id
+     */
+    public void setQuestionID(Integer questionID) {
+        this.questionID = questionID;
+    }
+
+    /**
+     * Getter for the id of the event of the bet.
+     * @return the event id
+     */
+    public Integer getEventID() {
+        return eventID;
+    }
+
+    /**
+     * Setter for the id of the event of the bet.
+     * @param eventID the event id
+     */
+    public void setEventID(Integer eventID) {
+        this.eventID = eventID;
+    }
+
+    /**
+     * Getter for the date of the event of the bet.
+     * @return the event date
+     */
+    public Date getEventDate() {
+        return eventDate;
+    }
+
+    /**
+     * Setter for the date of the event of the bet.
+     * @param eventDate the event date
+     */
+    public void setEventDate(Date eventDate) {
+        this.eventDate = eventDate;
+    }
+
+    /**
+     * Returns whether the bet is active, that is, the result of its question is not published yet.
+     * @return true if the bet is active
+     */
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Setter for whether the bet is active.
+     * @param active false once the result of the question is published
+     */
+    public void setActive(boolean active) {
+        this.active = active;
+    }
+
     @Override
     public String toString() {
         return "Bet{" +
                 "betID=" + betID +
-                ", amount=" + amount +
+                ", amount=" + Money.format(getAmountCents()) +
+                ", settled=" + settled +
                 ", userForecast=" + userForecast +
                 ", gambler=" + gambler +
                 '}';
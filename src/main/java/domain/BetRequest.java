@@ -0,0 +1,70 @@
+package domain;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import java.io.Serializable;
+
+/**
+ * One of the bets of a bet slip: the forecast chosen and the money bet on it.
+ * @author Josefinators team
+ */
+@XmlAccessorType(XmlAccessType.FIELD)
+public class BetRequest implements Serializable {
+	private Integer forecastID;
+	private Double amount;
+
+	/**
+	 * Default constructor.
+	 */
+	public BetRequest() {}
+
+	/**
+	 * Constructor.
+	 * @param forecastID the id of the forecast to bet on
+	 * @param amount the amount of money bet
+	 */
+	public BetRequest(Integer forecastID, Double amount) {
+		this.forecastID = forecastID;
+		this.amount = amount;
+	}
+
+	/**
+	 * Getter for the id of the forecast to bet on.
+	 * @return the forecast id
+	 */
+	public Integer getForecastID() {
+		return forecastID;
+	}
+
+	/**
+	 * Setter for the id of the forecast to bet on.
+	 * @param forecastID the forecast id
+	 */
+	public void setForecastID(Integer forecastID) {
+		this.forecastID = forecastID;
+	}
+
+	/**
+	 * Getter for the amount of money bet.
+	 * @return the amount bet
+	 */
+	public Double getAmount() {
+		return amount;
+	}
+
+	/**
+	 * Setter for the amount of money bet.
+	 * @param amount the amount bet
+	 */
+	public void setAmount(Double amount) {
+		this.amount = amount;
+	}
+
+	@Override
+	public String toString() {
+		return "BetRequest{" +
+				"forecastID=" + forecastID +
+				", amount=" + amount +
+				'}';
+	}
+}
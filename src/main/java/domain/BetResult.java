@@ -0,0 +1,126 @@
+package domain;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import java.io.Serializable;
+
+/**
+ * Outcome of one of the bets of a bet slip. The bets of a slip are placed all together or none
+ * of them is: when one is rejected, the others are returned with status {@link #NOT_PLACED}.
+ * @author Josefinators team
+ */
+@XmlAccessorType(XmlAccessType.FIELD)
+public class BetResult implements Serializable {
+
+	/**
+	 * The bet has been placed.
+	 */
+	public static final int PLACED = 0;
+
+	/**
+	 * The bet was valid, but it was not placed because another bet of the slip was rejected.
+	 */
+	public static final int NOT_PLACED = 1;
+
+	/**
+	 * The forecast does not exist.
+	 */
+	public static final int FORECAST_NOT_FOUND = 2;
+
+	/**
+	 * The user already has a bet on the forecast, or the slip has two bets on it.
+	 */
+	public static final int ALREADY_EXISTS = 3;
+
+	/**
+	 * The event of the forecast has already started, or the result of its question is published.
+	 */
+	public static final int LATE = 4;
+
+	/**
+	 * The amount is less than the minimum bet of the question.
+	 */
+	public static final int BELOW_MINIMUM = 5;
+
+	/**
+	 * The wallet does not have enough money for this bet and the previous ones of the slip.
+	 */
+	public static final int NOT_ENOUGH_MONEY = 6;
+
+	private Integer forecastID;
+	private int status;
+	private Integer betID;
+
+	/**
+	 * Default constructor.
+	 */
+	public BetResult() {}
+
+	/**
+	 * Constructor.
+	 * @param forecastID the id of the forecast of the bet
+	 * @param status the outcome of the bet
+	 */
+	public BetResult(Integer forecastID, int status) {
+		this.forecastID = forecastID;
+		this.status = status;
+	}
+
+	/**
+	 * Getter for the id of the forecast of the bet.
+	 * @return the forecast id
+	 */
+	public Integer getForecastID() {
+		return forecastID;
+	}
+
+	/**
+	 * Getter for the outcome of the bet.
+	 * @return one of {@link #PLACED}, {@link #NOT_PLACED}, {@link #FORECAST_NOT_FOUND}, {@link #ALREADY_EXISTS},
+	 * {@link #LATE}, {@link #BELOW_MINIMUM} or {@link #NOT_ENOUGH_MONEY}
+	 */
+	public int getStatus() {
+		return status;
+	}
+
+	/**
+	 * Setter for the outcome of the bet.
+	 * @param status the outcome of the bet
+	 */
+	public void setStatus(int status) {
+		this.status = status;
+	}
+
+	/**
+	 * Tells whether the bet has been placed.
+	 * @return true if it has been placed
+	 */
+	public boolean isPlaced() {
+		return status == PLACED;
+	}
+
+	/**
+	 * Getter for the id of the bet, once it has been placed.
+	 * @return the bet id, or null if it was not placed
+	 */
+	public Integer getBetID() {
+		return betID;
+	}
+
+	/**
+	 * Setter for the id of the bet.
+	 * @param betID the bet id
+	 */
+	public void setBetID(Integer betID) {
+		this.betID = betID;
+	}
+
+	@Override
+	public String toString() {
+		return "BetResult{" +
+				"forecastID=" + forecastID +
+				", status=" + status +
+				", betID=" + betID +
+				'}';
+	}
+}
@@ -0,0 +1,127 @@
+package domain;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import java.io.Serializable;
+
+/**
+ * Statistics of a cache of the business logic, to check how well it is sized.
+ * @author Josefinators team
+ */
+@XmlAccessorType(XmlAccessType.FIELD)
+public class CacheStats implements Serializable {
+	private long hits;
+	private long misses;
+	private long evictions; // entries removed to make room for new ones
+	private long expirations; // entries found older than their time to live
+	private long invalidations; // entries removed because the data changed
+	private int entries;
+	private long weight; // objects held by the entries
+	private long maxWeight;
+
+	/**
+	 * Default constructor.
+	 */
+	public CacheStats() {}
+
+	/**
+	 * Constructor.
+	 * @param hits requests served from the cache
+	 * @param misses requests that had to load the data
+	 * @param evictions entries removed to make room for new ones
+	 * @param expirations entries found older than their time to live
+	 * @param invalidations entries removed because the data changed
+	 * @param entries entries in the cache
+	 * @param weight objects held by the entries
+	 * @param maxWeight maximum objects the cache holds
+	 */
+	public CacheStats(long hits, long misses, long evictions, long expirations, long invalidations, int entries,
+			long weight, long maxWeight) {
+		this.hits = hits;
+		this.misses = misses;
+		this.evictions = evictions;
+		this.expirations = expirations;
+		this.invalidations = invalidations;
+		this.entries = entries;
+		this.weight = weight;
+		this.maxWeight = maxWeight;
+	}
+
+	/**
+	 * Getter for the requests served from the cache.
+	 * @return the number of hits
+	 */
+	public long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Getter for the requests that had to load the data.
+	 * @return the number of misses
+	 */
+	public long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Getter for the entries removed to make room for new ones.
+	 * @return the number of evictions
+	 */
+	public long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * Getter for the entries found older than their time to live.
+	 * @return the number of expirations
+	 */
+	public long getExpirations() {
+		return expirations;
+	}
+
+	/**
+	 * Getter for the entries removed because the data changed.
+	 * @return the number of invalidations
+	 */
+	public long getInvalidations() {
+		return invalidations;
+	}
+
+	/**
+	 * Getter for the entries in the cache.
+	 * @return the number of entries
+	 */
+	public int getEntries() {
+		return entries;
+	}
+
+	/**
+	 * Getter for the objects held by the entries.
+	 * @return the weight of the cache
+	 */
+	public long getWeight() {
+		return weight;
+	}
+
+	/**
+	 * Getter for the maximum objects the cache holds.
+	 * @return the maximum weight
+	 */
+	public long getMaxWeight() {
+		return maxWeight;
+	}
+
+	/**
+	 * Returns the fraction of the requests served from the cache.
+	 * @return the hit ratio, between 0 and 1
+	 */
+	public double getHitRatio() {
+		return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+	}
+
+	@Override
+	public String toString() {
+		return hits + " hits, " + misses + " misses, " + evictions + " evicted, " + expirations + " expired, " +
+				invalidations + " invalidated, " + entries + " entries holding " + weight + " of " + maxWeight + " objects";
+	}
+}
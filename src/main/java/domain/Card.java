@@ -1,6 +1,7 @@
 package domain;
 
 import exceptions.NotEnoughMoneyException;
+import utils.Money;
 
 import javax.persistence.*;
 import javax.xml.bind.annotation.XmlAccessType;
@@ -24,15 +25,24 @@ public class Card implements Serializable {
     private Long cardNumber;
     private Date expirationDate;
     private Integer securityCode;
-    private Double money;
+    private Double money; // before the amounts were kept in cents, only read until they are migrated
+    private long moneyCents;
+    @Version
+    private long version; // incremented on every update, so concurrent changes of the money are detected
 
     @OneToOne
     @XmlIDREF
     private User owner;
 
-    @OneToMany(fetch = FetchType.EAGER, cascade = CascadeType.PERSIST)
+    // Entries added before the card was first persisted; later ones are only in the ledger
+    @OneToMany(fetch = FetchType.LAZY, cascade = CascadeType.PERSIST)
     private List<Transaction> transactions = new ArrayList<Transaction>();
 
+    // State of the ledger: whether its entries are numbered, the last number and the day of the last entry
+    private boolean ledgerStarted;
+    private long ledgerSequence;
+    private int lastEntryDay; // yyyyMMdd
+
     /**
      * Default constructor.
      */
@@ -49,7 +59,7 @@ public class Card implements Serializable {
         this.cardNumber = cardNumber;
         this.expirationDate = expirationDate;
         this.securityCode = securityCode;
-        this.money = money;
+        if (money != null) this.moneyCents = Money.toCents(money);
         this.owner = owner;
     }
 
@@ -122,7 +132,7 @@ public class Card implements Serializable {
      * @return the money in the card
      */
     public Double getMoney() {
-        return money;
+        return Money.toDouble(getMoneyCents());
     }
 
     /**
@@ -130,24 +140,55 @@ public class Card implements Serializable {
      * @param money the money to add to the card
      */
     public void setMoney(Double money) {
-        this.money = money;
+        setMoneyCents(Money.toCents(money));
+    }
+
+    /**
+     * Getter for the money in the card in cents.
+     * @return the money in the card in cents
+     */
+    public long getMoneyCents() {
+        return money != null ? Money.toCents(money) : moneyCents;
+    }
+
+    /**
+     * Setter for the money in the card in cents.
+     * @param moneyCents the money in the card in cents
+     */
+    public void setMoneyCents(long moneyCents) {
+        this.moneyCents = moneyCents;
+        this.money = null;
     }
 
     /**
      * Deposits money in the credit card.
-     * @param money the money to deposit
+     * @param cents the money to deposit, in cents
+     */
+    public void depositMoney(long cents) {
+        setMoneyCents(Money.add(getMoneyCents(), cents));
+    }
+
+    /**
+     * Withdraws money from the credit card.
+     * @param cents the money to withdraw, in cents
+     * @throws NotEnoughMoneyException if the card does not have that much money
      */
-    public void depositMoney(Double money) {
-        this.money += money;
+    public void withdrawMoney(long cents) throws NotEnoughMoneyException {
+        if (getMoneyCents() < cents) throw new NotEnoughMoneyException();
+        setMoneyCents(Money.subtract(getMoneyCents(), cents));
     }
 
-    public void withdrawMoney(Double money) throws NotEnoughMoneyException {
-        if (this.money < money) throw new NotEnoughMoneyException();
-        this.money -= money;
+    /**
+     * Getter for the version of the card, used to detect concurrent updates.
+     * @return the version
+     */
+    public long getVersion() {
+        return version;
     }
 
     /**
-     * Getter for card transactions.
+     * Getter for the transactions added to the card before it was persisted, such as the
+     * generated data. The complete history is in the ledger, read with the transaction queries.
      * @return card transactions
      */
     public List<Transaction> getTransactions() {
@@ -163,7 +204,8 @@ public class Card implements Serializable {
     }
 
     /**
-     * Creates a transaction with the given data and adds it to the card.
+     * Creates a transaction with the given data and adds it to the card. Only used to build a
+     * card before it is persisted: afterwards, the entries are appended through the ledger.
      * @param type the type of transaction
      * @param amount the amount of money used in the transaction
      * @return the transaction
@@ -174,13 +216,61 @@ public class Card implements Serializable {
         return transaction;
     }
 
+    /**
+     * Tells whether the entries of the ledger of this card are numbered.
+     * @return true once the ledger has been started
+     */
+    public boolean isLedgerStarted() {
+        return ledgerStarted;
+    }
+
+    /**
+     * Setter for whether the entries of the ledger of this card are numbered.
+     * @param ledgerStarted true once the ledger has been started
+     */
+    public void setLedgerStarted(boolean ledgerStarted) {
+        this.ledgerStarted = ledgerStarted;
+    }
+
+    /**
+     * Getter for the number of the last entry of the ledger of this card.
+     * @return the sequence number, 0 if there are no entries
+     */
+    public long getLedgerSequence() {
+        return ledgerSequence;
+    }
+
+    /**
+     * Setter for the number of the last entry of the ledger of this card.
+     * @param ledgerSequence the sequence number
+     */
+    public void setLedgerSequence(long ledgerSequence) {
+        this.ledgerSequence = ledgerSequence;
+    }
+
+    /**
+     * Getter for the day of the last entry of the ledger of this card.
+     * @return the day as a yyyyMMdd number, 0 if there are no entries
+     */
+    public int getLastEntryDay() {
+        return lastEntryDay;
+    }
+
+    /**
+     * Setter for the day of the last entry of the ledger of this card.
+     * @param lastEntryDay the day as a yyyyMMdd number
+     */
+    public void setLastEntryDay(int lastEntryDay) {
+        this.lastEntryDay = lastEntryDay;
+    }
+
     @Override
     public String toString() {
         return "Card{" +
                 "cardNumber=" + cardNumber +
                 ", expirationDate=" + expirationDate +
                 ", securityCode=" + securityCode +
-                ", money=" + money +
+                ", money=" + Money.format(getMoneyCents()) +
                 ", owner=" + owner +
                 ", transactions=" + transactions +
                 '}';
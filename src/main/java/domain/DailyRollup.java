@@ -0,0 +1,166 @@
+package domain;
+
+import utils.Money;
+
+import javax.persistence.*;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * This class represents the money movements of a single day, grouped by the date of the events bet on.
+ * It is kept up to date when bets are placed, removed and settled, so the daily charts of the admin
+ * overview can be read without going through all the bets.
+ * @author Josefinators team
+ */
+@Entity
+@XmlAccessorType(XmlAccessType.FIELD)
+public class DailyRollup implements Serializable {
+    @Id
+    private Integer day; // yyyyMMdd, so that days sort and can be compared as numbers
+    private long amountBetCents;
+    private long paidOutCents;
+    private long houseNetCents;
+
+    /**
+     * Default constructor.
+     */
+    public DailyRollup() {}
+
+    /**
+     * Constructor. Creates an empty rollup for the given day.
+     * @param date the day
+     */
+    public DailyRollup(LocalDate date) {
+        this.day = toDay(date);
+    }
+
+    /**
+     * Returns the key of the given day.
+     * @param date the day
+     * @return the day as a yyyyMMdd number
+     */
+    public static int toDay(LocalDate date) {
+        return date.getYear() * 10000 + date.getMonthValue() * 100 + date.getDayOfMonth();
+    }
+
+    /**
+     * Returns the day of the given key.
+     * @param day the day as a yyyyMMdd number
+     * @return the day
+     */
+    public static LocalDate toDate(int day) {
+        return LocalDate.of(day / 10000, day / 100 % 100, day % 100);
+    }
+
+    /**
+     * Getter for the key of the day.
+     * @return the day as a yyyyMMdd number
+     */
+    public Integer getDay() {
+        return day;
+    }
+
+    /**
+     * Returns the day of this rollup.
+     * @return the day
+     */
+    public LocalDate getDate() {
+        return toDate(day);
+    }
+
+    /**
+     * Getter for the money bet on the events of the day.
+     * @return the amount bet
+     */
+    public double getAmountBet() {
+        return Money.toDouble(amountBetCents);
+    }
+
+    /**
+     * Getter for the money bet on the events of the day in cents.
+     * @return the amount bet in cents
+     */
+    public long getAmountBetCents() {
+        return amountBetCents;
+    }
+
+    /**
+     * Setter for the money bet on the events of the day in cents.
+     * @param amountBetCents the amount bet in cents
+     */
+    public void setAmountBetCents(long amountBetCents) {
+        this.amountBetCents = amountBetCents;
+    }
+
+    /**
+     * Getter for the money won by users in the events of the day.
+     * @return the amount paid out
+     */
+    public double getPaidOut() {
+        return Money.toDouble(paidOutCents);
+    }
+
+    /**
+     * Getter for the money won by users in the events of the day in cents.
+     * @return the amount paid out in cents
+     */
+    public long getPaidOutCents() {
+        return paidOutCents;
+    }
+
+    /**
+     * Setter for the money won by users in the events of the day in cents.
+     * @param paidOutCents the amount paid out in cents
+     */
+    public void setPaidOutCents(long paidOutCents) {
+        this.paidOutCents = paidOutCents;
+    }
+
+    /**
+     * Getter for the money won by BetAndRuin in the events of the day (the amount of the lost bets).
+     * @return the house net
+     */
+    public double getHouseNet() {
+        return Money.toDouble(houseNetCents);
+    }
+
+    /**
+     * Getter for the money won by BetAndRuin in the events of the day in cents.
+     * @return the house net in cents
+     */
+    public long getHouseNetCents() {
+        return houseNetCents;
+    }
+
+    /**
+     * Setter for the money won by BetAndRuin in the events of the day in cents.
+     * @param houseNetCents the house net in cents
+     */
+    public void setHouseNetCents(long houseNetCents) {
+        this.houseNetCents = houseNetCents;
+    }
+
+    /**
+     * Adds the given amounts to the rollup.
+     * @param amountBet money bet in cents
+     * @param paidOut money won by users in cents
+     * @param houseNet money won by BetAndRuin in cents
+     */
+    public void add(long amountBet, long paidOut, long houseNet) {
+        amountBetCents = Money.add(amountBetCents, amountBet);
+        paidOutCents = Money.add(paidOutCents, paidOut);
+        houseNetCents = Money.add(houseNetCents, houseNet);
+    }
+
+    @Override
+    public String toString() {
+        return "DailyRollup{" +
+                "day=" + day +
+                ", amountBet=" + Money.format(amountBetCents) +
+                ", paidOut=" + Money.format(paidOutCents) +
+                ", houseNet=" + Money.format(houseNetCents) +
+                '}';
+    }
+}
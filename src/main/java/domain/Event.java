@@ -1,5 +1,6 @@
 package domain;
 
+import javax.jdo.annotations.Index;
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.Date;
@@ -16,11 +17,14 @@ public class Event {
 	@Id @GeneratedValue(strategy=GenerationType.IDENTITY)
 	private Integer eventID;
 	private String description; 
+	@Index
 	private Date eventDate;
+	@Index
 	private String country;
+	@Index
 	private Match match;
 
-	@OneToMany(fetch = FetchType.EAGER, cascade = CascadeType.ALL)
+	@OneToMany(fetch = FetchType.LAZY, cascade = CascadeType.ALL)
 	private List<Question> questions = new ArrayList<Question>();
 
 	/**
@@ -0,0 +1,111 @@
+package domain;
+
+import javax.persistence.*;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class represents the days of a month that have events, one bit per day, so the calendars
+ * can highlight them without querying the events. It is kept up to date when events are created,
+ * removed or moved to another day.
+ * @author Josefinators team
+ */
+@Entity
+@XmlAccessorType(XmlAccessType.FIELD)
+public class EventCalendarMonth implements Serializable {
+    /**
+     * Key of the marker stored once the calendar has been built from the events.
+     */
+    public static final int BUILT = 0;
+
+    @Id
+    private Integer month; // yyyyMM
+    private int days; // bit d-1 is set when day d has events
+
+    /**
+     * Default constructor.
+     */
+    public EventCalendarMonth() {}
+
+    /**
+     * Constructor. Creates a month without events.
+     * @param month the month as a yyyyMM number
+     */
+    public EventCalendarMonth(int month) {
+        this.month = month;
+    }
+
+    /**
+     * Returns the key of the month of the given day.
+     * @param date the day
+     * @return the month as a yyyyMM number
+     */
+    public static int toMonth(LocalDate date) {
+        return date.getYear() * 100 + date.getMonthValue();
+    }
+
+    /**
+     * Getter for the key of the month.
+     * @return the month as a yyyyMM number
+     */
+    public Integer getMonth() {
+        return month;
+    }
+
+    /**
+     * Getter for the days with events.
+     * @return the days, one bit per day starting with the lowest bit
+     */
+    public int getDays() {
+        return days;
+    }
+
+    /**
+     * Setter for the days with events.
+     * @param days the days, one bit per day starting with the lowest bit
+     */
+    public void setDays(int days) {
+        this.days = days;
+    }
+
+    /**
+     * Tells whether the given day of the month has events.
+     * @param dayOfMonth the day, from 1 to 31
+     * @return true if it has events
+     */
+    public boolean hasEvents(int dayOfMonth) {
+        return (days & (1 << (dayOfMonth - 1))) != 0;
+    }
+
+    /**
+     * Marks the given day of the month as having events or not.
+     * @param dayOfMonth the day, from 1 to 31
+     * @param hasEvents whether the day has events
+     */
+    public void setEvents(int dayOfMonth, boolean hasEvents) {
+        if (hasEvents) days |= 1 << (dayOfMonth - 1);
+        else days &= ~(1 << (dayOfMonth - 1));
+    }
+
+    /**
+     * Returns the days of the month that have events.
+     * @return the days, in order
+     */
+    public List<LocalDate> getDates() {
+        YearMonth ym = YearMonth.of(month / 100, month % 100);
+        List<LocalDate> dates = new ArrayList<LocalDate>();
+        for (int d = 1; d <= ym.lengthOfMonth(); d++)
+            if (hasEvents(d)) dates.add(ym.atDay(d));
+        return dates;
+    }
+
+    @Override
+    public String toString() {
+        return month + ": " + Integer.toBinaryString(days);
+    }
+}
@@ -1,5 +1,8 @@
 package domain;
 
+import utils.Money;
+
+import javax.jdo.annotations.Index;
 import javax.persistence.*;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
@@ -20,10 +23,12 @@ public class Forecast implements Serializable {
 	@XmlID
 	private Integer forecastID;
 	private String description;
-	private Double fee;
+	private Double fee; // before the fees were kept in hundredths, only read until they are migrated
+	private long feeHundredths;
 
 	@ManyToOne
 	@XmlIDREF
+	@Index
 	private Question question;
 
 	/**
@@ -42,7 +47,7 @@ public class Forecast implements Serializable {
 	public Forecast(String description, Double fee, Question question) {
 		super();
 		this.description = description;
-		this.fee = fee;
+		if (fee != null) this.feeHundredths = Money.toCents(fee);
 		this.question = question;
 	}
 
@@ -83,7 +88,7 @@ public class Forecast implements Serializable {
 	 * @return fee the fee of the forecast
 	 */
 	public Double getFee() {
-		return fee;
+		return Money.toDouble(getFeeHundredths());
 	}
 
 	/**
@@ -91,7 +96,24 @@ public class Forecast implements Serializable {
 	 * @param fee the fee of the forecast
 	 */
 	public void setFee(Double fee) {
-		this.fee = fee;
+		setFeeHundredths(Money.toCents(fee));
+	}
+
+	/**
+	 * Getter for the fee in hundredths.
+	 * @return the fee of the forecast in hundredths
+	 */
+	public long getFeeHundredths() {
+		return fee != null ? Money.toCents(fee) : feeHundredths;
+	}
+
+	/**
+	 * Setter for the fee in hundredths.
+	 * @param feeHundredths the fee of the forecast in hundredths
+	 */
+	public void setFeeHundredths(long feeHundredths) {
+		this.feeHundredths = feeHundredths;
+		this.fee = null;
 	}
 	
 	/**
@@ -125,7 +147,7 @@ public class Forecast implements Serializable {
 		return "Forecast{" +
 				"forecastID=" + forecastID +
 				", description='" + description + '\'' +
-				", fee=" + fee +
+				", fee=" + Money.format(getFeeHundredths()) +
 				", question=" + question +
 				'}';
 	}
@@ -17,6 +17,7 @@ public class Match {
     public Team awayTeam;
     public Score score;
     public Integer matchday;
+    public String lastUpdated; // time of the last change of the match in the API
 
     @Override
     public String toString() {
@@ -91,6 +92,34 @@ public class Match {
         this.matchday = matchday;
     }
 
+    public String getLastUpdated() {
+        return lastUpdated;
+    }
+
+    public void setLastUpdated(String lastUpdated) {
+        this.lastUpdated = lastUpdated;
+    }
+
+    /**
+     * Tells whether the match is over and its score will not change anymore.
+     * @return true if the match is finished or its result was awarded
+     */
+    public boolean isFinished() {
+        return "FINISHED".equals(status) || "AWARDED".equals(status);
+    }
+
+    /**
+     * Returns the winner of the match, once it is finished.
+     * @return "HOME_TEAM", "AWAY_TEAM" or "DRAW", or null if the match is not finished or has no score
+     */
+    public String getWinner() {
+        if (!isFinished() || score == null) return null;
+        if (score.winner != null) return score.winner;
+        if (score.fullTime == null || score.fullTime.homeTeam == null || score.fullTime.awayTeam == null) return null;
+        int difference = score.fullTime.homeTeam.compareTo(score.fullTime.awayTeam);
+        return difference > 0 ? "HOME_TEAM" : difference < 0 ? "AWAY_TEAM" : "DRAW";
+    }
+
     class ScoreDetails {
         Integer homeTeam;
         Integer awayTeam;
@@ -110,6 +139,7 @@ public class Match {
     }
 
     class Score {
+        String winner; // HOME_TEAM, AWAY_TEAM or DRAW
         ScoreDetails fullTime;
 
         Score(String score){
@@ -119,7 +149,8 @@ public class Match {
         @Override
         public String toString() {
             return "Score{" +
-                    "fullTime=" + fullTime +
+                    "winner='" + winner + '\'' +
+                    ", fullTime=" + fullTime +
                     '}';
         }
     }
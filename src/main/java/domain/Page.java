@@ -0,0 +1,66 @@
+package domain;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One page of a list that is retrieved in pages. The next page is requested with
+ * the continuation token of this one, which is opaque to the client.
+ * @param <T> the type of the items
+ * @author Josefinators team
+ */
+@XmlAccessorType(XmlAccessType.FIELD)
+public class Page<T> implements Serializable {
+	private List<T> items = new ArrayList<T>();
+	private String nextToken;
+
+	/**
+	 * Default constructor.
+	 */
+	public Page() {}
+
+	/**
+	 * Constructor.
+	 * @param items the items of the page
+	 * @param nextToken the token to retrieve the next page, or null if this is the last page
+	 */
+	public Page(List<T> items, String nextToken) {
+		this.items = items;
+		this.nextToken = nextToken;
+	}
+
+	/**
+	 * Getter for the items of the page.
+	 * @return the items
+	 */
+	public List<T> getItems() {
+		return items;
+	}
+
+	/**
+	 * Getter for the token that retrieves the next page.
+	 * @return the continuation token, or null if this is the last page
+	 */
+	public String getNextToken() {
+		return nextToken;
+	}
+
+	/**
+	 * Returns whether there are more items after this page.
+	 * @return true if there is a next page
+	 */
+	public boolean hasNext() {
+		return nextToken != null;
+	}
+
+	@Override
+	public String toString() {
+		return "Page{" +
+				"items=" + items.size() +
+				", nextToken='" + nextToken + '\'' +
+				'}';
+	}
+}
@@ -0,0 +1,160 @@
+package domain;
+
+import utils.Money;
+
+import javax.jdo.annotations.Index;
+import javax.persistence.*;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * This class represents the removal of an event, a question or a forecast whose bets are still
+ * being refunded. It is stored when the removal starts, updated after each chunk of bets refunded
+ * and deleted together with the removed object, so it shows the progress of the removal and lets
+ * a removal interrupted half way be resumed.
+ * @author Josefinators team
+ */
+@Entity
+@XmlAccessorType(XmlAccessType.FIELD)
+@Index(members = {"targetType", "targetID"}) // the removal of an object
+public class PendingRemoval implements Serializable {
+
+    /**
+     * Removal of an event, with its questions and forecasts.
+     */
+    public static final int EVENT = 0;
+
+    /**
+     * Removal of a question, with its forecasts.
+     */
+    public static final int QUESTION = 1;
+
+    /**
+     * Removal of a forecast.
+     */
+    public static final int FORECAST = 2;
+
+    @Id @GeneratedValue
+    private Integer removalID;
+    private int targetType;
+    private int targetID;
+    private long betsTotal;
+    private long betsRefunded;
+    private long refundedCents;
+    private Date started;
+
+    /**
+     * Default constructor.
+     */
+    public PendingRemoval() {}
+
+    /**
+     * Constructor. Creates the removal of an object with no bets refunded yet.
+     * @param targetType {@link #EVENT}, {@link #QUESTION} or {@link #FORECAST}
+     * @param targetID the id of the removed object
+     * @param betsTotal the number of bets to refund
+     * @param started the time the removal started
+     */
+    public PendingRemoval(int targetType, int targetID, long betsTotal, Date started) {
+        this.targetType = targetType;
+        this.targetID = targetID;
+        this.betsTotal = betsTotal;
+        this.started = started;
+    }
+
+    /**
+     * Getter for the removal id.
+     * @return the removal id
+     */
+    public Integer getRemovalID() {
+        return removalID;
+    }
+
+    /**
+     * Getter for the type of the removed object.
+     * @return {@link #EVENT}, {@link #QUESTION} or {@link #FORECAST}
+     */
+    public int getTargetType() {
+        return targetType;
+    }
+
+    /**
+     * Getter for the id of the removed object.
+     * @return the id of the event, question or forecast
+     */
+    public int getTargetID() {
+        return targetID;
+    }
+
+    /**
+     * Getter for the number of bets to refund, counted when the removal started.
+     * @return the number of bets
+     */
+    public long getBetsTotal() {
+        return betsTotal;
+    }
+
+    /**
+     * Getter for the number of bets already refunded.
+     * @return the number of bets refunded
+     */
+    public long getBetsRefunded() {
+        return betsRefunded;
+    }
+
+    /**
+     * Getter for the money already refunded.
+     * @return the amount refunded
+     */
+    public double getRefunded() {
+        return Money.toDouble(refundedCents);
+    }
+
+    /**
+     * Getter for the money already refunded in cents.
+     * @return the amount refunded in cents
+     */
+    public long getRefundedCents() {
+        return refundedCents;
+    }
+
+    /**
+     * Getter for the time the removal started.
+     * @return the start time
+     */
+    public Date getStarted() {
+        return started;
+    }
+
+    /**
+     * Adds a chunk of refunded bets to the progress of the removal.
+     * @param bets the number of bets refunded
+     * @param cents the money refunded in cents
+     */
+    public void addRefunded(long bets, long cents) {
+        betsRefunded += bets;
+        refundedCents = Money.add(refundedCents, cents);
+        // Bets placed after the removal started are refunded too
+        if (betsRefunded > betsTotal) betsTotal = betsRefunded;
+    }
+
+    /**
+     * Returns the progress of the removal.
+     * @return the fraction of the bets already refunded, between 0 and 1
+     */
+    public double getProgress() {
+        return betsTotal == 0 ? 1 : (double) betsRefunded / betsTotal;
+    }
+
+    @Override
+    public String toString() {
+        String[] types = {"event", "question", "forecast"};
+        return "PendingRemoval{" +
+                types[targetType] + "=" + targetID +
+                ", bets=" + betsRefunded + "/" + betsTotal +
+                ", refunded=" + Money.format(refundedCents) +
+                '}';
+    }
+}
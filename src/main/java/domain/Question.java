@@ -1,5 +1,6 @@
 package domain;
 
+import javax.jdo.annotations.Index;
 import javax.persistence.*;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
@@ -26,14 +27,30 @@ public class Question implements Serializable {
 
 	@ManyToOne
 	@XmlIDREF
+	@Index
 	private Event event;
 
-	@OneToMany(fetch = FetchType.EAGER, cascade = CascadeType.ALL)
+	@OneToMany(fetch = FetchType.LAZY, cascade = CascadeType.ALL)
 	private List<Forecast> forecasts = new ArrayList<Forecast>();
 
 	@OneToOne
+	@Index
 	private Forecast correctForecast;
 
+	// null => not settled (or settled before settlement tracking existed), 1 => in progress, 2 => done
+	@Index
+	private Integer settlementStatus;
+
+	/**
+	 * Settlement status of a question whose bets are still being paid out.
+	 */
+	public static final int SETTLEMENT_IN_PROGRESS = 1;
+
+	/**
+	 * Settlement status of a question whose bets have all been paid out.
+	 */
+	public static final int SETTLEMENT_DONE = 2;
+
 	/**
 	 * Constructor.
 	 */
@@ -220,6 +237,23 @@ public class Question implements Serializable {
 		return this.correctForecast = correctForecast;
 	}
 
+	/**
+	 * Getter for the settlement status of the bets of this question.
+	 * @return null if the settlement has not started, otherwise
+	 * {@link #SETTLEMENT_IN_PROGRESS} or {@link #SETTLEMENT_DONE}
+	 */
+	public Integer getSettlementStatus() {
+		return settlementStatus;
+	}
+
+	/**
+	 * Setter for the settlement status of the bets of this question.
+	 * @param settlementStatus the settlement status
+	 */
+	public void setSettlementStatus(Integer settlementStatus) {
+		this.settlementStatus = settlementStatus;
+	}
+
 	@Override
 	public boolean equals(Object obj) {
 		if (this == obj)
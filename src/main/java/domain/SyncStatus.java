@@ -0,0 +1,177 @@
+package domain;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * State of the background sync of the matches with the football-data.org API, to check from
+ * the administration screens or a monitoring tool whether the data is up to date.
+ * @author Josefinators team
+ */
+@XmlAccessorType(XmlAccessType.FIELD)
+public class SyncStatus implements Serializable {
+	private Date lastAttempt;
+	private Date lastSuccess;
+	private long lagMillis; // time since the last successful sync, -1 if there was none
+	private long lastDurationMillis;
+	private int lastChanges; // events created or updated by the last successful sync
+	private int consecutiveFailures;
+	private String lastError;
+	private long syncs;
+	private long failures;
+	private long rejectedRequests; // requests rejected because a sync was already waiting
+	private int queued;
+	private boolean running;
+	private boolean healthy;
+
+	/**
+	 * Default constructor.
+	 */
+	public SyncStatus() {}
+
+	/**
+	 * Constructor.
+	 * @param lastAttempt start of the last sync, or null if none was run
+	 * @param lastSuccess start of the last successful sync, or null if none succeeded
+	 * @param lagMillis time since the last successful sync, or -1 if none succeeded
+	 * @param lastDurationMillis duration of the last sync
+	 * @param lastChanges events created or updated by the last successful sync
+	 * @param consecutiveFailures syncs failed since the last successful one
+	 * @param lastError error of the last sync, or null if it succeeded
+	 * @param syncs syncs run since the server started
+	 * @param failures syncs failed since the server started
+	 * @param rejectedRequests sync requests rejected since the server started
+	 * @param queued syncs waiting for the running one
+	 * @param running whether a sync is running
+	 * @param healthy whether the data is considered up to date
+	 */
+	public SyncStatus(Date lastAttempt, Date lastSuccess, long lagMillis, long lastDurationMillis, int lastChanges,
+			int consecutiveFailures, String lastError, long syncs, long failures, long rejectedRequests, int queued,
+			boolean running, boolean healthy) {
+		this.lastAttempt = lastAttempt;
+		this.lastSuccess = lastSuccess;
+		this.lagMillis = lagMillis;
+		this.lastDurationMillis = lastDurationMillis;
+		this.lastChanges = lastChanges;
+		this.consecutiveFailures = consecutiveFailures;
+		this.lastError = lastError;
+		this.syncs = syncs;
+		this.failures = failures;
+		this.rejectedRequests = rejectedRequests;
+		this.queued = queued;
+		this.running = running;
+		this.healthy = healthy;
+	}
+
+	/**
+	 * Getter for the start of the last sync.
+	 * @return the date, or null if none was run
+	 */
+	public Date getLastAttempt() {
+		return lastAttempt;
+	}
+
+	/**
+	 * Getter for the start of the last successful sync.
+	 * @return the date, or null if none succeeded
+	 */
+	public Date getLastSuccess() {
+		return lastSuccess;
+	}
+
+	/**
+	 * Getter for the time since the last successful sync.
+	 * @return the lag in milliseconds, or -1 if none succeeded
+	 */
+	public long getLagMillis() {
+		return lagMillis;
+	}
+
+	/**
+	 * Getter for the duration of the last sync.
+	 * @return the duration in milliseconds
+	 */
+	public long getLastDurationMillis() {
+		return lastDurationMillis;
+	}
+
+	/**
+	 * Getter for the events created or updated by the last successful sync.
+	 * @return the number of events
+	 */
+	public int getLastChanges() {
+		return lastChanges;
+	}
+
+	/**
+	 * Getter for the syncs failed since the last successful one.
+	 * @return the number of failures
+	 */
+	public int getConsecutiveFailures() {
+		return consecutiveFailures;
+	}
+
+	/**
+	 * Getter for the error of the last sync.
+	 * @return the error, or null if it succeeded
+	 */
+	public String getLastError() {
+		return lastError;
+	}
+
+	/**
+	 * Getter for the syncs run since the server started.
+	 * @return the number of syncs
+	 */
+	public long getSyncs() {
+		return syncs;
+	}
+
+	/**
+	 * Getter for the syncs failed since the server started.
+	 * @return the number of failures
+	 */
+	public long getFailures() {
+		return failures;
+	}
+
+	/**
+	 * Getter for the sync requests rejected because a sync was already waiting.
+	 * @return the number of requests
+	 */
+	public long getRejectedRequests() {
+		return rejectedRequests;
+	}
+
+	/**
+	 * Getter for the syncs waiting for the running one.
+	 * @return the number of syncs
+	 */
+	public int getQueued() {
+		return queued;
+	}
+
+	/**
+	 * Getter for whether a sync is running.
+	 * @return true if a sync is running
+	 */
+	public boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * Getter for whether the data is up to date.
+	 * @return true if the last successful sync is recent enough
+	 */
+	public boolean isHealthy() {
+		return healthy;
+	}
+
+	@Override
+	public String toString() {
+		return (healthy ? "healthy" : "unhealthy") + ", lag " + lagMillis + " ms, " + consecutiveFailures +
+				" consecutive failures, " + syncs + " syncs, " + failures + " failed, " + rejectedRequests + " rejected";
+	}
+}
@@ -1,5 +1,8 @@
 package domain;
 
+import utils.Money;
+
+import javax.jdo.annotations.Index;
 import javax.persistence.*;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
@@ -9,22 +12,27 @@ import java.io.Serializable;
 import java.util.Date;
 
 /**
- * This class represents a transaction belonging to a credit card.
+ * This class represents a transaction belonging to a credit card: an entry of the ledger of the
+ * wallet of its owner. The entries of a card are numbered in the order they happen.
  * @author Josefinators team
  */
 @Entity
 @XmlAccessorType(XmlAccessType.FIELD)
+@Index(members = {"card", "sequence"}) // the entries after a balance snapshot
 public class Transaction implements Serializable {
     @Id @GeneratedValue(strategy= GenerationType.IDENTITY)
     @XmlID
     private Integer transactionID;
     private Integer type; // 0 => Deposit, 1 => Withdraw
     private String description;
-    private Double amount;
+    private Double amount; // before the amounts were kept in cents, only read until they are migrated
+    private long amountCents;
     private Date date;
+    private long sequence; // number of the entry in the ledger of the card, starting at 1
 
     @OneToOne
     @XmlIDREF
+    @Index
     private Card card;
 
     /**
@@ -40,7 +48,7 @@ public class Transaction implements Serializable {
     public Transaction(Integer type, String description, Double amount, Date date, Card card) {
         this.type = type;
         this.description = description;
-        this.amount = amount;
+        if (amount != null) this.amountCents = Money.toCents(amount);
         this.date = date;
         this.card = card;
     }
@@ -98,7 +106,7 @@ public class Transaction implements Serializable {
      * @return the amount of money
      */
     public Double getAmount() {
-        return amount;
+        return Money.toDouble(getAmountCents());
     }
 
     /**
@@ -106,7 +114,24 @@ public class Transaction implements Serializable {
      * @param amount amount of money used in the transaction
      */
     public void setAmount(Double amount) {
-        this.amount = amount;
+        setAmountCents(Money.toCents(amount));
+    }
+
+    /**
+     * Getter for the amount of money in cents.
+     * @return the amount of money in cents
+     */
+    public long getAmountCents() {
+        return amount != null ? Money.toCents(amount) : amountCents;
+    }
+
+    /**
+     * Setter for the amount of money used in the transaction in cents.
+     * @param amountCents amount of money in cents
+     */
+    public void setAmountCents(long amountCents) {
+        this.amountCents = amountCents;
+        this.amount = null;
     }
 
     /**
@@ -124,6 +149,22 @@ public class Transaction implements Serializable {
     public void setDate(Date date) {
         this.date = date;
     }
+    /**
+     * Getter for the number of the entry in the ledger of the card.
+     * @return the sequence number, starting at 1
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Setter for the number of the entry in the ledger of the card.
+     * @param sequence the sequence number
+     */
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
     /**
      * Getter for the associated credit card.
      * @return the associated credit card for the transaction
@@ -146,7 +187,7 @@ public class Transaction implements Serializable {
                 "transactionID=" + transactionID +
                 ", type=" + type +
                 ", description='" + description + '\'' +
-                ", amount=" + amount +
+                ", amount=" + Money.format(getAmountCents()) +
                 ", date=" + date +
                 ", card=" + card +
                 '}';
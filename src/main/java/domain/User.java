@@ -1,14 +1,14 @@
 package domain;
 
 import exceptions.NotEnoughMoneyException;
+import utils.Money;
 
+import javax.jdo.annotations.Index;
 import javax.persistence.*;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlID;
 import java.io.Serializable;
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.util.*;
 
 /**
@@ -22,6 +22,7 @@ public class User implements Serializable {
 	@Id @GeneratedValue(strategy=GenerationType.IDENTITY)
 	@XmlID
 	private Integer userID;
+	@Index
 	private String username;
 	private String firstName;
 	private String lastName;
@@ -32,13 +33,16 @@ public class User implements Serializable {
 	private byte[] password;
 	private byte[] salt; // salt used in password hashing
 	private Integer userMode; // 0 => guest, 1 => logged user, 2 => administrator
-	private Double wallet;
+	private Double wallet; // before the amounts were kept in cents, only read until they are migrated
+	private long walletCents;
 	private String banReason;
+	@Version
+	private long version; // incremented on every update, so concurrent changes of the wallet are detected
 
 	@OneToOne(cascade = CascadeType.PERSIST)
 	private Card card;
 
-	@OneToMany(fetch = FetchType.EAGER, cascade = CascadeType.ALL, orphanRemoval = true)
+	@OneToMany(fetch = FetchType.LAZY, cascade = CascadeType.ALL, orphanRemoval = true)
 	private List<Bet> bets = new ArrayList<Bet>();
 
 	/**
@@ -89,7 +93,7 @@ public class User implements Serializable {
 		this.email = email;
 		this.salt = salt;
 		this.userMode = userMode;
-		this.wallet = wallet;
+		if (wallet != null) this.walletCents = Money.toCents(wallet);
 	}
 
 	/**
@@ -274,7 +278,7 @@ public class User implements Serializable {
 	 * @return user's wallet
 	 */
 	public Double getWallet() {
-		return wallet;
+		return Money.toDouble(getWalletCents());
 	}
 
 	/**
@@ -282,7 +286,24 @@ public class User implements Serializable {
 	 * @param wallet user's wallet
 	 */
 	public void setWallet(Double wallet) {
-		this.wallet = wallet;
+		setWalletCents(Money.toCents(wallet));
+	}
+
+	/**
+	 * Getter for user's wallet in cents.
+	 * @return user's wallet in cents
+	 */
+	public long getWalletCents() {
+		return wallet != null ? Money.toCents(wallet) : walletCents;
+	}
+
+	/**
+	 * Setter for user's wallet in cents.
+	 * @param walletCents user's wallet in cents
+	 */
+	public void setWalletCents(long walletCents) {
+		this.walletCents = walletCents;
+		this.wallet = null;
 	}
 
 	/**
@@ -290,14 +311,37 @@ public class User implements Serializable {
 	 * @param money the money to deposit in the wallet
 	 */
 	public void depositMoneyIntoWallet(Double money) {
-		BigDecimal amount = new BigDecimal(money);
-		amount.setScale(2, RoundingMode.DOWN);
-		wallet += amount.doubleValue();
+		depositMoneyIntoWallet(Money.toCents(money));
+	}
+
+	/**
+	 * Deposits the amount of money passed by parameter in the wallet of the user.
+	 * @param cents the money to deposit in the wallet, in cents
+	 */
+	public void depositMoneyIntoWallet(long cents) {
+		setWalletCents(Money.add(getWalletCents(), cents));
 	}
 
 	public void withdrawMoneyFromWallet(Double money) throws NotEnoughMoneyException {
-		if (wallet < money) throw new NotEnoughMoneyException();
-		wallet -= money;
+		withdrawMoneyFromWallet(Money.toCents(money));
+	}
+
+	/**
+	 * Withdraws the amount of money passed by parameter from the wallet of the user.
+	 * @param cents the money to withdraw from the wallet, in cents
+	 * @throws NotEnoughMoneyException if the wallet does not have that much money
+	 */
+	public void withdrawMoneyFromWallet(long cents) throws NotEnoughMoneyException {
+		if (getWalletCents() < cents) throw new NotEnoughMoneyException();
+		setWalletCents(Money.subtract(getWalletCents(), cents));
+	}
+
+	/**
+	 * Getter for the version of the user, used to detect concurrent updates.
+	 * @return the version
+	 */
+	public long getVersion() {
+		return version;
 	}
 
 	/**
@@ -403,7 +447,7 @@ public class User implements Serializable {
 				", password=" + Arrays.toString(password) +
 				", salt=" + Arrays.toString(salt) +
 				", userMode=" + userMode +
-				", wallet=" + wallet +
+				", wallet=" + Money.format(getWalletCents()) +
 				", banReason='" + banReason + '\'' +
 				", card=" + card +
 				", bets=" + bets +
@@ -0,0 +1,75 @@
+package domain;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Snapshot of the figures shown in the overview of a user, computed together so the overview
+ * is loaded with a single request.
+ * @author Josefinators team
+ */
+@XmlAccessorType(XmlAccessType.FIELD)
+public class UserDashboard implements Serializable {
+	private UserStats stats;
+	private List<Event> upcomingEvents = new ArrayList<Event>();
+	private Map<String, Double> walletPerDay = new TreeMap<String, Double>();
+	private Date computedAt;
+
+	/**
+	 * Default constructor.
+	 */
+	public UserDashboard() {}
+
+	/**
+	 * Constructor.
+	 * @param stats the betting statistics of the user
+	 * @param upcomingEvents the next events
+	 * @param walletPerDay the wallet of the user after each active day of the last month
+	 * @param computedAt the time the figures were computed
+	 */
+	public UserDashboard(UserStats stats, List<Event> upcomingEvents, Map<String, Double> walletPerDay,
+			Date computedAt) {
+		this.stats = stats;
+		this.upcomingEvents = upcomingEvents;
+		this.walletPerDay = walletPerDay;
+		this.computedAt = computedAt;
+	}
+
+	/**
+	 * Getter for the betting statistics of the user.
+	 * @return the statistics
+	 */
+	public UserStats getStats() {
+		return stats;
+	}
+
+	/**
+	 * Getter for the next events.
+	 * @return the upcoming events, sorted by date
+	 */
+	public List<Event> getUpcomingEvents() {
+		return upcomingEvents;
+	}
+
+	/**
+	 * Getter for the wallet of the user after each active day of the last month.
+	 * @return a map with days as keys and the money in the wallet as value
+	 */
+	public Map<String, Double> getWalletPerDay() {
+		return walletPerDay;
+	}
+
+	/**
+	 * Getter for the time the figures were computed.
+	 * @return the time of the snapshot
+	 */
+	public Date getComputedAt() {
+		return computedAt;
+	}
+}
@@ -0,0 +1,223 @@
+package domain;
+
+import utils.Money;
+
+import javax.persistence.*;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import java.io.Serializable;
+
+/**
+ * This class represents the betting statistics of a user, kept up to date when the user places
+ * a bet, when the bet is settled and when it is refunded, so that the overview of the user does
+ * not need to go through all their bets on each visit.
+ * @author Josefinators team
+ */
+@Entity
+@XmlAccessorType(XmlAccessType.FIELD)
+public class UserStats implements Serializable {
+
+    @Id
+    private Integer userID;
+    private long totalBets;
+    private long activeBets;
+    private long wonBets;
+    private long stakedCents; // money bet in all the bets
+    private long activeStakedCents; // money bet in the active bets
+    private long wonCents; // money won in the won bets
+
+    /**
+     * Default constructor.
+     */
+    public UserStats() {}
+
+    /**
+     * Constructor. Creates the statistics of a user without bets.
+     * @param userID the user id
+     */
+    public UserStats(Integer userID) {
+        this.userID = userID;
+    }
+
+    /**
+     * Getter for the user id.
+     * @return the user id
+     */
+    public Integer getUserID() {
+        return userID;
+    }
+
+    /**
+     * Getter for the number of bets placed by the user, including the ones that have already passed.
+     * @return the number of bets
+     */
+    public long getTotalBets() {
+        return totalBets;
+    }
+
+    /**
+     * Getter for the number of active bets of the user (the ones that have no correct forecast yet).
+     * @return the number of active bets
+     */
+    public long getActiveBets() {
+        return activeBets;
+    }
+
+    /**
+     * Getter for the number of bets won by the user.
+     * @return the number of won bets
+     */
+    public long getWonBets() {
+        return wonBets;
+    }
+
+    /**
+     * Getter for the number of bets lost by the user.
+     * @return the number of lost bets
+     */
+    public long getLostBets() {
+        return totalBets - activeBets - wonBets;
+    }
+
+    /**
+     * Getter for the money bet by the user in all the bets.
+     * @return the amount staked
+     */
+    public double getStaked() {
+        return Money.toDouble(stakedCents);
+    }
+
+    /**
+     * Getter for the money bet by the user in all the bets in cents.
+     * @return the amount staked in cents
+     */
+    public long getStakedCents() {
+        return stakedCents;
+    }
+
+    /**
+     * Getter for the money bet by the user in the active bets in cents.
+     * @return the amount at stake in cents
+     */
+    public long getActiveStakedCents() {
+        return activeStakedCents;
+    }
+
+    /**
+     * Getter for the money won by the user betting (the income earned).
+     * @return the amount won
+     */
+    public double getWon() {
+        return Money.toDouble(wonCents);
+    }
+
+    /**
+     * Getter for the money won by the user betting in cents.
+     * @return the amount won in cents
+     */
+    public long getWonCents() {
+        return wonCents;
+    }
+
+    /**
+     * Returns the return on investment of the settled bets of the user: what was won minus what
+     * was bet in them, relative to what was bet.
+     * @return the return on investment (0.25 is a 25% profit), or 0 if no bet has been settled
+     */
+    public double getRoi() {
+        long settledStaked = stakedCents - activeStakedCents;
+        return settledStaked == 0 ? 0 : (double) (wonCents - settledStaked) / settledStaked;
+    }
+
+    /**
+     * Overwrites the statistics with the given values.
+     * @param values total bets, active bets, won bets, money staked, money at stake and money won, in cents
+     */
+    public void setValues(long[] values) {
+        totalBets = values[0];
+        activeBets = values[1];
+        wonBets = values[2];
+        stakedCents = values[3];
+        activeStakedCents = values[4];
+        wonCents = values[5];
+    }
+
+    /**
+     * Returns the statistics, in the order taken by {@link #setValues(long[])}.
+     * @return total bets, active bets, won bets, money staked, money at stake and money won, in cents
+     */
+    public long[] getValues() {
+        return new long[] {totalBets, activeBets, wonBets, stakedCents, activeStakedCents, wonCents};
+    }
+
+    /**
+     * Adds a bet placed by the user.
+     * @param amountCents the money bet in cents
+     */
+    public void placed(long amountCents) {
+        totalBets++;
+        activeBets++;
+        stakedCents = Money.add(stakedCents, amountCents);
+        activeStakedCents = Money.add(activeStakedCents, amountCents);
+    }
+
+    /**
+     * Moves bets of the user that are no longer active out of the active ones.
+     * @param bets the number of bets
+     * @param amountCents the money bet in them in cents
+     */
+    public void closed(long bets, long amountCents) {
+        activeBets -= bets;
+        activeStakedCents = Money.subtract(activeStakedCents, amountCents);
+    }
+
+    /**
+     * Adds a bet of the user that won.
+     * @param wonCents the money won in cents
+     */
+    public void won(long wonCents) {
+        wonBets++;
+        this.wonCents = Money.add(this.wonCents, wonCents);
+    }
+
+    /**
+     * Removes a bet of the user that was refunded.
+     * @param amountCents the money bet in cents
+     * @param active true if the bet was active
+     * @param won true if the bet had won
+     * @param wonCents the money won by the bet in cents, or 0 if it did not win
+     */
+    public void refunded(long amountCents, boolean active, boolean won, long wonCents) {
+        refunded(1, amountCents, active ? 1 : 0, active ? amountCents : 0, won ? 1 : 0, wonCents);
+    }
+
+    /**
+     * Removes several bets of the user that were refunded.
+     * @param bets the number of bets
+     * @param amountCents the money bet in them in cents
+     * @param activeBets how many of them were active
+     * @param activeCents the money bet in the active ones in cents
+     * @param wonBets how many of them had won
+     * @param wonCents the money won by them in cents
+     */
+    public void refunded(long bets, long amountCents, long activeBets, long activeCents, long wonBets, long wonCents) {
+        totalBets -= bets;
+        stakedCents = Money.subtract(stakedCents, amountCents);
+        closed(activeBets, activeCents);
+        this.wonBets -= wonBets;
+        this.wonCents = Money.subtract(this.wonCents, wonCents);
+    }
+
+    @Override
+    public String toString() {
+        return "UserStats{" +
+                "userID=" + userID +
+                ", totalBets=" + totalBets +
+                ", activeBets=" + activeBets +
+                ", wonBets=" + wonBets +
+                ", staked=" + Money.format(stakedCents) +
+                ", atStake=" + Money.format(activeStakedCents) +
+                ", won=" + Money.format(wonCents) +
+                '}';
+    }
+}
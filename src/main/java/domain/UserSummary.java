@@ -0,0 +1,138 @@
+package domain;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import java.io.Serializable;
+
+/**
+ * Read-only view of a user for the screens that list users. It only contains the
+ * data shown in the list, so the bets and transactions of the users are never loaded.
+ * @author Josefinators team
+ */
+@XmlAccessorType(XmlAccessType.FIELD)
+public class UserSummary implements Serializable {
+	private Integer userID;
+	private String username;
+	private String firstName;
+	private String lastName;
+	private String email;
+	private String avatar;
+	private Integer userMode; // 0 => guest, 1 => logged user, 2 => administrator, 3 => banned
+	private Double wallet;
+	private long activeBets;
+	private double moneyAtStake; // money bet in the active bets
+
+	/**
+	 * Default constructor.
+	 */
+	public UserSummary() {}
+
+	/**
+	 * Constructor. Takes the data of the given user and the totals of its active bets.
+	 * @param user the user
+	 * @param activeBets number of active bets of the user
+	 * @param moneyAtStake money bet in the active bets of the user
+	 */
+	public UserSummary(User user, long activeBets, double moneyAtStake) {
+		this.userID = user.getUserID();
+		this.username = user.getUsername();
+		this.firstName = user.getFirstName();
+		this.lastName = user.getLastName();
+		this.email = user.getEmail();
+		this.avatar = user.getAvatar();
+		this.userMode = user.getUserMode();
+		this.wallet = user.getWallet();
+		this.activeBets = activeBets;
+		this.moneyAtStake = moneyAtStake;
+	}
+
+	/**
+	 * Getter for the user id.
+	 * @return the user id
+	 */
+	public Integer getUserID() {
+		return userID;
+	}
+
+	/**
+	 * Getter for the username.
+	 * @return the username
+	 */
+	public String getUsername() {
+		return username;
+	}
+
+	/**
+	 * Getter for the first name of the user.
+	 * @return the first name
+	 */
+	public String getFirstName() {
+		return firstName;
+	}
+
+	/**
+	 * Getter for the last name of the user.
+	 * @return the last name
+	 */
+	public String getLastName() {
+		return lastName;
+	}
+
+	/**
+	 * Getter for the email of the user.
+	 * @return the email
+	 */
+	public String getEmail() {
+		return email;
+	}
+
+	/**
+	 * Getter for the avatar of the user.
+	 * @return the avatar file name
+	 */
+	public String getAvatar() {
+		return avatar;
+	}
+
+	/**
+	 * Getter for the user mode.
+	 * @return the user mode
+	 */
+	public Integer getUserMode() {
+		return userMode;
+	}
+
+	/**
+	 * Getter for the money in the wallet of the user.
+	 * @return the wallet
+	 */
+	public Double getWallet() {
+		return wallet;
+	}
+
+	/**
+	 * Getter for the number of active bets of the user.
+	 * @return the number of active bets
+	 */
+	public long getActiveBets() {
+		return activeBets;
+	}
+
+	/**
+	 * Getter for the money bet by the user in bets that are still active.
+	 * @return the money at stake
+	 */
+	public double getMoneyAtStake() {
+		return moneyAtStake;
+	}
+
+	@Override
+	public String toString() {
+		return "UserSummary{" +
+				"userID=" + userID +
+				", username='" + username + '\'' +
+				", activeBets=" + activeBets +
+				", moneyAtStake=" + moneyAtStake +
+				'}';
+	}
+}
@@ -5,9 +5,12 @@ import businessLogic.BlFacadeImplementation;
 import configuration.ConfigXML;
 
 import javax.xml.namespace.QName;
+import javax.xml.ws.Binding;
+import javax.xml.ws.BindingProvider;
 import javax.xml.ws.Service;
+import javax.xml.ws.handler.Handler;
 import java.net.URL;
-import java.util.Locale;
+import java.util.*;
 
 public class ApplicationLauncher {
 
@@ -34,6 +37,12 @@ public class ApplicationLauncher {
                 QName qname = new QName("http://businessLogic/", "BlFacadeImplementationService");
                 Service service = Service.create(url, qname);
                 businessLogic = service.getPort(BlFacade.class);
+
+                // Send back the token of the session opened by the server when the user logs in
+                Binding binding = ((BindingProvider) businessLogic).getBinding();
+                List<Handler> handlers = binding.getHandlerChain();
+                handlers.add(new SessionTokenHandler());
+                binding.setHandlerChain(handlers);
             }
             new MainGUI(businessLogic);
         } catch (Exception e) {
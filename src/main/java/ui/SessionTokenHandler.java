@@ -0,0 +1,52 @@
+package ui;
+
+import businessLogic.BlFacadeImplementation;
+
+import javax.xml.namespace.QName;
+import javax.xml.ws.handler.MessageContext;
+import javax.xml.ws.handler.soap.SOAPHandler;
+import javax.xml.ws.handler.soap.SOAPMessageContext;
+import java.util.*;
+
+/**
+ * Keeps the session of a remote client. The server opens a session when the user logs in and
+ * returns its token in the {@link BlFacadeImplementation#SESSION_HEADER} header, and this handler
+ * sends it back in every following request.
+ */
+public class SessionTokenHandler implements SOAPHandler<SOAPMessageContext> {
+
+    private volatile String token;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean handleMessage(SOAPMessageContext context) {
+        if ((Boolean) context.get(MessageContext.MESSAGE_OUTBOUND_PROPERTY)) {
+            if (token == null) return true;
+            Map<String, List<String>> headers = (Map<String, List<String>>) context.get(MessageContext.HTTP_REQUEST_HEADERS);
+            headers = headers != null ? new HashMap<>(headers) : new HashMap<>();
+            headers.put(BlFacadeImplementation.SESSION_HEADER, Collections.singletonList(token));
+            context.put(MessageContext.HTTP_REQUEST_HEADERS, headers);
+        } else {
+            Map<String, List<String>> headers = (Map<String, List<String>>) context.get(MessageContext.HTTP_RESPONSE_HEADERS);
+            if (headers == null) return true;
+            for (Map.Entry<String, List<String>> h : headers.entrySet())
+                if (BlFacadeImplementation.SESSION_HEADER.equalsIgnoreCase(h.getKey()) && h.getValue() != null
+                        && !h.getValue().isEmpty())
+                    token = h.getValue().get(0);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean handleFault(SOAPMessageContext context) {
+        return true;
+    }
+
+    @Override
+    public void close(MessageContext context) {}
+
+    @Override
+    public Set<QName> getHeaders() {
+        return null;
+    }
+}
@@ -426,7 +426,7 @@ public class BrowseEventsController implements Controller {
                 Alert alert = new Alert(Alert.AlertType.ERROR, ResourceBundle.getBundle("Etiquetas").getString("ErrorNoForecastSelected"), ButtonType.OK);
                 alert.showAndWait();
             } else {
-                businessLogic.placeBet(betPrice, forecastsTbl.getSelectionModel().getSelectedItem(), businessLogic.getCurrentUser());
+                businessLogic.placeBet(betPrice, forecastsTbl.getSelectionModel().getSelectedItem());
                 Alert alert = new Alert(Alert.AlertType.NONE, ResourceBundle.getBundle("Etiquetas").getString("BetPlaced"), ButtonType.OK);
                 alert.showAndWait();
             }
@@ -1,6 +1,7 @@
 package uicontrollers.admin;
 
 import businessLogic.BlFacade;
+import domain.AdminDashboard;
 import javafx.fxml.FXML;
 import javafx.scene.chart.BarChart;
 import javafx.scene.chart.XYChart;
@@ -22,6 +23,8 @@ import java.util.ResourceBundle;
 public class AdminOverviewController implements Controller {
     private BlFacade businessLogic;
     private MainGUI mainGUI;
+    // Figures shown, loaded in a single request
+    private AdminDashboard dashboard;
 
     // Revenue chart axis
     private XYChart.Series moneyPlayedSeries;
@@ -54,6 +57,7 @@ public class AdminOverviewController implements Controller {
 
     @FXML
     void initialize() {
+        dashboard = businessLogic.getAdminDashboard();
         initTopPanes();
         initRevenueChart();
     }
@@ -66,10 +70,10 @@ public class AdminOverviewController implements Controller {
      * - Money at stake
      */
     private void initTopPanes() {
-        registeredUsersNumber.setText(String.valueOf(businessLogic.getTotalNumberOfUsers()));
-        upcomingEventsNumber.setText(String.valueOf(businessLogic.countUpcomingEvents()));
-        activeBetsNumber.setText(String.valueOf(businessLogic.countActiveBets()));
-        totalMoneyInGameNumber.setText(Formatter.twoDecimals(businessLogic.getActiveMoney()) + "€");
+        registeredUsersNumber.setText(String.valueOf(dashboard.getRegisteredUsers()));
+        upcomingEventsNumber.setText(String.valueOf(dashboard.getUpcomingEvents()));
+        activeBetsNumber.setText(String.valueOf(dashboard.getActiveBets()));
+        totalMoneyInGameNumber.setText(Formatter.twoDecimals(dashboard.getActiveMoney()) + "€");
     }
 
     /**
@@ -98,15 +102,15 @@ public class AdminOverviewController implements Controller {
         wonByBetAndRuinSeries.getData().clear();
 
         // Add the data to series
-        moneyPlayed = businessLogic.moneyBetPerDayLastMonth();
+        moneyPlayed = dashboard.getMoneyBetPerDay();
         for (LocalDate d: moneyPlayed.keySet())
             moneyPlayedSeries.getData().add(new XYChart.Data(d.toString(), moneyPlayed.get(d)));
 
-        wonByUsers = businessLogic.wonByUsersLastMonth();
+        wonByUsers = dashboard.getWonByUsersPerDay();
         for (LocalDate d: wonByUsers.keySet())
             wonByUsersSeries.getData().add(new XYChart.Data(d.toString(), wonByUsers.get(d)));
 
-        wonByByAndRuin = businessLogic.wonByBetAndRuinLastMonth();
+        wonByByAndRuin = dashboard.getWonByBetAndRuinPerDay();
         for (LocalDate d: wonByByAndRuin.keySet())
             wonByBetAndRuinSeries.getData().add(new XYChart.Data(d.toString(), wonByByAndRuin.get(d)));
     }
@@ -118,6 +122,8 @@ public class AdminOverviewController implements Controller {
 
     @Override
     public void redraw() {
+        dashboard = businessLogic.getAdminDashboard();
+
         // Refresh top panes
         initTopPanes();
 
@@ -7,12 +7,12 @@ import de.jensd.fx.glyphs.fontawesome.FontAwesomeIcon;
 import de.jensd.fx.glyphs.fontawesome.FontAwesomeIconView;
 import domain.Event;
 import domain.Match;
+import domain.Page;
 import exceptions.EventAlreadyExistException;
 import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import javafx.collections.transformation.FilteredList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.Cursor;
@@ -29,6 +29,7 @@ import ui.MainGUI;
 import uicontrollers.Controller;
 import uicontrollers.NavBarController;
 import utils.Dates;
+import utils.Paging;
 
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
@@ -48,6 +49,9 @@ public class EventsController implements Controller {
     private MainGUI mainGUI;
     private List<LocalDate> holidays = new ArrayList<>();
     private ObservableList<Event> events;
+    private String nextEventsToken; // continuation token of the next page of events
+    private boolean moreEvents;
+    private String search; // text the events must contain, empty to show all of them
     private StackPane createEventOverlay;
     private JFXDialog createEventDialog;
     private TableColumn<Event, Integer> questionsCol;
@@ -125,8 +129,11 @@ public class EventsController implements Controller {
             }
         });
 
-        datePicker1.valueProperty().addListener((obs, oldVal, newVal) ->
-            events.setAll(businessLogic.getEvents(Dates.convertToDate(datePicker1.getValue()))));
+        datePicker1.valueProperty().addListener((obs, oldVal, newVal) -> {
+            // The events of a single day are shown all at once
+            moreEvents = false;
+            events.setAll(businessLogic.getEvents(Dates.convertToDate(datePicker1.getValue())));
+        });
     }
 
     /**
@@ -156,7 +163,6 @@ public class EventsController implements Controller {
 
     private void initEventsTable() {
         events = FXCollections.observableArrayList();
-        FilteredList<Event> filteredEvents = new FilteredList<>(events, e -> true);
 
         // Bind columns
         idCol.setCellValueFactory(new PropertyValueFactory<>("eventID"));
@@ -178,34 +184,40 @@ public class EventsController implements Controller {
         countryCol.setCellValueFactory(new PropertyValueFactory<>("country"));
         countryCol.setReorderable(false);
 
-        // Text field to search and filter
-        searchField.textProperty().addListener(obs -> {
-            String filter = searchField.getText().toLowerCase().trim();
-            if (filter == null || filter.length() == 0) {
-                filteredEvents.setPredicate(e -> true);
-            } else {
-                filteredEvents.setPredicate(e -> {
-                    SimpleDateFormat sdf =  new SimpleDateFormat("EEE MMM dd HH:mm:ss z yyyy", Locale.US);
-                    try {
-                        // Convert date before filtering, otherwise filtering is with the original format, which has other characters
-                        Date date = sdf.parse(e.getEventDate().toString());
-                        sdf.applyPattern("yyyy-MM-dd HH:mm:ss");
-                        return String.valueOf(e.getEventID()).contains(filter) ||
-                                e.getDescription().toLowerCase().contains(filter) ||
-                                e.getCountry().toLowerCase().contains(filter) ||
-                                sdf.format(date).toLowerCase().contains(filter);
-                    } catch (ParseException ex) {
-                        throw new RuntimeException(ex);
-                    }
-                });
-            }
+        // Text field to search, the events are filtered by the business logic
+        Paging.onSearch(searchField, filter -> {
+            search = filter;
+            loadEvents();
         });
 
         addQuestionsColumn();
         addActionColumn();
 
-        events.addAll(businessLogic.getEvents());
-        eventsTbl.setItems(filteredEvents);
+        loadEvents();
+        eventsTbl.setItems(events);
+        Paging.onScrolledToEnd(eventsTbl, this::loadNextEventsPage);
+    }
+
+    /**
+     * Loads the first page of events, discarding the ones already loaded.
+     */
+    private void loadEvents() {
+        events.clear();
+        nextEventsToken = null;
+        moreEvents = true;
+        loadNextEventsPage();
+    }
+
+    /**
+     * Appends the next page of events to the table, if there is any.
+     */
+    private void loadNextEventsPage() {
+        if (!moreEvents) return;
+        Page<Event> page = businessLogic.getEventsPage(Paging.PAGE_SIZE, nextEventsToken, search);
+        events.addAll(page.getItems());
+        nextEventsToken = page.getNextToken();
+        moreEvents = page.hasNext();
+        Paging.fillTable(eventsTbl, this::loadNextEventsPage);
     }
 
     private void addQuestionsColumn() {
@@ -422,8 +434,7 @@ public class EventsController implements Controller {
      * Updates the changes made in events in other windows.
      */
     public void reloadData() {
-        events.clear();
-        events.addAll(businessLogic.getEvents());
+        loadEvents();
     }
 
     @Override
@@ -7,14 +7,14 @@ import de.jensd.fx.glyphs.fontawesome.FontAwesomeIcon;
 import de.jensd.fx.glyphs.fontawesome.FontAwesomeIconView;
 import domain.Forecast;
 import domain.Question;
-import domain.User;
+import domain.Page;
+import domain.UserSummary;
 import javafx.beans.property.SimpleDoubleProperty;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import javafx.collections.transformation.FilteredList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.Cursor;
@@ -31,6 +31,7 @@ import javafx.util.Callback;
 import ui.MainGUI;
 import uicontrollers.Controller;
 import utils.Formatter;
+import utils.Paging;
 
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -42,11 +43,14 @@ import java.util.ResourceBundle;
 public class UsersController implements Controller {
     private BlFacade businessLogic;
     private MainGUI mainGUI;
-    private ObservableList<User> users;
-    private TableColumn<User, Integer> banCol;
+    private ObservableList<UserSummary> users;
+    private String nextUsersToken; // continuation token of the next page of users
+    private boolean moreUsers;
+    private String search; // text the users must contain, empty to show all of them
+    private TableColumn<UserSummary, Integer> banCol;
     private JFXDialog banUserDialog;
     private StackPane banUserDialogOverlayPane;
-    private User selectedUser;
+    private UserSummary selectedUser;
 
     @FXML private AnchorPane mainPane;
     @FXML private JFXButton backBtn;
@@ -57,13 +61,13 @@ public class UsersController implements Controller {
     @FXML private Label reasonLbl;
     @FXML private Label reasonWarningLbl;
     @FXML private Pane banUserPane;
-    @FXML private TableColumn<User, ImageView> avatarCol;
-    @FXML private TableColumn<User, Integer> currentBetsCol;
-    @FXML private TableColumn<User, String> emailCol;
-    @FXML private TableColumn<User, String> moneyAtStakeCol;
-    @FXML private TableColumn<User, String> nameCol;
-    @FXML private TableColumn<User, String> usernameCol;
-    @FXML private TableView<User> usersTbl;
+    @FXML private TableColumn<UserSummary, ImageView> avatarCol;
+    @FXML private TableColumn<UserSummary, Integer> currentBetsCol;
+    @FXML private TableColumn<UserSummary, String> emailCol;
+    @FXML private TableColumn<UserSummary, String> moneyAtStakeCol;
+    @FXML private TableColumn<UserSummary, String> nameCol;
+    @FXML private TableColumn<UserSummary, String> usernameCol;
+    @FXML private TableView<UserSummary> usersTbl;
     @FXML private TextField reasonField;
     @FXML private TextField searchField;
 
@@ -83,7 +87,6 @@ public class UsersController implements Controller {
 
     private void initUsersTbl() {
         users = FXCollections.observableArrayList();
-        FilteredList<User> filteredUsers = new FilteredList<>(users, u -> true);
 
         // Bind columns
         avatarCol.setCellValueFactory(u -> {
@@ -104,31 +107,44 @@ public class UsersController implements Controller {
         nameCol.setReorderable(false);
         emailCol.setCellValueFactory(new PropertyValueFactory<>("email"));
         emailCol.setReorderable(false);
-        currentBetsCol.setCellValueFactory(u -> new SimpleObjectProperty<>(u.getValue().getActiveBets().size()));
+        currentBetsCol.setCellValueFactory(u -> new SimpleObjectProperty<>((int) u.getValue().getActiveBets()));
         currentBetsCol.setReorderable(false);
-        moneyAtStakeCol.setCellValueFactory(u -> new SimpleObjectProperty<>(Formatter.twoDecimals(u.getValue().getActiveBets().stream().mapToDouble(b -> b.getAmount()).sum())));
+        moneyAtStakeCol.setCellValueFactory(u -> new SimpleObjectProperty<>(Formatter.twoDecimals(u.getValue().getMoneyAtStake())));
         moneyAtStakeCol.setReorderable(false);
         // Add column with button for banning users
         addBanColumn();
 
-        // Text field to search and filter
-        searchField.textProperty().addListener(obs -> {
-            String filter = searchField.getText().toLowerCase().trim();
-            if (filter == null || filter.length() == 0) {
-                filteredUsers.setPredicate(f -> true);
-            } else {
-                filteredUsers.setPredicate(u ->
-                        u.getUsername().contains(filter) ||
-                        u.getFirstName().toLowerCase().contains(filter) ||
-                        u.getLastName().toLowerCase().contains(filter) ||
-                        u.getEmail().toLowerCase().contains(filter) ||
-                        String.valueOf(u.getActiveBets().size()).contains(filter) ||
-                        String.valueOf(u.getActiveBets().stream().mapToDouble(b -> b.getAmount()).sum()).contains(filter));
-            }
+        // Text field to search, the users are filtered by the business logic
+        Paging.onSearch(searchField, filter -> {
+            search = filter;
+            loadUsers();
         });
 
-        users.addAll(businessLogic.getUsers());
-        usersTbl.setItems(filteredUsers);
+        loadUsers();
+        usersTbl.setItems(users);
+        Paging.onScrolledToEnd(usersTbl, this::loadNextUsersPage);
+    }
+
+    /**
+     * Loads the first page of users, discarding the ones already loaded.
+     */
+    private void loadUsers() {
+        users.clear();
+        nextUsersToken = null;
+        moreUsers = true;
+        loadNextUsersPage();
+    }
+
+    /**
+     * Appends the next page of users to the table, if there is any.
+     */
+    private void loadNextUsersPage() {
+        if (!moreUsers) return;
+        Page<UserSummary> page = businessLogic.getUserSummariesPage(Paging.PAGE_SIZE, nextUsersToken, search);
+        users.addAll(page.getItems());
+        nextUsersToken = page.getNextToken();
+        moreUsers = page.hasNext();
+        Paging.fillTable(usersTbl, this::loadNextUsersPage);
     }
 
     /**
@@ -140,16 +156,16 @@ public class UsersController implements Controller {
         banCol.setMinWidth(80);
         banCol.setMaxWidth(80);
 
-        Callback<TableColumn<User, Integer>, TableCell<User, Integer>> cellFactory = new Callback<TableColumn<User, Integer>, TableCell<User, Integer>>() {
+        Callback<TableColumn<UserSummary, Integer>, TableCell<UserSummary, Integer>> cellFactory = new Callback<TableColumn<UserSummary, Integer>, TableCell<UserSummary, Integer>>() {
             @Override
-            public TableCell<User, Integer> call(final TableColumn<User, Integer> param) {
+            public TableCell<UserSummary, Integer> call(final TableColumn<UserSummary, Integer> param) {
                 JFXButton btn = new JFXButton();
                 FontAwesomeIconView icon = new FontAwesomeIconView(FontAwesomeIcon.BAN);
                 icon.setSize("24px");
                 icon.setFill(Color.web("#dc3545"));
                 btn.setCursor(Cursor.HAND);
 
-                final TableCell<User, Integer> cell = new TableCell<User, Integer>() {
+                final TableCell<UserSummary, Integer> cell = new TableCell<UserSummary, Integer>() {
                     {
                         btn.setOnAction((ActionEvent event) -> {
                             showBanUserDialog(getTableView().getItems().get(getIndex()));
@@ -201,7 +217,7 @@ public class UsersController implements Controller {
     /**
      * Opens the dialog for banning a user.
      */
-    private void showBanUserDialog(User u) {
+    private void showBanUserDialog(UserSummary u) {
         selectedUser = u;
         banUserDialogOverlayPane.setVisible(true);
         banUserPane.setVisible(true);
@@ -241,7 +257,7 @@ public class UsersController implements Controller {
             reasonWarningLbl.getStyleClass().addAll("lbl", "lbl-danger");
         } else {
             businessLogic.banUser(selectedUser.getUserID(), reasonField.getText().trim());
-            users.setAll(businessLogic.getUsers());
+            loadUsers();
             Alert alert = new Alert(Alert.AlertType.NONE, ResourceBundle.getBundle("Etiquetas").getString("UserBannedSuccessfully"), ButtonType.CLOSE);
             alert.showAndWait();
             banUserDialog.close();
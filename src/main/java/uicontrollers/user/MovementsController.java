@@ -4,6 +4,7 @@ import businessLogic.BlFacade;
 import com.jfoenix.controls.JFXButton;
 import de.jensd.fx.glyphs.fontawesome.FontAwesomeIcon;
 import de.jensd.fx.glyphs.fontawesome.FontAwesomeIconView;
+import domain.Page;
 import domain.Transaction;
 import exceptions.NotEnoughMoneyException;
 import javafx.animation.Interpolator;
@@ -12,6 +13,7 @@ import javafx.animation.TranslateTransition;
 import javafx.fxml.FXML;
 import javafx.geometry.Pos;
 import javafx.scene.control.Label;
+import javafx.scene.control.ScrollPane;
 import javafx.scene.control.TextField;
 import javafx.scene.layout.AnchorPane;
 import javafx.scene.layout.Pane;
@@ -22,11 +24,11 @@ import ui.MainGUI;
 import uicontrollers.Controller;
 import uicontrollers.NavBarController;
 import utils.Formatter;
+import utils.Paging;
 
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
-import java.util.List;
 import java.util.Locale;
 import java.util.ResourceBundle;
 
@@ -36,11 +38,13 @@ public class MovementsController implements Controller {
 
     private ParallelTransition depositToWithdrawAnim;
     private ParallelTransition withdrawToDepositAnim;
-    private List<Transaction> trs;
+    private String nextMovementsToken; // continuation token of the next page of transactions
+    private boolean moreMovements;
     private int movementsOffset;
 
     @FXML private AnchorPane depositWithdrawPane;
     @FXML private AnchorPane movementsPane;
+    @FXML private ScrollPane movementsScrollPane;
     @FXML private JFXButton confirmDepositMoneyBtn;
     @FXML private JFXButton confirmWithdrawMoneyBtn;
     @FXML private JFXButton depositBtn;
@@ -82,6 +86,7 @@ public class MovementsController implements Controller {
         updateMoneyLabels();
         initDepositWithdrawPane();
         initMovementsPane();
+        Paging.onScrolledToEnd(movementsScrollPane, this::loadNextMovementsPage);
     }
 
     /**
@@ -190,13 +195,25 @@ public class MovementsController implements Controller {
     }
 
     /**
-     * Adds one movement pane for each transaction.
+     * Adds one movement pane for each transaction of the first page (the newest ones).
      */
     private void initMovementsPane() {
-        trs = businessLogic.getCurrentUser().getCard().getTransactions();
         movementsPane.getChildren().clear();
         movementsOffset = 32;
-        for (Transaction t: trs) addNewTransactionPane(t);
+        nextMovementsToken = null;
+        moreMovements = true;
+        loadNextMovementsPage();
+    }
+
+    /**
+     * Adds one movement pane for each transaction of the next page, if there is any.
+     */
+    private void loadNextMovementsPage() {
+        if (!moreMovements) return;
+        Page<Transaction> page = businessLogic.getTransactionsPage(Paging.PAGE_SIZE, nextMovementsToken);
+        for (Transaction t: page.getItems()) addNewTransactionPane(t);
+        nextMovementsToken = page.getNextToken();
+        moreMovements = page.hasNext();
     }
 
     /**
@@ -300,8 +317,8 @@ public class MovementsController implements Controller {
                 depositStatusLbl.setText(ResourceBundle.getBundle("Etiquetas").getString("NotEnoughMoneyAvailableInTheCard"));
                 depositStatusLbl.getStyleClass().addAll("lbl", "lbl-danger");
             } else {
-                Transaction t = businessLogic.depositMoney(amount);
-                addNewTransactionPane(t);
+                businessLogic.depositMoney(amount);
+                initMovementsPane();
                 depositStatusLbl.setText(ResourceBundle.getBundle("Etiquetas").getString("MoneySuccesfullyDeposited"));
                 depositStatusLbl.getStyleClass().addAll("lbl", "lbl-success");
                 updateMoneyLabels();
@@ -334,8 +351,8 @@ public class MovementsController implements Controller {
                 withdrawStatusLbl.setText(ResourceBundle.getBundle("Etiquetas").getString("NotEnoughMoneyAvailableInTheWallet"));
                 withdrawStatusLbl.getStyleClass().addAll("lbl", "lbl-danger");
             } else {
-                Transaction t = businessLogic.withdrawMoney(amount);
-                addNewTransactionPane(t);
+                businessLogic.withdrawMoney(amount);
+                initMovementsPane();
                 withdrawStatusLbl.setText(ResourceBundle.getBundle("Etiquetas").getString("MoneySuccesfullyWithdrawn"));
                 withdrawStatusLbl.getStyleClass().addAll("lbl", "lbl-success");
                 updateMoneyLabels();
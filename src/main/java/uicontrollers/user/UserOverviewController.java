@@ -2,6 +2,9 @@ package uicontrollers.user;
 
 import businessLogic.BlFacade;
 import domain.Event;
+import domain.UserDashboard;
+import domain.UserStats;
+import exceptions.UserNotFoundException;
 import javafx.fxml.FXML;
 import javafx.scene.chart.LineChart;
 import javafx.scene.chart.XYChart;
@@ -21,6 +24,8 @@ import java.util.*;
 public class UserOverviewController implements Controller {
     private BlFacade businessLogic;
     private MainGUI mainGUI;
+    // Figures shown, loaded in a single request
+    private UserDashboard dashboard;
 
     private int offset = 80;
 
@@ -50,16 +55,31 @@ public class UserOverviewController implements Controller {
      */
     @FXML
     void initialize() {
+        if (!loadDashboard()) return;
         initTopPanes();
         initUpcomingEvents();
         initRevenueChart();
     }
 
+    /**
+     * Loads the figures of the overview of the current user.
+     * @return false if nobody is logged in, so there is nothing to show
+     */
+    private boolean loadDashboard() {
+        try {
+            dashboard = businessLogic.getUserDashboard();
+            return true;
+        } catch (UserNotFoundException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
     /**
      * Initializes the incoming events pane
      */
     private void initUpcomingEvents() {
-        for (Event e: businessLogic.getUpcomingEvents(3)) {
+        for (Event e: dashboard.getUpcomingEvents()) {
             Pane p = createUpcomingEventPane(e);
             upcomingEventsPane.getChildren().add(p);
             offset += 80;
@@ -134,10 +154,11 @@ public class UserOverviewController implements Controller {
         wonBetsLbl.setText(ResourceBundle.getBundle("Etiquetas").getString("BetsWon"));
         earnedIncomeLbl.setText(ResourceBundle.getBundle("Etiquetas").getString("EarnedIncome"));
 
-        activeBetsText.setText(String.valueOf(businessLogic.getNumberOfActiveBets()));
-        totalBetsText.setText(String.valueOf(businessLogic.getTotalNumberOfBetsUser()));
-        wonBetsText.setText(String.valueOf(businessLogic.getNumberOfWonBets()));
-        earnedIncomeText.setText(String.valueOf(businessLogic.getEarnedIncome()) + "€");
+        UserStats stats = dashboard.getStats();
+        activeBetsText.setText(String.valueOf(stats.getActiveBets()));
+        totalBetsText.setText(String.valueOf(stats.getTotalBets()));
+        wonBetsText.setText(String.valueOf(stats.getWonBets()));
+        earnedIncomeText.setText(String.valueOf(stats.getWon()) + "€");
     }
 
     /**
@@ -149,7 +170,7 @@ public class UserOverviewController implements Controller {
         XYChart.Series series = new XYChart.Series();
 
         // Populate the chart
-        Map<String, Double> walletMovementsLastMonth = businessLogic.getWalletMovementsLastMonth();
+        Map<String, Double> walletMovementsLastMonth = dashboard.getWalletPerDay();
         for (String s: walletMovementsLastMonth.keySet())
             series.getData().add(new XYChart.Data(s, walletMovementsLastMonth.get(s)));
 
@@ -163,6 +184,7 @@ public class UserOverviewController implements Controller {
 
     @Override
     public void redraw() {
+        if (!loadDashboard()) return;
         initTopPanes();
         initRevenueChart();
         upcomingEventsLbl.setText(ResourceBundle.getBundle("Etiquetas").getString("UpcomingEvents"));
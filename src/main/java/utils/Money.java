@@ -0,0 +1,89 @@
+package utils;
+
+/**
+ * Arithmetic of the money amounts, stored as a whole number of cents in a long so that they are
+ * exact and can be added up without rounding drift. The fees of the forecasts are stored the same
+ * way, in hundredths. None of the operations allocate: they work on primitive longs.
+ */
+public class Money {
+
+    /**
+     * Minor units in a unit: cents in a euro, hundredths in a fee.
+     */
+    public static final long SCALE = 100;
+
+    private Money() {}
+
+    /**
+     * Converts an amount to cents, rounding to the nearest cent.
+     * @param amount the amount
+     * @return the amount in cents
+     */
+    public static long toCents(double amount) {
+        return Math.round(amount * SCALE);
+    }
+
+    /**
+     * Converts an amount in cents to a double, to show it or to send it to the clients.
+     * @param cents the amount in cents
+     * @return the amount
+     */
+    public static double toDouble(long cents) {
+        return cents / (double) SCALE;
+    }
+
+    /**
+     * Adds two amounts, failing instead of overflowing.
+     * @param a an amount in cents
+     * @param b another amount in cents
+     * @return the sum in cents
+     */
+    public static long add(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    /**
+     * Subtracts an amount from another, failing instead of overflowing.
+     * @param a an amount in cents
+     * @param b the amount in cents to subtract
+     * @return the difference in cents
+     */
+    public static long subtract(long a, long b) {
+        return Math.subtractExact(a, b);
+    }
+
+    /**
+     * Returns the prize of a winning bet: the amount bet multiplied by the fee of the forecast,
+     * rounded half up to the cent.
+     * @param cents the amount bet in cents
+     * @param feeHundredths the fee of the forecast in hundredths
+     * @return the prize in cents
+     */
+    public static long multiply(long cents, long feeHundredths) {
+        return roundedDivide(Math.multiplyExact(cents, feeHundredths), SCALE);
+    }
+
+    /**
+     * Returns the given percentage of an amount, rounded half up to the cent.
+     * @param cents the amount in cents
+     * @param percent the percentage
+     * @return the percentage of the amount in cents
+     */
+    public static long percent(long cents, long percent) {
+        return roundedDivide(Math.multiplyExact(cents, percent), 100);
+    }
+
+    private static long roundedDivide(long value, long divisor) {
+        return value >= 0 ? (value + divisor / 2) / divisor : -((-value + divisor / 2) / divisor);
+    }
+
+    /**
+     * Formats an amount in cents with two decimals.
+     * @param cents the amount in cents
+     * @return the formatted amount
+     */
+    public static String format(long cents) {
+        long abs = Math.abs(cents);
+        return (cents < 0 ? "-" : "") + abs / SCALE + "." + (abs % SCALE < 10 ? "0" : "") + abs % SCALE;
+    }
+}
@@ -0,0 +1,112 @@
+package utils;
+
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.control.Skin;
+import javafx.scene.control.TableView;
+import javafx.scene.control.TextField;
+import javafx.util.Duration;
+
+import java.util.function.Consumer;
+
+/**
+ * This class introduces some static methods to load the data of a list page by page,
+ * requesting the next page when the user scrolls to the end of what is displayed, or while
+ * what is displayed does not fill the list, and searching it as the user types.
+ * @author Josefinators
+ */
+public class Paging {
+
+    /**
+     * Number of items requested to the business logic in each page.
+     */
+    public static final int PAGE_SIZE = 50;
+
+    /**
+     * Milliseconds the user has to stop typing before a search is sent to the business logic.
+     */
+    public static final int SEARCH_DELAY = 300;
+
+    /**
+     * Runs the given action every time the table is scrolled to its last row.
+     * @param table the table
+     * @param loadNextPage the action that loads the next page
+     */
+    public static void onScrolledToEnd(TableView<?> table, Runnable loadNextPage) {
+        // The scroll bars only exist once the table has its skin
+        table.skinProperty().addListener((obs, oldSkin, newSkin) -> {
+            ScrollBar bar = verticalScrollBar(table);
+            if (bar != null) {
+                bar.valueProperty().addListener((o, oldValue, newValue) -> {
+                    if (newValue.doubleValue() >= bar.getMax()) loadNextPage.run();
+                });
+            }
+        });
+    }
+
+    /**
+     * Runs the given action if the rows of the table do not fill it, so the user could not scroll
+     * to its end to get the next page. It is meant to be called after each page is loaded, so pages
+     * keep being loaded until the table can be scrolled or there are no more pages.
+     * @param table the table
+     * @param loadNextPage the action that loads the next page, doing nothing if there are no more
+     */
+    public static void fillTable(TableView<?> table, Runnable loadNextPage) {
+        if (table.getSkin() == null) {
+            // Checked once the table is shown
+            table.skinProperty().addListener(new ChangeListener<Skin<?>>() {
+                @Override
+                public void changed(ObservableValue<? extends Skin<?>> obs, Skin<?> oldSkin, Skin<?> newSkin) {
+                    table.skinProperty().removeListener(this);
+                    fillTable(table, loadNextPage);
+                }
+            });
+            return;
+        }
+        // Once the new rows are laid out
+        Platform.runLater(() -> {
+            if (table.getHeight() <= 0) return;
+            table.layout();
+            ScrollBar bar = verticalScrollBar(table);
+            if (bar != null && !bar.isVisible()) loadNextPage.run();
+        });
+    }
+
+    /**
+     * Runs the given search when the user stops typing in the search field, rather than on every key.
+     * @param field the search field
+     * @param search the action that searches the text of the field
+     */
+    public static void onSearch(TextField field, Consumer<String> search) {
+        PauseTransition delay = new PauseTransition(Duration.millis(SEARCH_DELAY));
+        delay.setOnFinished(e -> search.accept(field.getText().trim()));
+        field.textProperty().addListener(obs -> delay.playFromStart());
+    }
+
+    /**
+     * Returns the vertical scroll bar of a table, once it has its skin.
+     */
+    private static ScrollBar verticalScrollBar(TableView<?> table) {
+        for (Node n: table.lookupAll(".scroll-bar")) {
+            if (n instanceof ScrollBar bar && bar.getOrientation() == Orientation.VERTICAL) return bar;
+        }
+        return null;
+    }
+
+    /**
+     * Runs the given action every time the scroll pane is scrolled to its bottom.
+     * @param pane the scroll pane
+     * @param loadNextPage the action that loads the next page
+     */
+    public static void onScrolledToEnd(ScrollPane pane, Runnable loadNextPage) {
+        pane.vvalueProperty().addListener((obs, oldValue, newValue) -> {
+            if (newValue.doubleValue() >= pane.getVmax()) loadNextPage.run();
+        });
+    }
+}